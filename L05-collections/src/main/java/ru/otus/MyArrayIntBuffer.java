@@ -0,0 +1,150 @@
+package ru.otus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The same int array as MyArrayInt, but stored in ByteBuffers outside of the heap.
+ * The array is split into chunks, because one ByteBuffer can't address more than 2Gb.
+ * <p>
+ * In the direct mode chunks are allocated with ByteBuffer.allocateDirect(), a growing chunk is
+ * reallocated and copied off-heap. In the mapped mode chunks are regions of a file mapped with
+ * FileChannel.map(), so the data is persisted and can be reopened without deserialization.
+ * Only the supported ByteBuffer API is used, so released chunks are freed by the garbage collector.
+ */
+public class MyArrayIntBuffer implements AutoCloseable {
+    private static final int ELEMENT_SIZE_BYTES = Integer.BYTES;
+    private static final int CHUNK_SHIFT = 24;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final FileChannel channel;
+    private final ByteOrder order;
+    private ByteBuffer[] chunks;
+    private long size;
+    private boolean closed;
+
+    public MyArrayIntBuffer(int size) {
+        this(null, ByteOrder.nativeOrder(), Math.max(size, 1));
+    }
+
+    private MyArrayIntBuffer(FileChannel channel, ByteOrder order, long size) {
+        this.channel = channel;
+        this.order = order;
+        this.chunks = new ByteBuffer[0];
+        resize(size);
+    }
+
+    /**
+     * Maps the array onto the file. If the file already exists and is bigger than size,
+     * the whole file is mapped and its content becomes the content of the array.
+     * Values are stored in little-endian order.
+     */
+    public static MyArrayIntBuffer mapped(Path file, long size) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long existingSize = channel.size() / ELEMENT_SIZE_BYTES;
+            return new MyArrayIntBuffer(channel, ByteOrder.LITTLE_ENDIAN, Math.max(Math.max(size, existingSize), 1));
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void setValue(long index, int value) {
+        if (index >= size) {
+            resize(Math.max(index + 1, size * 2));
+        }
+        chunks[chunkIndex(index)].putInt(chunkOffset(index), value);
+    }
+
+    public int getValue(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks[chunkIndex(index)].getInt(chunkOffset(index));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Writes the changes of the mapped array to the file, does nothing for the direct one.
+     */
+    public void force() {
+        if (channel != null) {
+            for (ByteBuffer chunk : chunks) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        force();
+        chunks = new ByteBuffer[0];
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void resize(long newSize) {
+        int chunkCount = chunkIndex(newSize - 1) + 1;
+        int lastChunkSize = (int) (newSize - ((long) (chunkCount - 1) << CHUNK_SHIFT));
+
+        int oldChunkCount = chunks.length;
+        chunks = Arrays.copyOf(chunks, chunkCount);
+        // the old last chunk is not full, it has to be reallocated up to the full or the new last size
+        if (oldChunkCount > 0) {
+            int idx = oldChunkCount - 1;
+            int newChunkSize = idx == chunkCount - 1 ? lastChunkSize : CHUNK_SIZE;
+            if (chunks[idx].capacity() < newChunkSize * ELEMENT_SIZE_BYTES) {
+                chunks[idx] = reallocateChunk(idx, chunks[idx], newChunkSize);
+            }
+        }
+        for (int idx = oldChunkCount; idx < chunkCount; idx++) {
+            chunks[idx] = reallocateChunk(idx, null, idx == chunkCount - 1 ? lastChunkSize : CHUNK_SIZE);
+        }
+        size = newSize;
+    }
+
+    private ByteBuffer reallocateChunk(int chunkIdx, ByteBuffer oldChunk, int chunkSize) {
+        long bytes = (long) chunkSize * ELEMENT_SIZE_BYTES;
+        ByteBuffer newChunk;
+        if (channel != null) {
+            try {
+                // mapping a bigger region extends the file, the content is already there
+                newChunk = channel.map(FileChannel.MapMode.READ_WRITE, ((long) chunkIdx << CHUNK_SHIFT) * ELEMENT_SIZE_BYTES, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            newChunk = ByteBuffer.allocateDirect((int) bytes);
+            if (oldChunk != null) {
+                newChunk.put(oldChunk.duplicate().clear());
+            }
+        }
+        return newChunk.order(order);
+    }
+
+    private static int chunkIndex(long index) {
+        return (int) (index >>> CHUNK_SHIFT);
+    }
+
+    private static int chunkOffset(long index) {
+        return (int) (index & CHUNK_MASK) * ELEMENT_SIZE_BYTES;
+    }
+}
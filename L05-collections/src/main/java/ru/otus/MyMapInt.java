@@ -1,57 +1,187 @@
 package ru.otus;
 
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * String -> int map with open addressing and linear probing.
+ * Capacity is always a power of two, so the slot is taken by mask instead of %.
+ * Removed entries are marked with a tombstone, the table is rehashed when live entries plus tombstones
+ * reach the load factor.
+ */
 public class MyMapInt {
 
-    private final int size;
-    private static final int STEP_LIMIT = 120;
-    private final String[] entriesKey;
-    private final int[] entriesValue;
-    private final boolean[] entriesOccupied;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // compared by reference, can't clash with a real key
+    private static final String TOMBSTONE = new String("<removed>");
+
+    private final float loadFactor;
+    private String[] entriesKey;
+    private int[] entriesValue;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int used;
 
     public MyMapInt(int size) {
-        this.size = size * 2;
-        entriesKey = new String[this.size];
-        entriesValue = new int[this.size];
-        entriesOccupied = new boolean[this.size];
+        this(size, DEFAULT_LOAD_FACTOR);
     }
 
-    public void put(String key, int value) {
-        int index = getIndex(key);
+    public MyMapInt(int size, float loadFactor) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(size));
+    }
 
-        this.entriesKey[index] = key;
-        this.entriesValue[index] = value;
-        this.entriesOccupied[index] = true;
+    public void put(String key, int value) {
+        Objects.requireNonNull(key);
+        if (used >= threshold) {
+            rehash(size >= threshold >> 1 ? entriesKey.length << 1 : entriesKey.length);
+        }
+        int hash = hash(key);
+        int index = hash & mask;
+        int tombstoneIndex = -1;
+        String current;
+        while ((current = entriesKey[index]) != null) {
+            if (current == TOMBSTONE) {
+                if (tombstoneIndex < 0) {
+                    tombstoneIndex = index;
+                }
+            } else if (current.equals(key)) {
+                entriesValue[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        if (tombstoneIndex >= 0) {
+            index = tombstoneIndex;
+        } else {
+            used++;
+        }
+        entriesKey[index] = key;
+        entriesValue[index] = value;
+        size++;
     }
 
     public int get(String key) {
-        int step = 0;
-        int index;
-        do {
-            index = getBaseIndex(key, step++);
-        } while (!key.equals(entriesKey[index]));
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("No value for the key:" + key);
+        }
         return entriesValue[index];
     }
 
-    private int getBaseIndex(String key, int step) {
-        if (step >= STEP_LIMIT) {
-            throw new OperationTakesToManySteps("Can't execute operation for the key:" + key);
+    public int getOrDefault(String key, int defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : entriesValue[index];
+    }
+
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean remove(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
         }
-        int hash = key.hashCode();
-        return (((hash + hash * ++step) & 0x7fffffff) % this.size);
+        entriesKey[index] = TOMBSTONE;
+        entriesValue[index] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
     }
 
-    private int getIndex(String key) {
-        int step = 0;
-        int index;
-        do {
-            index = getBaseIndex(key, step++);
-        } while (entriesOccupied[index]);
-        return index;
+    public boolean isEmpty() {
+        return size == 0;
     }
 
-    public static class OperationTakesToManySteps extends RuntimeException {
-        public OperationTakesToManySteps(String msg) {
-            super(msg);
+    public void clear() {
+        Arrays.fill(entriesKey, null);
+        Arrays.fill(entriesValue, 0);
+        size = 0;
+        used = 0;
+    }
+
+    public void forEach(ObjIntConsumer<String> action) {
+        Objects.requireNonNull(action);
+        String[] keys = entriesKey;
+        int[] values = entriesValue;
+        for (int idx = 0; idx < keys.length; idx++) {
+            String key = keys[idx];
+            if (key != null && key != TOMBSTONE) {
+                action.accept(key, values[idx]);
+            }
+        }
+    }
+
+    private int indexOf(String key) {
+        Objects.requireNonNull(key);
+        int index = hash(key) & mask;
+        String current;
+        while ((current = entriesKey[index]) != null) {
+            if (current != TOMBSTONE && current.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Map is too large: " + size);
         }
+        String[] oldKeys = entriesKey;
+        int[] oldValues = entriesValue;
+        allocate(newCapacity);
+        for (int idx = 0; idx < oldKeys.length; idx++) {
+            String key = oldKeys[idx];
+            if (key != null && key != TOMBSTONE) {
+                int index = hash(key) & mask;
+                while (entriesKey[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                entriesKey[index] = key;
+                entriesValue[index] = oldValues[idx];
+                size++;
+                used++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        entriesKey = new String[capacity];
+        entriesValue = new int[capacity];
+        mask = capacity - 1;
+        threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+        size = 0;
+        used = 0;
+    }
+
+    private int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        if (required > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    // sequential keys like "k1", "k2" have close hash codes, mixing spreads them over the table
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
     }
 }
@@ -25,6 +25,10 @@ public class JMHmap {
     private final String keyStr = "k";
     private MyMapInt myMap;
     private Map<String, Integer> hashMap;
+    private String[] hitKeys;
+    private String[] missKeys;
+    private MyMapInt myMapFilled;
+    private Map<String, Integer> hashMapFilled;
 
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder().include(JMHmap.class.getSimpleName()).forks(1).build();
@@ -35,6 +39,17 @@ public class JMHmap {
     public void setup() {
         myMap = new MyMapInt(mapSize * 2);
         hashMap = new HashMap<>(mapSize);
+
+        hitKeys = new String[mapSize];
+        missKeys = new String[mapSize];
+        myMapFilled = new MyMapInt(mapSize);
+        hashMapFilled = new HashMap<>(mapSize);
+        for (int idx = 0; idx < mapSize; idx++) {
+            hitKeys[idx] = keyStr + idx;
+            missKeys[idx] = "m" + idx;
+            myMapFilled.put(hitKeys[idx], idx);
+            hashMapFilled.put(hitKeys[idx], idx);
+        }
     }
 
     @Benchmark
@@ -62,4 +77,70 @@ public class JMHmap {
         }
         return summ;
     }
+
+    @Benchmark
+    public long myMapHitTest() {
+        long summ = 0;
+        for (String key : hitKeys) {
+            summ += myMapFilled.get(key);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long hashMapHitTest() {
+        long summ = 0;
+        for (String key : hitKeys) {
+            summ += hashMapFilled.get(key);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long myMapMissTest() {
+        long summ = 0;
+        for (String key : missKeys) {
+            summ += myMapFilled.getOrDefault(key, 1);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long hashMapMissTest() {
+        long summ = 0;
+        for (String key : missKeys) {
+            summ += hashMapFilled.getOrDefault(key, 1);
+        }
+        return summ;
+    }
+
+    /**
+     * Keeps a sliding window of keys: every put is followed by a remove of an older key,
+     * so the table is constantly filled with tombstones and rehashed.
+     */
+    @Benchmark
+    public long myMapChurnTest() {
+        int window = mapSize / 10;
+        MyMapInt map = new MyMapInt(window);
+        for (int idx = 0; idx < mapSize; idx++) {
+            map.put(hitKeys[idx], idx);
+            if (idx >= window) {
+                map.remove(hitKeys[idx - window]);
+            }
+        }
+        return map.size();
+    }
+
+    @Benchmark
+    public long hashMapChurnTest() {
+        int window = mapSize / 10;
+        Map<String, Integer> map = new HashMap<>(window);
+        for (int idx = 0; idx < mapSize; idx++) {
+            map.put(hitKeys[idx], idx);
+            if (idx >= window) {
+                map.remove(hitKeys[idx - window]);
+            }
+        }
+        return map.size();
+    }
 }
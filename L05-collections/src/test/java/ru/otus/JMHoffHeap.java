@@ -0,0 +1,143 @@
+package ru.otus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Sequential and random reads: heap int[] vs MyArrayInt (Unsafe) vs MyArrayIntBuffer (direct and mapped).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JMHoffHeap {
+    private static final int ARRAY_SIZE = 10_000_000;
+    private int[] heapArr;
+    private int[] randomIdx;
+    private MyArrayInt unsafeArr;
+    private MyArrayIntBuffer directArr;
+    private MyArrayIntBuffer mappedArr;
+    private Path mappedFile;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHoffHeap.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        heapArr = new int[ARRAY_SIZE];
+        unsafeArr = new MyArrayInt(ARRAY_SIZE);
+        directArr = new MyArrayIntBuffer(ARRAY_SIZE);
+        mappedFile = Files.createTempFile("jmh-off-heap", ".bin");
+        mappedArr = MyArrayIntBuffer.mapped(mappedFile, ARRAY_SIZE);
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            heapArr[idx] = idx;
+            unsafeArr.setValue(idx, idx);
+            directArr.setValue(idx, idx);
+            mappedArr.setValue(idx, idx);
+        }
+
+        Random random = new Random(42);
+        randomIdx = new int[ARRAY_SIZE];
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            randomIdx[idx] = random.nextInt(ARRAY_SIZE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        unsafeArr.close();
+        directArr.close();
+        mappedArr.close();
+        Files.deleteIfExists(mappedFile);
+    }
+
+    @Benchmark
+    public long heapSequentialTest() {
+        long summ = 0;
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            summ += heapArr[idx];
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long unsafeSequentialTest() {
+        long summ = 0;
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            summ += unsafeArr.getValue(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long directSequentialTest() {
+        long summ = 0;
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            summ += directArr.getValue(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long mappedSequentialTest() {
+        long summ = 0;
+        for (int idx = 0; idx < ARRAY_SIZE; idx++) {
+            summ += mappedArr.getValue(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long heapRandomTest() {
+        long summ = 0;
+        for (int idx : randomIdx) {
+            summ += heapArr[idx];
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long unsafeRandomTest() {
+        long summ = 0;
+        for (int idx : randomIdx) {
+            summ += unsafeArr.getValue(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long directRandomTest() {
+        long summ = 0;
+        for (int idx : randomIdx) {
+            summ += directArr.getValue(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long mappedRandomTest() {
+        long summ = 0;
+        for (int idx : randomIdx) {
+            summ += mappedArr.getValue(idx);
+        }
+        return summ;
+    }
+}
@@ -0,0 +1,72 @@
+package ru.otus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+class MyArrayIntBufferTest {
+
+    @Test
+    @DisplayName("value from direct array for index with initial size")
+    void incSize() throws Exception {
+        int sizeInit = 1;
+        int sizeMax = 100;
+        try (MyArrayIntBuffer myArr = new MyArrayIntBuffer(sizeInit)) {
+            for (int idx = 0; idx < sizeMax; idx++) {
+                myArr.setValue(idx, idx);
+            }
+
+            for (int idx = 0; idx < sizeMax; idx++) {
+                assertEquals(idx, myArr.getValue(idx));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("index outside of the array size is rejected")
+    void outOfSize() throws Exception {
+        try (MyArrayIntBuffer myArr = new MyArrayIntBuffer(10)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> myArr.getValue(myArr.size()));
+            assertThrows(IndexOutOfBoundsException.class, () -> myArr.getValue(-1));
+        }
+    }
+
+    @Test
+    @DisplayName("value from direct array bigger than one chunk")
+    void severalChunks() throws Exception {
+        int sizeMax = 20_000_000;
+        try (MyArrayIntBuffer myArr = new MyArrayIntBuffer(10)) {
+            for (int idx = 0; idx < sizeMax; idx++) {
+                myArr.setValue(idx, idx);
+            }
+
+            for (int idx = 0; idx < sizeMax; idx += 997) {
+                assertEquals(idx, myArr.getValue(idx));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("value from mapped array after reopen")
+    void mappedReopen(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("array.bin");
+        int sizeMax = 1000;
+        try (MyArrayIntBuffer myArr = MyArrayIntBuffer.mapped(file, 1)) {
+            for (int idx = 0; idx < sizeMax; idx++) {
+                myArr.setValue(idx, idx * 2);
+            }
+        }
+
+        try (MyArrayIntBuffer myArr = MyArrayIntBuffer.mapped(file, 0)) {
+            for (int idx = 0; idx < sizeMax; idx++) {
+                assertEquals(idx * 2, myArr.getValue(idx));
+            }
+        }
+    }
+}
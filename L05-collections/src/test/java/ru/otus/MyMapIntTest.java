@@ -1,7 +1,13 @@
 package ru.otus;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.junit.jupiter.api.Test;
 
@@ -37,6 +43,69 @@ class MyMapIntTest {
         MyMapInt map = new MyMapInt(1);
         String key = "key";
 
-        assertThrows(MyMapInt.OperationTakesToManySteps.class, () -> map.get(key));
+        assertThrows(NoSuchElementException.class, () -> map.get(key));
+        assertFalse(map.containsKey(key));
+        assertEquals(-1, map.getOrDefault(key, -1));
+    }
+
+    @Test
+    void putOverwrites() {
+        MyMapInt map = new MyMapInt(1);
+        String key = "key";
+
+        map.put(key, 1);
+        map.put(key, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(key));
+    }
+
+    @Test
+    void growsBeyondInitialSize() {
+        int size = 10_000;
+        String keyStr = "k";
+        MyMapInt map = new MyMapInt(1, 0.75f);
+
+        for (int idx = 0; idx < size; idx++) {
+            map.put(keyStr + idx, idx);
+        }
+
+        assertEquals(size, map.size());
+        for (int idx = 0; idx < size; idx++) {
+            assertEquals(idx, map.get(keyStr + idx));
+        }
+    }
+
+    @Test
+    void removeAndPutAgain() {
+        int size = 1_000;
+        String keyStr = "k";
+        MyMapInt map = new MyMapInt(size);
+
+        for (int round = 0; round < 10; round++) {
+            for (int idx = 0; idx < size; idx++) {
+                map.put(keyStr + idx, idx + round);
+            }
+            for (int idx = 0; idx < size; idx += 2) {
+                assertTrue(map.remove(keyStr + idx));
+                assertFalse(map.remove(keyStr + idx));
+            }
+            assertEquals(size / 2, map.size());
+            for (int idx = 1; idx < size; idx += 2) {
+                assertEquals(idx + round, map.get(keyStr + idx));
+            }
+        }
+    }
+
+    @Test
+    void forEachVisitsAllEntries() {
+        MyMapInt map = new MyMapInt(3);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        map.remove("b");
+
+        Map<String, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(Map.of("a", 1, "c", 3), visited);
     }
 }
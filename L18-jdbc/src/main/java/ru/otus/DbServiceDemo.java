@@ -9,8 +9,8 @@ import org.slf4j.LoggerFactory;
 import ru.otus.jdbc.dao.UserDaoJdbc;
 import ru.otus.core.service.DbServiceUserImpl;
 import ru.otus.jdbc.DbExecutorImpl;
-import ru.otus.h2.DataSourceH2;
 import ru.otus.core.model.User;
+import ru.otus.jdbc.pool.PooledDataSource;
 import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
 
 
@@ -22,9 +22,15 @@ import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
 // этот класс не должен быть в домашней работе
 public class DbServiceDemo {
     private static final Logger logger = LoggerFactory.getLogger(DbServiceDemo.class);
+    private static final String URL = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1";
 
     public static void main(String[] args) {
-        var dataSource = new DataSourceH2();
+        var dataSource = PooledDataSource.newBuilder(URL)
+                .setMinIdle(2)
+                .setMaxPoolSize(10)
+                .setPoolName("DemoPool")
+                .setRegisterMbean(true)
+                .build();
         flywayMigrations(dataSource);
 
         var sessionManager = new SessionManagerJdbc(dataSource);
@@ -39,6 +45,8 @@ public class DbServiceDemo {
                 crUser -> logger.info("created user, name:{}", crUser.getName()),
                 () -> logger.info("user was not created")
         );
+        logger.info("pool:{}, borrow latency:{}", dataSource, dataSource.getBorrowLatencyHistogram());
+        dataSource.close();
     }
 
     private static void flywayMigrations(DataSource dataSource) {
@@ -6,10 +6,11 @@ import org.slf4j.LoggerFactory;
 import ru.otus.core.dao.UserDao;
 import ru.otus.core.model.User;
 import ru.otus.core.service.DbServiceUserImpl;
-import ru.otus.h2.DataSourceH2;
 import ru.otus.jdbc.DbExecutorImpl;
-import ru.otus.jdbc.dao.UserDaoJdbc;
+import ru.otus.jdbc.dao.UserDaoJdbcMapper;
 import ru.otus.jdbc.mapper.JdbcMapper;
+import ru.otus.jdbc.mapper.JdbcMapperImpl;
+import ru.otus.jdbc.pool.PooledDataSource;
 import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
 
 import javax.sql.DataSource;
@@ -18,17 +19,25 @@ import java.util.Optional;
 
 public class HomeWork {
     private static final Logger logger = LoggerFactory.getLogger(HomeWork.class);
+    private static final String URL = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1";
+    private static final int MAX_POOL_SIZE = 10;
+    private static final int READ_BATCH_SIZE = 100;
 
     public static void main(String[] args) {
 // Общая часть
-        var dataSource = new DataSourceH2();
+        try (var dataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(MAX_POOL_SIZE).build()) {
+            run(dataSource);
+        }
+    }
+
+    private static void run(DataSource dataSource) {
         flywayMigrations(dataSource);
         var sessionManager = new SessionManagerJdbc(dataSource);
 
 // Работа с пользователем
         DbExecutorImpl<User> dbExecutor = new DbExecutorImpl<>();
-        JdbcMapper<User> jdbcMapperUser = null; //
-        UserDao userDao = null; // = new UserDaoJdbcMapper(sessionManager, dbExecutor);
+        JdbcMapper<User> jdbcMapperUser = new JdbcMapperImpl<>(sessionManager, dbExecutor, User.class);
+        UserDao userDao = new UserDaoJdbcMapper(sessionManager, jdbcMapperUser);
 
 // Код дальше должен остаться, т.е. userDao должен использоваться
         var dbServiceUser = new DbServiceUserImpl(userDao);
@@ -39,9 +48,9 @@ public class HomeWork {
                 crUser -> logger.info("created user, name:{}", crUser.getName()),
                 () -> logger.info("user was not created")
         );
+        dbServiceUser.forEachUserBatch(READ_BATCH_SIZE, users -> logger.info("users: {}", users));
 // Работа со счетом
 
-
     }
 
     private static void flywayMigrations(DataSource dataSource) {
@@ -1,6 +1,8 @@
 package ru.otus.core.dao;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import ru.otus.core.model.User;
 import ru.otus.core.sessionmanager.SessionManager;
@@ -10,6 +12,10 @@ public interface UserDao {
 
     long insertUser(User user);
 
+    List<Long> insertUsers(List<User> users);
+
+    void findAllUsers(int batchSize, Consumer<List<User>> consumer);
+
     //void updateUser(User user);
     //void insertOrUpdate(User user);
 
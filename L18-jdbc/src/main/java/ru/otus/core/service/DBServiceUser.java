@@ -2,11 +2,15 @@ package ru.otus.core.service;
 
 import ru.otus.core.model.User;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DBServiceUser {
 
     long saveUser(User user);
 
     Optional<User> getUser(long id);
+
+    void forEachUserBatch(int batchSize, Consumer<List<User>> consumer);
 }
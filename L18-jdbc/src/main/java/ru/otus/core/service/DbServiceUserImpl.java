@@ -5,7 +5,9 @@ import org.slf4j.LoggerFactory;
 import ru.otus.core.dao.UserDao;
 import ru.otus.core.model.User;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class DbServiceUserImpl implements DBServiceUser {
     private static final Logger logger = LoggerFactory.getLogger(DbServiceUserImpl.class);
@@ -49,4 +51,18 @@ public class DbServiceUserImpl implements DBServiceUser {
             return Optional.empty();
         }
     }
+
+    @Override
+    public void forEachUserBatch(int batchSize, Consumer<List<User>> consumer) {
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginSession();
+            try {
+                userDao.findAllUsers(batchSize, consumer);
+                sessionManager.commitSession();
+            } catch (Exception e) {
+                sessionManager.rollbackSession();
+                throw new DbServiceException(e);
+            }
+        }
+    }
 }
@@ -5,11 +5,39 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface DbExecutor<T> {
 
     long executeInsert(Connection connection, String sql, List<Object> params) throws SQLException;
 
+    /**
+     * Вставка строк пачками через addBatch/executeBatch
+     *
+     * @return сгенерированные ключи в порядке строк
+     */
+    List<Long> executeBatchInsert(Connection connection, String sql, List<List<Object>> rows) throws SQLException;
+
+    /**
+     * @return число измененных строк
+     */
+    int executeUpdate(Connection connection, String sql, List<Object> params) throws SQLException;
+
     Optional<T> executeSelect(Connection connection, String sql, Object id, Function<ResultSet, T> rsHandler) throws SQLException;
+
+    /**
+     * Строки читаются с сервера порциями по fetchSize по мере чтения потока, rowMapper вызывается для текущей
+     * строки и не должен сам вызывать next(). Поток нужно закрыть, это закрывает ResultSet и запрос.
+     * Ошибки чтения выбрасываются как DbExecutorException.
+     */
+    Stream<T> executeQueryStream(Connection connection, String sql, List<Object> params, int fetchSize,
+                                 Function<ResultSet, T> rowMapper) throws SQLException;
+
+    /**
+     * Читает результат потоком и отдает consumer списками не больше batchSize строк
+     */
+    void forEachBatch(Connection connection, String sql, List<Object> params, int batchSize,
+                      Function<ResultSet, T> rowMapper, Consumer<List<T>> consumer) throws SQLException;
 }
@@ -0,0 +1,7 @@
+package ru.otus.jdbc;
+
+public class DbExecutorException extends RuntimeException {
+    public DbExecutorException(Exception ex) {
+        super(ex);
+    }
+}
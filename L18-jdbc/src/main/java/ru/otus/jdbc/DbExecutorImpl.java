@@ -3,27 +3,54 @@ package ru.otus.jdbc;
 import ru.otus.core.model.User;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Savepoint;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * Подготовленные запросы берутся из кэша соединения и не закрываются после выполнения.
+ * executeBatchInsert отправляет строки пачками по batchSize.
+ * executeQueryStream готовит отдельный запрос, которым владеет поток, и закрывает его вместе с потоком.
+ *
  * @author sergey
  * created on 03.02.19.
  */
 public class DbExecutorImpl<T> implements DbExecutor<T> {
 
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int MAX_STATEMENTS_PER_CONNECTION = 64;
+
+    private final int batchSize;
+    private final StatementCache statementCache = new StatementCache(MAX_STATEMENTS_PER_CONNECTION);
+
+    public DbExecutorImpl() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public DbExecutorImpl(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
     @Override
     public long executeInsert(Connection connection, String sql, List<Object> params) throws SQLException {
         Savepoint savePoint = connection.setSavepoint("savePointName");
-        try (var pst = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            for (int idx = 0; idx < params.size(); idx++) {
-                pst.setObject(idx + 1, params.get(idx));
-            }
+        try {
+            var pst = statementCache.prepare(connection, sql, true);
+            setParams(pst, params);
             pst.executeUpdate();
             try (ResultSet rs = pst.getGeneratedKeys()) {
                 rs.next();
@@ -35,13 +62,159 @@ public class DbExecutorImpl<T> implements DbExecutor<T> {
         }
     }
 
+    @Override
+    public List<Long> executeBatchInsert(Connection connection, String sql, List<List<Object>> rows) throws SQLException {
+        List<Long> ids = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return ids;
+        }
+        Savepoint savePoint = connection.setSavepoint("savePointName");
+        try {
+            var pst = statementCache.prepare(connection, sql, true);
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                for (List<Object> params : rows.subList(from, Math.min(from + batchSize, rows.size()))) {
+                    setParams(pst, params);
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+                try (ResultSet rs = pst.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (ids.size() != rows.size()) {
+                throw new SQLException("Expected " + rows.size() + " generated keys, got " + ids.size());
+            }
+            return ids;
+        } catch (SQLException ex) {
+            connection.rollback(savePoint);
+            throw ex;
+        }
+    }
+
+    @Override
+    public int executeUpdate(Connection connection, String sql, List<Object> params) throws SQLException {
+        Savepoint savePoint = connection.setSavepoint("savePointName");
+        try {
+            var pst = statementCache.prepare(connection, sql, false);
+            setParams(pst, params);
+            return pst.executeUpdate();
+        } catch (SQLException ex) {
+            connection.rollback(savePoint);
+            throw ex;
+        }
+    }
+
     @Override
     public Optional<T> executeSelect(Connection connection, String sql, Object id,
                                      Function<ResultSet, T> rsHandler) throws SQLException {
-        try (var pst = connection.prepareStatement(sql)) {
-            pst.setObject(1, id);
-            try (var rs = pst.executeQuery()) {
-                return Optional.ofNullable(rsHandler.apply(rs));
+        var pst = statementCache.prepare(connection, sql, false);
+        pst.setObject(1, id);
+        try (var rs = pst.executeQuery()) {
+            return Optional.ofNullable(rsHandler.apply(rs));
+        }
+    }
+
+    @Override
+    public Stream<T> executeQueryStream(Connection connection, String sql, List<Object> params, int fetchSize,
+                                        Function<ResultSet, T> rowMapper) throws SQLException {
+        var pst = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs;
+        try {
+            pst.setFetchSize(fetchSize);
+            setParams(pst, params);
+            rs = pst.executeQuery();
+        } catch (SQLException ex) {
+            pst.close();
+            throw ex;
+        }
+        var rows = new ResultSetSpliterator<>(pst, rs, rowMapper);
+        return StreamSupport.stream(rows, false).onClose(rows::close);
+    }
+
+    @Override
+    public void forEachBatch(Connection connection, String sql, List<Object> params, int batchSize,
+                             Function<ResultSet, T> rowMapper, Consumer<List<T>> consumer) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        try (Stream<T> rows = executeQueryStream(connection, sql, params, batchSize, rowMapper)) {
+            Iterator<T> iterator = rows.iterator();
+            List<T> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+        } catch (DbExecutorException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static void setParams(PreparedStatement pst, List<Object> params) throws SQLException {
+        for (int idx = 0; idx < params.size(); idx++) {
+            pst.setObject(idx + 1, params.get(idx));
+        }
+    }
+
+    /**
+     * Читает следующую строку только когда поток запросил элемент, после последней строки сразу закрывает
+     * ResultSet и запрос
+     */
+    private static final class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final PreparedStatement pst;
+        private final ResultSet rs;
+        private final Function<ResultSet, T> rowMapper;
+        private boolean closed;
+
+        private ResultSetSpliterator(PreparedStatement pst, ResultSet rs, Function<ResultSet, T> rowMapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.pst = pst;
+            this.rs = rs;
+            this.rowMapper = rowMapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+            } catch (SQLException ex) {
+                try {
+                    close();
+                } catch (DbExecutorException closeEx) {
+                    ex.addSuppressed(closeEx.getCause());
+                }
+                throw new DbExecutorException(ex);
+            }
+            action.accept(rowMapper.apply(rs));
+            return true;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // закрытие запроса закрывает и его ResultSet
+            try {
+                pst.close();
+            } catch (SQLException ex) {
+                throw new DbExecutorException(ex);
             }
         }
     }
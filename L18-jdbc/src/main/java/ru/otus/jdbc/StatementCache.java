@@ -0,0 +1,95 @@
+package ru.otus.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подготовленные запросы по соединениям, ключ — текст запроса и то, возвращает ли он сгенерированные ключи.
+ * <p>
+ * Соединение определяется по unwrap, поэтому соединение из пула в следующих сессиях получает уже
+ * подготовленные запросы. На соединение хранится не больше maxStatementsPerConnection запросов, давно
+ * не использованные закрываются. Запросы закрытых соединений выбрасываются при появлении нового соединения.
+ * Выданный запрос нельзя закрывать, им владеет кэш.
+ */
+final class StatementCache {
+
+    private static final String GENERATED_KEYS_PREFIX = "K:";
+    private static final String NO_KEYS_PREFIX = "N:";
+
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+
+    StatementCache(int maxStatementsPerConnection) {
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    PreparedStatement prepare(Connection connection, String sql, boolean returnGeneratedKeys) throws SQLException {
+        Map<String, PreparedStatement> connectionStatements = statementsOf(connection);
+        synchronized (connectionStatements) {
+            String key = statementKey(sql, returnGeneratedKeys);
+            PreparedStatement pst = connectionStatements.get(key);
+            if (pst == null || pst.isClosed()) {
+                pst = returnGeneratedKeys
+                        ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                        : connection.prepareStatement(sql);
+                connectionStatements.put(key, pst);
+            } else {
+                pst.clearParameters();
+            }
+            return pst;
+        }
+    }
+
+    /**
+     * Запрос, подготовленный без RETURN_GENERATED_KEYS, ключей не вернет, поэтому для того же текста
+     * с ключами и без них хранятся разные запросы
+     */
+    private static String statementKey(String sql, boolean returnGeneratedKeys) {
+        return (returnGeneratedKeys ? GENERATED_KEYS_PREFIX : NO_KEYS_PREFIX) + sql;
+    }
+
+    private Map<String, PreparedStatement> statementsOf(Connection connection) throws SQLException {
+        Connection physical = connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+        Map<String, PreparedStatement> connectionStatements = statements.get(physical);
+        if (connectionStatements == null) {
+            removeClosedConnections();
+            connectionStatements = statements.computeIfAbsent(physical, key -> new LruStatements(maxStatementsPerConnection));
+        }
+        return connectionStatements;
+    }
+
+    private void removeClosedConnections() throws SQLException {
+        for (Connection connection : statements.keySet()) {
+            if (connection.isClosed()) {
+                statements.remove(connection);
+            }
+        }
+    }
+
+    private static final class LruStatements extends LinkedHashMap<String, PreparedStatement> {
+        private final int maxSize;
+
+        private LruStatements(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= maxSize) {
+                return false;
+            }
+            try {
+                eldest.getValue().close();
+            } catch (SQLException e) {
+                // соединение могло быть закрыто вместе с запросом
+            }
+            return true;
+        }
+    }
+}
@@ -4,7 +4,10 @@ package ru.otus.jdbc.dao;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +60,34 @@ public class UserDaoJdbc implements UserDao {
         }
     }
 
+    @Override
+    public List<Long> insertUsers(List<User> users) {
+        try {
+            List<List<Object>> rows = users.stream()
+                    .map(user -> Collections.<Object>singletonList(user.getName()))
+                    .collect(Collectors.toList());
+            return dbExecutor.executeBatchInsert(getConnection(), "insert into user(name) values (?)", rows);
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
+    @Override
+    public void findAllUsers(int batchSize, Consumer<List<User>> consumer) {
+        try {
+            dbExecutor.forEachBatch(getConnection(), "select id, name from user order by id", List.of(), batchSize,
+                    rs -> {
+                        try {
+                            return new User(rs.getLong("id"), rs.getString("name"));
+                        } catch (SQLException e) {
+                            throw new UserDaoException(e);
+                        }
+                    }, consumer);
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
     @Override
     public SessionManager getSessionManager() {
         return sessionManager;
@@ -0,0 +1,64 @@
+package ru.otus.jdbc.dao;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import ru.otus.core.dao.UserDao;
+import ru.otus.core.dao.UserDaoException;
+import ru.otus.core.model.User;
+import ru.otus.core.sessionmanager.SessionManager;
+import ru.otus.jdbc.mapper.JdbcMapper;
+import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
+
+public class UserDaoJdbcMapper implements UserDao {
+
+    private final SessionManagerJdbc sessionManager;
+    private final JdbcMapper<User> jdbcMapper;
+
+    public UserDaoJdbcMapper(SessionManagerJdbc sessionManager, JdbcMapper<User> jdbcMapper) {
+        this.sessionManager = sessionManager;
+        this.jdbcMapper = jdbcMapper;
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        try {
+            return Optional.ofNullable(jdbcMapper.findById(id, User.class));
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
+    @Override
+    public long insertUser(User user) {
+        try {
+            return jdbcMapper.insert(user);
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
+    @Override
+    public List<Long> insertUsers(List<User> users) {
+        try {
+            return jdbcMapper.insertAll(users);
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
+    @Override
+    public void findAllUsers(int batchSize, Consumer<List<User>> consumer) {
+        try {
+            jdbcMapper.findAll(batchSize, consumer);
+        } catch (Exception e) {
+            throw new UserDaoException(e);
+        }
+    }
+
+    @Override
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+}
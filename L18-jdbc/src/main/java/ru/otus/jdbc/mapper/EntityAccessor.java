@@ -0,0 +1,201 @@
+package ru.otus.jdbc.mapper;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Сгенерированный доступ к полям сущности, рефлексия используется только при создании.
+ * <p>
+ * Геттеры - лямбды из {@link LambdaMetafactory} над getX()/isX(), а если метода нет, над method handle поля.
+ * Чтение строки - один method handle (ResultSet)T: конструктор, аргументы которого получаются из колонок
+ * rs.getLong(1), rs.getString(2)... без упаковки примитивов. Если подходящего конструктора нет, объект создается
+ * конструктором без параметров и поля заполняются method handle сеттерами.
+ * Колонки строки ожидаются в порядке {@link EntityClassMetaData#getAllFields()}.
+ */
+final class EntityAccessor<T> {
+
+    private static final Map<Class<?>, String> RESULT_SET_GETTERS = Map.of(
+            long.class, "getLong",
+            int.class, "getInt",
+            short.class, "getShort",
+            byte.class, "getByte",
+            double.class, "getDouble",
+            float.class, "getFloat",
+            boolean.class, "getBoolean",
+            String.class, "getString",
+            BigDecimal.class, "getBigDecimal");
+
+    private final Function<Object, Object> idGetter;
+    private final List<Function<Object, Object>> getters;
+    // (ResultSet)Object
+    private final MethodHandle reader;
+
+    private EntityAccessor(Function<Object, Object> idGetter, List<Function<Object, Object>> getters,
+                           MethodHandle reader) {
+        this.idGetter = idGetter;
+        this.getters = getters;
+        this.reader = reader;
+    }
+
+    static <T> EntityAccessor<T> generate(Class<T> clazz, EntityClassMetaData<T> metaData) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            List<Function<Object, Object>> getters = new ArrayList<>();
+            for (Field field : metaData.getFieldsWithoutId()) {
+                getters.add(getter(lookup, clazz, field));
+            }
+            return new EntityAccessor<>(getter(lookup, clazz, metaData.getIdField()), getters,
+                    reader(lookup, metaData));
+        } catch (JdbcMapperException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    Object getId(T object) {
+        return idGetter.apply(object);
+    }
+
+    /**
+     * Параметры для {@link EntitySQLMetaData#getInsertSql()}
+     */
+    List<Object> insertParams(T object) {
+        List<Object> params = new ArrayList<>(getters.size());
+        for (Function<Object, Object> getter : getters) {
+            params.add(getter.apply(object));
+        }
+        return params;
+    }
+
+    /**
+     * Параметры для {@link EntitySQLMetaData#getUpdateSql()}
+     */
+    List<Object> updateParams(T object) {
+        List<Object> params = new ArrayList<>(getters.size() + 1);
+        for (Function<Object, Object> getter : getters) {
+            params.add(getter.apply(object));
+        }
+        params.add(idGetter.apply(object));
+        return params;
+    }
+
+    /**
+     * Читает текущую строку, next() не вызывает
+     */
+    @SuppressWarnings("unchecked")
+    T read(ResultSet rs) throws SQLException {
+        try {
+            return (T) (Object) reader.invokeExact(rs);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(MethodHandles.Lookup lookup, Class<?> clazz, Field field)
+            throws Throwable {
+        Method method = findGetter(clazz, field);
+        if (method != null) {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply", methodType(Function.class),
+                    methodType(Object.class, Object.class), lookup.unreflect(method),
+                    methodType(methodType(field.getType()).wrap().returnType(), clazz));
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        }
+        MethodHandle handle = lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class));
+        return object -> {
+            try {
+                return (Object) handle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JdbcMapperException(e);
+            }
+        };
+    }
+
+    private static Method findGetter(Class<?> clazz, Field field) {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = clazz.getDeclaredMethod(name);
+                if (method.getReturnType() == field.getType() && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // нет такого метода
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle reader(MethodHandles.Lookup lookup, EntityClassMetaData<?> metaData)
+            throws ReflectiveOperationException {
+        List<Field> fields = metaData.getAllFields();
+        MethodHandle constructor = lookup.unreflectConstructor(metaData.getConstructor());
+        if (constructor.type().parameterCount() == fields.size()) {
+            MethodHandle[] columns = new MethodHandle[fields.size()];
+            for (int idx = 0; idx < fields.size(); idx++) {
+                columns[idx] = columnReader(lookup, fields.get(idx).getType(), idx + 1);
+            }
+            // (ResultSet, ..., ResultSet)T -> (ResultSet)T, все аргументы - один и тот же ResultSet
+            MethodHandle fromColumns = MethodHandles.filterArguments(constructor, 0, columns);
+            return MethodHandles.permuteArguments(fromColumns, methodType(constructor.type().returnType(),
+                    ResultSet.class), new int[fields.size()])
+                    .asType(methodType(Object.class, ResultSet.class));
+        }
+
+        // new T(), затем поля по одному: (Object, ResultSet)Object возвращает тот же объект
+        MethodHandle result = constructor.asType(methodType(Object.class));
+        result = MethodHandles.dropArguments(result, 0, ResultSet.class);
+        MethodHandle identity = MethodHandles.identity(Object.class);
+        for (int idx = 0; idx < fields.size(); idx++) {
+            Field field = fields.get(idx);
+            MethodHandle setter = MethodHandles.filterArguments(lookup.unreflectSetter(field), 1,
+                    columnReader(lookup, field.getType(), idx + 1))
+                    .asType(methodType(void.class, Object.class, ResultSet.class));
+            // (Object, ResultSet)Object: setter, затем вернуть объект
+            MethodHandle setAndReturn = MethodHandles.foldArguments(
+                    MethodHandles.dropArguments(identity, 1, ResultSet.class), setter);
+            // (ResultSet)Object: создать/заполнить предыдущими шагами, затем этот сеттер
+            result = MethodHandles.foldArguments(setAndReturn, result);
+        }
+        return result;
+    }
+
+    /**
+     * (ResultSet)type, читает колонку column
+     */
+    private static MethodHandle columnReader(MethodHandles.Lookup lookup, Class<?> type, int column)
+            throws ReflectiveOperationException {
+        String getter = RESULT_SET_GETTERS.get(type);
+        MethodHandle handle;
+        if (getter != null) {
+            handle = lookup.findVirtual(ResultSet.class, getter, methodType(type, int.class));
+        } else {
+            // обертки и остальные типы, null у оберток сохраняется
+            handle = MethodHandles.insertArguments(
+                    lookup.findVirtual(ResultSet.class, "getObject", methodType(Object.class, int.class, Class.class)),
+                    2, methodType(type).wrap().returnType())
+                    .asType(methodType(type, ResultSet.class, int.class));
+        }
+        return MethodHandles.insertArguments(handle, 1, column);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.otus.jdbc.mapper;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Поля - нестатические поля класса в порядке объявления, ключ помечен {@link Id}.
+ * Конструктор - принимающий все поля в том же порядке, а если такого нет, то конструктор без параметров.
+ */
+public class EntityClassMetaDataImpl<T> implements EntityClassMetaData<T> {
+
+    private final String name;
+    private final Constructor<T> constructor;
+    private final Field idField;
+    private final List<Field> allFields;
+    private final List<Field> fieldsWithoutId;
+
+    public EntityClassMetaDataImpl(Class<T> clazz) {
+        this.name = clazz.getSimpleName().toLowerCase();
+        List<Field> fields = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                fields.add(field);
+            }
+        }
+        this.allFields = Collections.unmodifiableList(fields);
+        this.idField = fields.stream()
+                .filter(field -> field.isAnnotationPresent(Id.class))
+                .findFirst()
+                .orElseThrow(() -> new JdbcMapperException("No @Id field in " + clazz.getName()));
+        List<Field> withoutId = new ArrayList<>(fields);
+        withoutId.remove(idField);
+        this.fieldsWithoutId = Collections.unmodifiableList(withoutId);
+        this.constructor = findConstructor(clazz, fields);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Constructor<T> getConstructor() {
+        return constructor;
+    }
+
+    @Override
+    public Field getIdField() {
+        return idField;
+    }
+
+    @Override
+    public List<Field> getAllFields() {
+        return allFields;
+    }
+
+    @Override
+    public List<Field> getFieldsWithoutId() {
+        return fieldsWithoutId;
+    }
+
+    private static <T> Constructor<T> findConstructor(Class<T> clazz, List<Field> fields) {
+        Class<?>[] fieldTypes = fields.stream().map(Field::getType).toArray(Class<?>[]::new);
+        try {
+            return clazz.getDeclaredConstructor(fieldTypes);
+        } catch (NoSuchMethodException e) {
+            try {
+                return clazz.getDeclaredConstructor();
+            } catch (NoSuchMethodException ex) {
+                throw new JdbcMapperException("No constructor " + Arrays.toString(fieldTypes)
+                        + " or default constructor in " + clazz.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.otus.jdbc.mapper;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Таблица называется как класс, колонки - как поля. Колонки select идут в порядке
+ * {@link EntityClassMetaData#getAllFields()}, параметры insert - в порядке полей без ключа,
+ * у update ключ - последний параметр.
+ */
+public class EntitySQLMetaDataImpl implements EntitySQLMetaData {
+
+    private final String selectAllSql;
+    private final String selectByIdSql;
+    private final String insertSql;
+    private final String updateSql;
+
+    public EntitySQLMetaDataImpl(EntityClassMetaData<?> entityClassMetaData) {
+        String table = entityClassMetaData.getName();
+        String id = entityClassMetaData.getIdField().getName();
+        List<Field> fieldsWithoutId = entityClassMetaData.getFieldsWithoutId();
+
+        this.selectAllSql = "select " + columns(entityClassMetaData.getAllFields(), "") + " from " + table;
+        this.selectByIdSql = selectAllSql + " where " + id + " = ?";
+        this.insertSql = "insert into " + table + "(" + columns(fieldsWithoutId, "") + ") values ("
+                + String.join(", ", Collections.nCopies(fieldsWithoutId.size(), "?")) + ")";
+        this.updateSql = "update " + table + " set " + columns(fieldsWithoutId, " = ?") + " where " + id + " = ?";
+    }
+
+    @Override
+    public String getSelectAllSql() {
+        return selectAllSql;
+    }
+
+    @Override
+    public String getSelectByIdSql() {
+        return selectByIdSql;
+    }
+
+    @Override
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    @Override
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    private static String columns(List<Field> fields, String suffix) {
+        return fields.stream()
+                .map(field -> field.getName() + suffix)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -1,15 +1,34 @@
 package ru.otus.jdbc.mapper;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * Сохратяет объект в базу, читает объект из базы
  * @param <T>
  */
 public interface JdbcMapper<T> {
-    void insert(T objectData);
+    /**
+     * @return сгенерированный ключ
+     */
+    long insert(T objectData);
+
+    /**
+     * Вставляет объекты пачками
+     *
+     * @return сгенерированные ключи в порядке объектов
+     */
+    List<Long> insertAll(List<T> objects);
 
     void update(T objectData);
 
     void insertOrUpdate(T objectData);
 
     T findById(Object id, Class<T> clazz);
+
+    /**
+     * Читает всю таблицу потоком и отдает consumer списками не больше batchSize объектов,
+     * в памяти одновременно только одна пачка
+     */
+    void findAll(int batchSize, Consumer<List<T>> consumer);
 }
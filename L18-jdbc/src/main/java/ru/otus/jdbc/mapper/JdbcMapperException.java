@@ -0,0 +1,11 @@
+package ru.otus.jdbc.mapper;
+
+public class JdbcMapperException extends RuntimeException {
+    public JdbcMapperException(String message) {
+        super(message);
+    }
+
+    public JdbcMapperException(Throwable ex) {
+        super(ex);
+    }
+}
@@ -0,0 +1,150 @@
+package ru.otus.jdbc.mapper;
+
+import ru.otus.jdbc.DbExecutor;
+import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Метаданные, SQL и сгенерированный доступ к полям ({@link EntityAccessor}) строятся один раз на класс
+ * и общие для всех мапперов этого класса, на каждую строку рефлексия не используется.
+ * <p>
+ * insertOrUpdate считает объект новым, если ключ null или 0.
+ */
+public class JdbcMapperImpl<T> implements JdbcMapper<T> {
+
+    private static final Map<Class<?>, Mapping<?>> mappings = new ConcurrentHashMap<>();
+
+    private final SessionManagerJdbc sessionManager;
+    private final DbExecutor<T> dbExecutor;
+    private final Class<T> clazz;
+    private final Mapping<T> mapping;
+
+    public JdbcMapperImpl(SessionManagerJdbc sessionManager, DbExecutor<T> dbExecutor, Class<T> clazz) {
+        this.sessionManager = sessionManager;
+        this.dbExecutor = dbExecutor;
+        this.clazz = clazz;
+        this.mapping = mappingOf(clazz);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Mapping<T> mappingOf(Class<T> clazz) {
+        return (Mapping<T>) mappings.computeIfAbsent(clazz, Mapping::new);
+    }
+
+    public EntityClassMetaData<T> getEntityClassMetaData() {
+        return mapping.classMetaData;
+    }
+
+    public EntitySQLMetaData getEntitySQLMetaData() {
+        return mapping.sqlMetaData;
+    }
+
+    @Override
+    public long insert(T objectData) {
+        try {
+            return dbExecutor.executeInsert(getConnection(), mapping.sqlMetaData.getInsertSql(),
+                    mapping.accessor.insertParams(objectData));
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    @Override
+    public List<Long> insertAll(List<T> objects) {
+        List<List<Object>> rows = new ArrayList<>(objects.size());
+        for (T object : objects) {
+            rows.add(mapping.accessor.insertParams(object));
+        }
+        try {
+            return dbExecutor.executeBatchInsert(getConnection(), mapping.sqlMetaData.getInsertSql(), rows);
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    @Override
+    public void update(T objectData) {
+        try {
+            int updated = dbExecutor.executeUpdate(getConnection(), mapping.sqlMetaData.getUpdateSql(),
+                    mapping.accessor.updateParams(objectData));
+            if (updated == 0) {
+                throw new JdbcMapperException("Not found: " + objectData);
+            }
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    @Override
+    public void insertOrUpdate(T objectData) {
+        Object id = mapping.accessor.getId(objectData);
+        if (id == null || (id instanceof Number && ((Number) id).longValue() == 0)) {
+            insert(objectData);
+        } else {
+            update(objectData);
+        }
+    }
+
+    @Override
+    public T findById(Object id, Class<T> clazz) {
+        if (clazz != this.clazz) {
+            throw new IllegalArgumentException("Mapper of " + this.clazz.getName() + " can't read " + clazz.getName());
+        }
+        try {
+            return dbExecutor.executeSelect(getConnection(), mapping.sqlMetaData.getSelectByIdSql(), id,
+                    this::readFirst).orElse(null);
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    @Override
+    public void findAll(int batchSize, Consumer<List<T>> consumer) {
+        try {
+            dbExecutor.forEachBatch(getConnection(), mapping.sqlMetaData.getSelectAllSql(), List.of(), batchSize,
+                    this::readCurrent, consumer);
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    private T readCurrent(ResultSet rs) {
+        try {
+            return mapping.accessor.read(rs);
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    private T readFirst(ResultSet rs) {
+        try {
+            return rs.next() ? mapping.accessor.read(rs) : null;
+        } catch (SQLException e) {
+            throw new JdbcMapperException(e);
+        }
+    }
+
+    private Connection getConnection() {
+        return sessionManager.getCurrentSession().getConnection();
+    }
+
+    static final class Mapping<T> {
+        final EntityClassMetaData<T> classMetaData;
+        final EntitySQLMetaData sqlMetaData;
+        final EntityAccessor<T> accessor;
+
+        private Mapping(Class<T> clazz) {
+            this.classMetaData = new EntityClassMetaDataImpl<>(clazz);
+            this.sqlMetaData = new EntitySQLMetaDataImpl(classMetaData);
+            this.accessor = EntityAccessor.generate(clazz, classMetaData);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.otus.jdbc.pool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма времени получения соединения из пула с фиксированными границами корзин.
+ * Запись — один инкремент LongAdder, поэтому не создает конкуренции между потоками.
+ */
+final class BorrowLatencyHistogram {
+
+    private static final long[] BOUNDS_MICROS = {10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final String[] BUCKET_NAMES = {"<=10us", "<=100us", "<=1ms", "<=10ms", "<=100ms", "<=1s", ">1s"};
+
+    private final LongAdder[] counts = new LongAdder[BUCKET_NAMES.length];
+    private final LongAdder totalNanos = new LongAdder();
+
+    BorrowLatencyHistogram() {
+        for (int idx = 0; idx < counts.length; idx++) {
+            counts[idx] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+        totalNanos.add(nanos);
+    }
+
+    long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    double getAverageMicros() {
+        long count = getCount();
+        return count == 0 ? 0.0 : totalNanos.sum() / 1000.0 / count;
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (int idx = 0; idx < counts.length; idx++) {
+            snapshot.put(BUCKET_NAMES[idx], counts[idx].sum());
+        }
+        return snapshot;
+    }
+
+    void reset() {
+        for (LongAdder bucket : counts) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+}
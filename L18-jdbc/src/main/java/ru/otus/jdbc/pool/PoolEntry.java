@@ -0,0 +1,164 @@
+package ru.otus.jdbc.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Физическое соединение пула и его состояние. Состояние меняется через CAS, поэтому выдать соединение
+ * дважды или закрыть выданное фоновой задачей нельзя.
+ */
+final class PoolEntry {
+    private static final Logger logger = LoggerFactory.getLogger(PoolEntry.class);
+
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+
+    private final PooledDataSource pool;
+    private final Connection connection;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+
+    private volatile long lastAccessNanos;
+    private volatile long borrowedAtNanos;
+    private volatile Throwable borrowStack;
+    private volatile boolean leakReported;
+
+    PoolEntry(PooledDataSource pool, Connection connection, long now) {
+        this.pool = pool;
+        this.connection = connection;
+        this.lastAccessNanos = now;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * IDLE -> IN_USE, false если соединение уже взял другой поток или его закрывает фоновая задача
+     */
+    boolean tryReserve() {
+        return state.compareAndSet(IDLE, IN_USE);
+    }
+
+    /**
+     * IDLE -> REMOVED для закрытия простаивающего соединения
+     */
+    boolean tryRemove() {
+        return state.compareAndSet(IDLE, REMOVED);
+    }
+
+    void markRemoved() {
+        state.set(REMOVED);
+    }
+
+    void markIdle(long now) {
+        lastAccessNanos = now;
+        state.set(IDLE);
+    }
+
+    boolean isInUse() {
+        return state.get() == IN_USE;
+    }
+
+    boolean isIdle() {
+        return state.get() == IDLE;
+    }
+
+    /**
+     * Обертка, которую получает пользователь. close() у нее возвращает соединение в пул.
+     *
+     * @param trackLeaks запомнить стек места получения для отчета об утечке
+     */
+    Connection borrow(long now, boolean trackLeaks) {
+        borrowedAtNanos = now;
+        borrowStack = trackLeaks ? new Exception("Connection borrowed here") : null;
+        leakReported = false;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandle());
+    }
+
+    /**
+     * @return true, если соединение выдано дольше threshold и об этом еще не сообщали
+     */
+    boolean checkLeak(long now, long thresholdNanos) {
+        if (isInUse() && !leakReported && now - borrowedAtNanos > thresholdNanos) {
+            leakReported = true;
+            return true;
+        }
+        return false;
+    }
+
+    Throwable getBorrowStack() {
+        return borrowStack;
+    }
+
+    void closeQuietly() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing connection: {}", e.getMessage());
+        }
+    }
+
+    private final class ConnectionHandle implements InvocationHandler {
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed.get() || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection{" + connection + ", closed=" + closed.get() + '}';
+                default:
+            }
+            if (closed.get()) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void close() {
+            // при двух одновременных close соединение возвращается в пул один раз
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            boolean broken = false;
+            try {
+                // незавершенная транзакция не должна достаться следующему пользователю
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+                pool.resetAutoCommit(connection);
+            } catch (SQLException e) {
+                logger.warn("Connection could not be reset: {}", e.getMessage());
+                broken = true;
+            }
+            pool.release(PoolEntry.this, broken);
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package ru.otus.jdbc.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Пул соединений вместо DriverManager.getConnection на каждую сессию.
+ * <p>
+ * Свободные соединения лежат в стеке на ConcurrentLinkedDeque, поэтому getConnection берет последнее
+ * вернувшееся соединение без блокировок. Число выданных соединений ограничивает семафор на maxPoolSize:
+ * пока разрешения есть, он тоже берется одним CAS. Если свободных соединений нет, а пул не заполнен,
+ * создается новое, иначе поток ждет возврата не дольше connectionTimeout и получает
+ * SQLTransientConnectionException.
+ * <p>
+ * Соединение проверяется через isValid только если оно простаивало дольше validationThreshold.
+ * Фоновая задача закрывает соединения, простаивающие дольше idleTimeout, сверх minIdle, досоздает соединения
+ * до minIdle и пишет в лог соединения, которые держат дольше leakDetectionThreshold, со стеком места получения.
+ * <p>
+ * close() у выданного соединения возвращает его в пул, незавершенная транзакция при этом откатывается.
+ * Статистика доступна в JMX как PooledDataSourceMBean.
+ */
+public class PooledDataSource implements DataSource, PooledDataSourceMBean, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PooledDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long NO_LEAK_DETECTION = 0;
+    private static final String MBEAN_NAME_PREFIX = "ru.otus.jdbc.pool:type=PooledDataSource,name=";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean autoCommit;
+    private final int minIdle;
+    private final int maxPoolSize;
+    private final long connectionTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long validationThresholdNanos;
+    private final long leakDetectionThresholdNanos;
+    private final String poolName;
+    private final boolean registerMbean;
+
+    private final Deque<PoolEntry> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PoolEntry> entries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final Semaphore permits;
+    // ждущие соединения, которое создается или проверяется, когда разрешение уже получено
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idleChanged = idleLock.newCondition();
+    private final AtomicInteger idleWaiters = new AtomicInteger();
+    private final BorrowLatencyHistogram borrowLatency = new BorrowLatencyHistogram();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    private PooledDataSource(Builder builder) {
+        this.url = builder.url;
+        this.username = builder.username;
+        this.password = builder.password;
+        this.autoCommit = builder.autoCommit;
+        this.minIdle = builder.minIdle;
+        this.maxPoolSize = builder.maxPoolSize;
+        this.connectionTimeoutNanos = builder.connectionTimeout.toNanos();
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+        this.validationThresholdNanos = builder.validationThreshold.toNanos();
+        this.leakDetectionThresholdNanos = builder.leakDetectionThreshold.toNanos();
+        this.poolName = builder.poolName;
+        this.registerMbean = builder.registerMbean;
+        this.permits = new Semaphore(maxPoolSize);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName(poolName + "-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = builder.housekeepingPeriod.toMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder newBuilder(String url) {
+        return new Builder(url);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool " + poolName + " is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw connectionTimeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        try {
+            PoolEntry entry = takeEntry(start + connectionTimeoutNanos);
+            long now = System.nanoTime();
+            borrowLatency.record(now - start);
+            return entry.borrow(now, leakDetectionThresholdNanos != NO_LEAK_DETECTION);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        PoolEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (entry.tryRemove()) {
+                discard(entry);
+            }
+        }
+        if (registerMbean) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MBEAN_NAME_PREFIX + poolName));
+            } catch (Exception e) {
+                logger.warn("Failed to unregister MBean of pool {}: {}", poolName, e.getMessage());
+            }
+        }
+        logger.info("Pool {} closed", poolName);
+    }
+
+    /**
+     * Выдается соединение, вернувшееся последним: оно скорее всего прошло проверку недавно
+     */
+    private PoolEntry takeEntry(long deadline) throws SQLException {
+        while (true) {
+            PoolEntry entry = idle.pollFirst();
+            if (entry != null) {
+                if (!entry.tryReserve()) {
+                    continue;
+                }
+                if (isAlive(entry)) {
+                    return entry;
+                }
+                discard(entry);
+                continue;
+            }
+            int total = totalConnections.get();
+            if (total < maxPoolSize) {
+                if (totalConnections.compareAndSet(total, total + 1)) {
+                    return createEntry();
+                }
+                continue;
+            }
+            // разрешение получено, значит соединение сейчас создает фоновая задача или проверяет другой поток:
+            // оно вот-вот появится в стеке или освободит место
+            awaitIdle(deadline);
+        }
+    }
+
+    /**
+     * Ждет, пока в стеке появится соединение или в пуле освободится место. Вернувшие соединение будят
+     * только при наличии ждущих, поэтому пока соединения есть, блокировка не берется
+     */
+    private void awaitIdle(long deadline) throws SQLException {
+        idleLock.lock();
+        idleWaiters.incrementAndGet();
+        try {
+            while (idle.isEmpty() && totalConnections.get() >= maxPoolSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw connectionTimeout();
+                }
+                idleChanged.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } finally {
+            idleWaiters.decrementAndGet();
+            idleLock.unlock();
+        }
+    }
+
+    private void signalIdleChanged() {
+        if (idleWaiters.get() > 0) {
+            idleLock.lock();
+            try {
+                idleChanged.signalAll();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+
+    private SQLTransientConnectionException connectionTimeout() {
+        timeoutCount.increment();
+        return new SQLTransientConnectionException(String.format(
+                "Pool %s: no connection available in %d ms, active: %d", poolName,
+                TimeUnit.NANOSECONDS.toMillis(connectionTimeoutNanos), getActiveConnections()));
+    }
+
+    /**
+     * Место в totalConnections уже занято вызывающим
+     */
+    private PoolEntry createEntry() throws SQLException {
+        try {
+            Connection connection = username == null
+                    ? DriverManager.getConnection(url)
+                    : DriverManager.getConnection(url, username, password);
+            connection.setAutoCommit(autoCommit);
+            PoolEntry entry = new PoolEntry(this, connection, System.nanoTime());
+            entries.add(entry);
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            signalIdleChanged();
+            throw e;
+        }
+    }
+
+    private boolean isAlive(PoolEntry entry) {
+        if (System.nanoTime() - entry.getLastAccessNanos() <= validationThresholdNanos) {
+            return true;
+        }
+        try {
+            return entry.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PoolEntry entry) {
+        entry.markRemoved();
+        if (entries.remove(entry)) {
+            totalConnections.decrementAndGet();
+            signalIdleChanged();
+        }
+        entry.closeQuietly();
+    }
+
+    void resetAutoCommit(Connection connection) throws SQLException {
+        if (connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    void release(PoolEntry entry, boolean broken) {
+        if (broken || closed) {
+            discard(entry);
+        } else {
+            entry.markIdle(System.nanoTime());
+            idle.offerFirst(entry);
+            signalIdleChanged();
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillMinIdle();
+            detectLeaks();
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        int idleCount = getIdleConnections();
+        // самые давно вернувшиеся соединения в конце стека
+        Iterator<PoolEntry> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && idleCount > minIdle) {
+            PoolEntry entry = iterator.next();
+            if (now - entry.getLastAccessNanos() > idleTimeoutNanos && entry.tryRemove()) {
+                idle.removeFirstOccurrence(entry);
+                discard(entry);
+                idleCount--;
+            }
+        }
+    }
+
+    private void fillMinIdle() {
+        while (!closed && getIdleConnections() < minIdle) {
+            int total = totalConnections.get();
+            if (total >= maxPoolSize) {
+                return;
+            }
+            if (!totalConnections.compareAndSet(total, total + 1)) {
+                continue;
+            }
+            try {
+                PoolEntry entry = createEntry();
+                entry.markIdle(System.nanoTime());
+                idle.offerLast(entry);
+                signalIdleChanged();
+            } catch (SQLException e) {
+                logger.warn("Pool {} failed to open a connection: {}", poolName, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakDetectionThresholdNanos == NO_LEAK_DETECTION) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (PoolEntry entry : entries) {
+            if (entry.checkLeak(now, leakDetectionThresholdNanos)) {
+                leakCount.increment();
+                logger.warn("Pool {}: connection has not been returned for more than {} ms, possible leak", poolName,
+                        TimeUnit.NANOSECONDS.toMillis(leakDetectionThresholdNanos), entry.getBorrowStack());
+            }
+        }
+    }
+
+    private void registerMbean() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(this, new ObjectName(MBEAN_NAME_PREFIX + poolName));
+        } catch (Exception e) {
+            logger.warn("Failed to register MBean of pool {}: {}", poolName, e.getMessage());
+        }
+    }
+
+    @Override
+    public int getActiveConnections() {
+        int active = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.isInUse()) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public int getIdleConnections() {
+        int idleCount = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.isIdle()) {
+                idleCount++;
+            }
+        }
+        return idleCount;
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowLatency.getCount();
+    }
+
+    @Override
+    public double getAverageBorrowMicros() {
+        return borrowLatency.getAverageMicros();
+    }
+
+    @Override
+    public Map<String, Long> getBorrowLatencyHistogram() {
+        return borrowLatency.snapshot();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    @Override
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public void resetStatistics() {
+        borrowLatency.reset();
+        timeoutCount.reset();
+        leakCount.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "PooledDataSource{" +
+                "poolName='" + poolName + '\'' +
+                ", total=" + getTotalConnections() +
+                ", active=" + getActiveConnections() +
+                ", idle=" + getIdleConnections() +
+                '}';
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    public static class Builder {
+
+        private final String url;
+        private String username;
+        private String password;
+        private boolean autoCommit = false;
+        private int minIdle = 0;
+        private int maxPoolSize = 10;
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration validationThreshold = Duration.ofMillis(500);
+        private Duration leakDetectionThreshold = Duration.ZERO;
+        private Duration housekeepingPeriod = Duration.ofSeconds(5);
+        private String poolName = "pool";
+        private boolean registerMbean = false;
+
+        private Builder(String url) {
+            this.url = Objects.requireNonNull(url);
+        }
+
+        public Builder setCredentials(String username, String password) {
+            this.username = Objects.requireNonNull(username);
+            this.password = password;
+            return this;
+        }
+
+        /**
+         * Режим autoCommit, в который соединение возвращается при каждом возврате в пул
+         */
+        public Builder setAutoCommit(boolean autoCommit) {
+            this.autoCommit = autoCommit;
+            return this;
+        }
+
+        /**
+         * Сколько свободных соединений фоновая задача держит наготове
+         */
+        public Builder setMinIdle(int minIdle) {
+            if (minIdle < 0) {
+                throw new IllegalArgumentException("Illegal min idle: " + minIdle);
+            }
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        public Builder setMaxPoolSize(int maxPoolSize) {
+            if (maxPoolSize <= 0) {
+                throw new IllegalArgumentException("Illegal max pool size: " + maxPoolSize);
+            }
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * Сколько getConnection ждет возврата соединения в заполненный пул
+         */
+        public Builder setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = checkDuration(connectionTimeout);
+            return this;
+        }
+
+        /**
+         * Через сколько простоя соединение сверх minIdle закрывается
+         */
+        public Builder setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = checkDuration(idleTimeout);
+            return this;
+        }
+
+        /**
+         * Соединение, простоявшее меньше этого времени, выдается без проверки isValid
+         */
+        public Builder setValidationThreshold(Duration validationThreshold) {
+            this.validationThreshold = checkDuration(validationThreshold);
+            return this;
+        }
+
+        /**
+         * Через сколько невозвращенное соединение считается утечкой, Duration.ZERO выключает проверку
+         */
+        public Builder setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+            this.leakDetectionThreshold = checkDuration(leakDetectionThreshold);
+            return this;
+        }
+
+        public Builder setHousekeepingPeriod(Duration housekeepingPeriod) {
+            if (checkDuration(housekeepingPeriod).isZero()) {
+                throw new IllegalArgumentException("Illegal housekeeping period: " + housekeepingPeriod);
+            }
+            this.housekeepingPeriod = housekeepingPeriod;
+            return this;
+        }
+
+        public Builder setPoolName(String poolName) {
+            this.poolName = Objects.requireNonNull(poolName);
+            return this;
+        }
+
+        /**
+         * Зарегистрировать статистику пула в JMX под именем пула
+         */
+        public Builder setRegisterMbean(boolean registerMbean) {
+            this.registerMbean = registerMbean;
+            return this;
+        }
+
+        public PooledDataSource build() {
+            if (minIdle > maxPoolSize) {
+                throw new IllegalArgumentException("Min idle " + minIdle + " is greater than max pool size " + maxPoolSize);
+            }
+            PooledDataSource dataSource = new PooledDataSource(this);
+            if (registerMbean) {
+                dataSource.registerMbean();
+            }
+            return dataSource;
+        }
+
+        private static Duration checkDuration(Duration duration) {
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+            return duration;
+        }
+    }
+}
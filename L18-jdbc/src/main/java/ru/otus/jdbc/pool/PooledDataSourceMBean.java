@@ -0,0 +1,27 @@
+package ru.otus.jdbc.pool;
+
+import java.util.Map;
+
+public interface PooledDataSourceMBean {
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getTotalConnections();
+
+    int getThreadsAwaitingConnection();
+
+    long getBorrowCount();
+
+    double getAverageBorrowMicros();
+
+    Map<String, Long> getBorrowLatencyHistogram();
+
+    long getTimeoutCount();
+
+    long getLeakCount();
+
+    void resetStatistics();
+
+}
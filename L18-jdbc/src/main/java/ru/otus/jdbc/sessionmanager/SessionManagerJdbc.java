@@ -9,7 +9,6 @@ import javax.sql.DataSource;
 
 public class SessionManagerJdbc implements SessionManager {
 
-    private static final int TIMEOUT_IN_SECONDS = 5;
     private final DataSource dataSource;
     private Connection connection;
     private DatabaseSessionJdbc databaseSession;
@@ -67,9 +66,12 @@ public class SessionManagerJdbc implements SessionManager {
         return databaseSession;
     }
 
+    /**
+     * Живость соединения проверяет пул при выдаче, isValid на каждый вызов — лишний запрос к базе
+     */
     private void checkConnection() {
         try {
-            if (connection == null || !connection.isValid(TIMEOUT_IN_SECONDS)) {
+            if (connection == null || connection.isClosed()) {
                 throw new SessionManagerException("Connection is invalid");
             }
         } catch (SQLException ex) {
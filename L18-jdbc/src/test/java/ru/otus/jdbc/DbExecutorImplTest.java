@@ -0,0 +1,163 @@
+package ru.otus.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbExecutorImplTest {
+
+    private static final String URL = "jdbc:h2:mem:executor";
+    private static final String INSERT_SQL = "insert into client(name) values (?)";
+    private static final String SELECT_SQL = "select name from client where id = ?";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL);
+        connection.setAutoCommit(false);
+        try (var pst = connection.prepareStatement(
+                "create table client(id bigint auto_increment primary key, name varchar(50) not null)")) {
+            pst.executeUpdate();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("Пакетная вставка возвращает ключи в порядке строк")
+    void batchInsertReturnsKeysInOrder() throws SQLException {
+
+        DbExecutor<String> executor = new DbExecutorImpl<>(7);
+        List<List<Object>> rows = IntStream.range(0, 20)
+                .mapToObj(idx -> List.<Object>of("name" + idx))
+                .collect(Collectors.toList());
+
+        List<Long> ids = executor.executeBatchInsert(connection, INSERT_SQL, rows);
+
+        assertThat(ids).hasSize(20).isSorted().doesNotHaveDuplicates();
+        for (int idx = 0; idx < ids.size(); idx++) {
+            assertThat(executor.executeSelect(connection, SELECT_SQL, ids.get(idx), this::readName))
+                    .contains("name" + idx);
+        }
+    }
+
+    @Test
+    @DisplayName("При ошибке пакетной вставки откатываются все ее строки")
+    void batchInsertRollsBackOnError() throws SQLException {
+
+        DbExecutor<String> executor = new DbExecutorImpl<>(2);
+        long id = executor.executeInsert(connection, INSERT_SQL, List.of("before"));
+        List<List<Object>> rows = List.of(List.of("first"), List.of("second"), Collections.singletonList(null));
+
+        assertThatThrownBy(() -> executor.executeBatchInsert(connection, INSERT_SQL, rows))
+                .isInstanceOf(SQLException.class);
+
+        try (var pst = connection.prepareStatement("select count(*) from client");
+             var rs = pst.executeQuery()) {
+            rs.next();
+            assertThat(rs.getInt(1)).isEqualTo(1);
+        }
+        assertThat(executor.executeSelect(connection, SELECT_SQL, id, this::readName)).contains("before");
+    }
+
+    @Test
+    @DisplayName("Подготовленный запрос переиспользуется для соединения")
+    void statementIsCached() throws SQLException {
+
+        StatementCache cache = new StatementCache(1);
+
+        var first = cache.prepare(connection, SELECT_SQL, false);
+        var second = cache.prepare(connection, SELECT_SQL, false);
+        var other = cache.prepare(connection, INSERT_SQL, true);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.isClosed()).isTrue();
+        assertThat(other.isClosed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Запрос с возвратом ключей кэшируется отдельно от запроса без них")
+    void statementIsCachedByGeneratedKeysFlag() throws SQLException {
+
+        StatementCache cache = new StatementCache(2);
+
+        var withKeys = cache.prepare(connection, INSERT_SQL, true);
+        var withoutKeys = cache.prepare(connection, INSERT_SQL, false);
+
+        assertThat(withoutKeys).isNotSameAs(withKeys);
+        assertThat(cache.prepare(connection, INSERT_SQL, true)).isSameAs(withKeys);
+        assertThat(cache.prepare(connection, INSERT_SQL, false)).isSameAs(withoutKeys);
+    }
+
+    @Test
+    @DisplayName("Поток читает строки по мере запроса и закрывает запрос при закрытии")
+    void queryStreamIsLazy() throws SQLException {
+
+        DbExecutor<String> executor = new DbExecutorImpl<>();
+        executor.executeBatchInsert(connection, INSERT_SQL, names(10));
+
+        List<String> firstNames;
+        try (Stream<String> names = executor.executeQueryStream(connection,
+                "select name from client where id > ? order by id", List.of(0), 4, this::currentName)) {
+            firstNames = names.limit(3).collect(Collectors.toList());
+        }
+
+        assertThat(firstNames).containsExactly("name0", "name1", "name2");
+    }
+
+    @Test
+    @DisplayName("Строки передаются пачками не больше заданного размера")
+    void forEachBatchSplitsRows() throws SQLException {
+
+        DbExecutor<String> executor = new DbExecutorImpl<>();
+        executor.executeBatchInsert(connection, INSERT_SQL, names(10));
+        List<List<String>> batches = new ArrayList<>();
+
+        executor.forEachBatch(connection, "select name from client order by id", List.of(), 4,
+                this::currentName, batches::add);
+
+        assertThat(batches).extracting(List::size).containsExactly(4, 4, 2);
+        assertThat(batches.get(2)).containsExactly("name8", "name9");
+    }
+
+    private List<List<Object>> names(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(idx -> List.<Object>of("name" + idx))
+                .collect(Collectors.toList());
+    }
+
+    private String currentName(ResultSet rs) {
+        try {
+            return rs.getString("name");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String readName(ResultSet rs) {
+        try {
+            return rs.next() ? rs.getString("name") : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.otus.jdbc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Вставка rows строк в H2 в памяти: по одной через executeInsert и пачками через executeBatchInsert.
+ * Время операции — вставка всех строк и commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JMHBatchInsert {
+
+    private static final String URL = "jdbc:h2:mem:batch";
+    private static final String INSERT_SQL = "insert into client(name) values (?)";
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private final DbExecutor<Object> dbExecutor = new DbExecutorImpl<>();
+    private Connection connection;
+    private List<List<Object>> data;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHBatchInsert.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(URL);
+        connection.setAutoCommit(false);
+        try (var pst = connection.prepareStatement(
+                "create table client(id bigint auto_increment primary key, name varchar(50))")) {
+            pst.executeUpdate();
+        }
+        data = IntStream.range(0, rows)
+                .mapToObj(idx -> List.<Object>of("name" + idx))
+                .collect(Collectors.toList());
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (var pst = connection.prepareStatement("truncate table client")) {
+            pst.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long single() throws SQLException {
+        long lastId = 0;
+        for (List<Object> params : data) {
+            lastId = dbExecutor.executeInsert(connection, INSERT_SQL, params);
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public List<Long> batched() throws SQLException {
+        List<Long> ids = dbExecutor.executeBatchInsert(connection, INSERT_SQL, data);
+        connection.commit();
+        return ids;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.otus.jdbc.mapper;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.core.model.User;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Разбор rows пользователей в параметры insert и чтение их из ResultSet тремя способами:
+ * сгенерированный {@link EntityAccessor}, method handle на каждое поле и Field.get/Constructor.newInstance.
+ * ResultSet - {@link SimpleResultSet} в памяти, чтобы мерить маппинг, а не базу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JMHUserMapping {
+
+    @Param({"1000"})
+    private int rows;
+
+    private int columnCount;
+    private List<User> users;
+    private SimpleResultSet resultSet;
+
+    private EntityAccessor<User> generated;
+
+    private List<MethodHandle> handleGetters;
+    private MethodHandle handleConstructor;
+
+    private List<Field> reflectionFields;
+    private Constructor<User> reflectionConstructor;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHUserMapping.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        users = new ArrayList<>(rows);
+        resultSet = new SimpleResultSet();
+        resultSet.addColumn("id", Types.BIGINT, 19, 0);
+        resultSet.addColumn("name", Types.VARCHAR, 50, 0);
+        for (int idx = 0; idx < rows; idx++) {
+            users.add(new User(idx, "name" + idx));
+            resultSet.addRow((long) idx, "name" + idx);
+        }
+
+        EntityClassMetaData<User> metaData = new EntityClassMetaDataImpl<>(User.class);
+        columnCount = metaData.getAllFields().size();
+        generated = EntityAccessor.generate(User.class, metaData);
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(User.class, MethodHandles.lookup());
+        handleGetters = new ArrayList<>();
+        for (Field field : metaData.getFieldsWithoutId()) {
+            handleGetters.add(lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class)));
+        }
+        handleConstructor = lookup.unreflectConstructor(metaData.getConstructor())
+                .asSpreader(Object[].class, metaData.getAllFields().size())
+                .asType(methodType(Object.class, Object[].class));
+
+        reflectionFields = metaData.getFieldsWithoutId();
+        reflectionFields.forEach(field -> field.setAccessible(true));
+        reflectionConstructor = metaData.getConstructor();
+    }
+
+    @Benchmark
+    public void bindGenerated(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(generated.insertParams(user));
+        }
+    }
+
+    @Benchmark
+    public void bindMethodHandle(Blackhole blackhole) throws Throwable {
+        for (User user : users) {
+            List<Object> params = new ArrayList<>(handleGetters.size());
+            for (MethodHandle getter : handleGetters) {
+                params.add((Object) getter.invokeExact((Object) user));
+            }
+            blackhole.consume(params);
+        }
+    }
+
+    @Benchmark
+    public void bindReflection(Blackhole blackhole) throws IllegalAccessException {
+        for (User user : users) {
+            List<Object> params = new ArrayList<>(reflectionFields.size());
+            for (Field field : reflectionFields) {
+                params.add(field.get(user));
+            }
+            blackhole.consume(params);
+        }
+    }
+
+    @Benchmark
+    public void readGenerated(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(generated.read(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void readMethodHandle(Blackhole blackhole) throws Throwable {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume((Object) handleConstructor.invokeExact(columns(resultSet)));
+        }
+    }
+
+    @Benchmark
+    public void readReflection(Blackhole blackhole) throws SQLException, ReflectiveOperationException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(reflectionConstructor.newInstance(columns(resultSet)));
+        }
+    }
+
+    private Object[] columns(ResultSet rs) throws SQLException {
+        Object[] values = new Object[columnCount];
+        for (int idx = 0; idx < columnCount; idx++) {
+            values[idx] = rs.getObject(idx + 1);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,178 @@
+package ru.otus.jdbc.mapper;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.jdbc.DbExecutorImpl;
+import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcMapperImplTest {
+
+    private static final String URL = "jdbc:h2:mem:mapper";
+
+    private SessionManagerJdbc sessionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(URL);
+        sessionManager = new SessionManagerJdbc(dataSource);
+        // база в памяти живет, пока открыто соединение сессии
+        sessionManager.beginSession();
+        try (var statement = sessionManager.getCurrentSession().getConnection().createStatement()) {
+            statement.executeUpdate("create table constructorentity(id bigint auto_increment primary key, "
+                    + "name varchar(50), quantity int, score double, active boolean)");
+            statement.executeUpdate("create table setterentity(id bigint auto_increment primary key, "
+                    + "name varchar(50), quantity int, score double, rank int)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.close();
+    }
+
+    @Test
+    @DisplayName("Объект с конструктором по всем полям читается через конструктор, null у оберток сохраняется")
+    void constructorPath() {
+        JdbcMapper<ConstructorEntity> mapper = mapper(ConstructorEntity.class);
+
+        long filledId = mapper.insert(new ConstructorEntity(0, "filled", 7, 1.5, true));
+        long emptyId = mapper.insert(new ConstructorEntity(0, null, null, null, null));
+
+        ConstructorEntity filled = mapper.findById(filledId, ConstructorEntity.class);
+        assertThat(filled.constructed).isTrue();
+        assertThat(filled.id).isEqualTo(filledId);
+        assertThat(filled.name).isEqualTo("filled");
+        assertThat(filled.quantity).isEqualTo(7);
+        assertThat(filled.score).isEqualTo(1.5);
+        assertThat(filled.active).isTrue();
+
+        ConstructorEntity empty = mapper.findById(emptyId, ConstructorEntity.class);
+        assertThat(empty.constructed).isTrue();
+        assertThat(empty.name).isNull();
+        assertThat(empty.quantity).isNull();
+        assertThat(empty.score).isNull();
+        assertThat(empty.active).isNull();
+    }
+
+    @Test
+    @DisplayName("Объект без конструктора по всем полям создается пустым и заполняется сеттерами")
+    void setterPath() {
+        JdbcMapper<SetterEntity> mapper = mapper(SetterEntity.class);
+        SetterEntity entity = new SetterEntity();
+        entity.name = "setter";
+        entity.quantity = null;
+        entity.score = 2.5;
+        entity.rank = 3;
+
+        long id = mapper.insert(entity);
+
+        SetterEntity read = mapper.findById(id, SetterEntity.class);
+        assertThat(read.id).isEqualTo(id);
+        assertThat(read.name).isEqualTo("setter");
+        assertThat(read.quantity).isNull();
+        assertThat(read.score).isEqualTo(2.5);
+        assertThat(read.rank).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("insertAll возвращает ключи в порядке объектов, insertOrUpdate обновляет сохраненный объект")
+    void insertAllKeysOrderAndUpdate() {
+        JdbcMapper<SetterEntity> mapper = mapper(SetterEntity.class);
+        List<SetterEntity> entities = IntStream.range(0, 25)
+                .mapToObj(idx -> {
+                    SetterEntity entity = new SetterEntity();
+                    entity.name = "name" + idx;
+                    entity.rank = idx;
+                    return entity;
+                })
+                .collect(Collectors.toList());
+
+        List<Long> ids = mapper.insertAll(entities);
+
+        assertThat(ids).hasSize(entities.size()).doesNotHaveDuplicates();
+        for (int idx = 0; idx < ids.size(); idx++) {
+            SetterEntity read = mapper.findById(ids.get(idx), SetterEntity.class);
+            assertThat(read.name).isEqualTo("name" + idx);
+            assertThat(read.rank).isEqualTo(idx);
+        }
+
+        SetterEntity changed = mapper.findById(ids.get(0), SetterEntity.class);
+        changed.name = "changed";
+        mapper.insertOrUpdate(changed);
+        assertThat(mapper.findById(ids.get(0), SetterEntity.class).name).isEqualTo("changed");
+    }
+
+    @Test
+    @DisplayName("findAll читает всю таблицу пачками не больше заданного размера")
+    void findAllReadsInBatches() {
+        JdbcMapper<SetterEntity> mapper = mapper(SetterEntity.class);
+        List<SetterEntity> entities = IntStream.range(0, 10)
+                .mapToObj(idx -> {
+                    SetterEntity entity = new SetterEntity();
+                    entity.name = "name" + idx;
+                    entity.rank = idx;
+                    return entity;
+                })
+                .collect(Collectors.toList());
+        mapper.insertAll(entities);
+        List<List<SetterEntity>> batches = new ArrayList<>();
+
+        mapper.findAll(4, batches::add);
+
+        assertThat(batches).extracting(List::size).containsExactly(4, 4, 2);
+        assertThat(batches.stream().flatMap(List::stream).map(entity -> entity.name))
+                .containsExactlyInAnyOrder(entities.stream().map(entity -> entity.name).toArray(String[]::new));
+    }
+
+    private <T> JdbcMapper<T> mapper(Class<T> clazz) {
+        return new JdbcMapperImpl<>(sessionManager, new DbExecutorImpl<>(10), clazz);
+    }
+
+    static final class ConstructorEntity {
+        @Id
+        private final long id;
+        private final String name;
+        private final Integer quantity;
+        private final Double score;
+        private final Boolean active;
+        private final transient boolean constructed;
+
+        ConstructorEntity(long id, String name, Integer quantity, Double score, Boolean active) {
+            this.id = id;
+            this.name = name;
+            this.quantity = quantity;
+            this.score = score;
+            this.active = active;
+            this.constructed = true;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    static final class SetterEntity {
+        @Id
+        private long id;
+        private String name;
+        private Integer quantity;
+        private Double score;
+        private int rank;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.otus.jdbc.pool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.h2.DataSourceH2;
+import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сессия SessionManagerJdbc (begin, select 1, commit, close) с соединением из пула
+ * и с новым соединением от DriverManager на каждую сессию, как в DataSourceH2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class JMHConnectionPool {
+
+    // тот же адрес, что у DataSourceH2
+    private static final String URL = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1";
+
+    private PooledDataSource pooledDataSource;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHConnectionPool.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pooledDataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(8).setMinIdle(4).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pooledDataSource.close();
+    }
+
+    @Benchmark
+    public int pooled() throws SQLException {
+        return session(new SessionManagerJdbc(pooledDataSource));
+    }
+
+    @Benchmark
+    public int driverManager() throws SQLException {
+        return session(new SessionManagerJdbc(new DataSourceH2()));
+    }
+
+    private static int session(SessionManagerJdbc sessionManager) throws SQLException {
+        sessionManager.beginSession();
+        try (var pst = sessionManager.getCurrentSession().getConnection().prepareStatement("select 1");
+             var rs = pst.executeQuery()) {
+            rs.next();
+            sessionManager.commitSession();
+            return rs.getInt(1);
+        } finally {
+            sessionManager.close();
+        }
+    }
+}
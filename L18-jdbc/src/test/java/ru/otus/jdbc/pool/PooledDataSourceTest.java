@@ -0,0 +1,161 @@
+package ru.otus.jdbc.pool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.jdbc.sessionmanager.SessionManagerJdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledDataSourceTest {
+
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+
+    @Test
+    @DisplayName("Закрытое соединение возвращается в пул и выдается снова")
+    void connectionIsReused() throws Exception {
+
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(2).build()) {
+            Connection first = dataSource.getConnection();
+            first.close();
+            Connection second = dataSource.getConnection();
+
+            assertThat(first.isClosed()).isTrue();
+            assertThat(second.isClosed()).isFalse();
+            assertThat(second.getAutoCommit()).isFalse();
+            assertThat(dataSource.getTotalConnections()).isEqualTo(1);
+            assertThat(dataSource.getActiveConnections()).isEqualTo(1);
+            assertThatThrownBy(first::commit).isInstanceOf(SQLException.class);
+            second.close();
+        }
+
+    }
+
+    @Test
+    @DisplayName("Из заполненного пула соединение выдается только после возврата, иначе по таймауту ошибка")
+    void borrowTimeout() throws Exception {
+
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL)
+                .setMaxPoolSize(1)
+                .setConnectionTimeout(Duration.ofMillis(100))
+                .build()) {
+            Connection connection = dataSource.getConnection();
+
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(dataSource.getTimeoutCount()).isEqualTo(1);
+
+            connection.close();
+            dataSource.getConnection().close();
+        }
+
+    }
+
+    @Test
+    @DisplayName("Незавершенная транзакция откатывается при возврате соединения")
+    void rollbackOnReturn() throws Exception {
+
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(1).build()) {
+            try (Connection connection = dataSource.getConnection();
+                 var pst = connection.prepareStatement("create table if not exists pool_test(id int)")) {
+                pst.executeUpdate();
+                connection.commit();
+            }
+            try (Connection connection = dataSource.getConnection();
+                 var pst = connection.prepareStatement("insert into pool_test(id) values (1)")) {
+                pst.executeUpdate();
+            }
+            try (Connection connection = dataSource.getConnection();
+                 var pst = connection.prepareStatement("select count(*) from pool_test");
+                 var rs = pst.executeQuery()) {
+                rs.next();
+                assertThat(rs.getInt(1)).isZero();
+            }
+        }
+
+    }
+
+    @Test
+    @DisplayName("Фоновая задача держит minIdle свободных соединений и находит утечки")
+    void minIdleAndLeakDetection() throws Exception {
+
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL)
+                .setMaxPoolSize(4)
+                .setMinIdle(2)
+                .setLeakDetectionThreshold(Duration.ofMillis(50))
+                .setHousekeepingPeriod(Duration.ofMillis(20))
+                .build()) {
+            Connection leaked = dataSource.getConnection();
+            TimeUnit.MILLISECONDS.sleep(300);
+
+            assertThat(dataSource.getIdleConnections()).isEqualTo(2);
+            assertThat(dataSource.getLeakCount()).isEqualTo(1);
+            leaked.close();
+        }
+
+    }
+
+    @Test
+    @DisplayName("Под нагрузкой выдается не больше maxPoolSize соединений")
+    void concurrentBorrow() throws Exception {
+
+        int threads = 8;
+        int maxPoolSize = 3;
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(maxPoolSize).build()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int idx = 0; idx < 1000; idx++) {
+                        try (Connection ignored = dataSource.getConnection()) {
+                            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                            active.decrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertThat(maxActive.get()).isLessThanOrEqualTo(maxPoolSize);
+            assertThat(dataSource.getTotalConnections()).isLessThanOrEqualTo(maxPoolSize);
+            assertThat(dataSource.getBorrowCount()).isEqualTo(threads * 1000L);
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    @DisplayName("SessionManagerJdbc возвращает соединение в пул при закрытии сессии")
+    void sessionManagerReturnsConnection() throws Exception {
+
+        try (PooledDataSource dataSource = PooledDataSource.newBuilder(URL).setMaxPoolSize(1).build()) {
+            SessionManagerJdbc sessionManager = new SessionManagerJdbc(dataSource);
+            for (int idx = 0; idx < 3; idx++) {
+                sessionManager.beginSession();
+                sessionManager.commitSession();
+                sessionManager.close();
+            }
+
+            assertThat(dataSource.getTotalConnections()).isEqualTo(1);
+            assertThat(dataSource.getActiveConnections()).isZero();
+        }
+
+    }
+}
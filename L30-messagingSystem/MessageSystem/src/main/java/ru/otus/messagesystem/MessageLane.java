@@ -0,0 +1,154 @@
+package ru.otus.messagesystem;
+
+import ru.otus.messagesystem.message.Message;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A bounded queue of messages with its overflow policy and counters.
+ * Not thread safe, all the lanes are guarded by the message system lock.
+ */
+final class MessageLane implements AutoCloseable {
+    private final MessageLaneConfig config;
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    private final SpillFile spillFile;
+
+    // smooth weighted round robin state
+    int currentWeight;
+    private boolean overloaded;
+
+    private long accepted;
+    private long dispatched;
+    private long rejected;
+    private long dropped;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    MessageLane(MessageLaneConfig config) {
+        this.config = config;
+        this.spillFile = config.getOverflowPolicy() == OverflowPolicy.SPILL_TO_DISK
+                ? new SpillFile(config.getSpillDirectory(), config.getName()) : null;
+    }
+
+    String getName() {
+        return config.getName();
+    }
+
+    int getWeight() {
+        return config.getWeight();
+    }
+
+    /**
+     * true if a new message is queued in memory without the overflow policy
+     */
+    boolean hasRoom() {
+        return queue.size() < config.getCapacity() && (spillFile == null || spillFile.isEmpty());
+    }
+
+    /**
+     * Queues the message, applying the overflow policy if there is no room
+     *
+     * @return false if the message was rejected
+     */
+    boolean offer(Message message, long now) {
+        Entry entry = new Entry(message, now);
+        if (hasRoom()) {
+            queue.add(entry);
+        } else {
+            switch (config.getOverflowPolicy()) {
+                case DROP_OLDEST:
+                    queue.poll();
+                    dropped++;
+                    queue.add(entry);
+                    break;
+                case SPILL_TO_DISK:
+                    // once something is spilled, newer messages follow it to keep the order
+                    spillFile.append(entry);
+                    break;
+                default:
+                    rejected++;
+                    return false;
+            }
+        }
+        accepted++;
+        return true;
+    }
+
+    Message poll(long now) {
+        Entry entry = queue.poll();
+        if (entry == null) {
+            return null;
+        }
+        if (spillFile != null) {
+            while (queue.size() < config.getCapacity() && !spillFile.isEmpty()) {
+                queue.add(spillFile.poll());
+            }
+        }
+        long latency = now - entry.getAcceptedAt();
+        dispatched++;
+        totalLatencyNanos += latency;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        return entry.getMessage();
+    }
+
+    int depth() {
+        return queue.size() + spilled();
+    }
+
+    /**
+     * Tracks the watermarks
+     *
+     * @return true if the lane has just become overloaded or has just recovered
+     */
+    boolean updateOverloaded() {
+        int depth = depth();
+        if (!overloaded && depth >= config.getHighWatermark()) {
+            overloaded = true;
+            return true;
+        }
+        if (overloaded && depth <= config.getLowWatermark()) {
+            overloaded = false;
+            return true;
+        }
+        return false;
+    }
+
+    boolean isOverloaded() {
+        return overloaded;
+    }
+
+    MessageLaneStats stats() {
+        return new MessageLaneStats(config.getName(), depth(), spilled(), accepted, dispatched, rejected, dropped,
+                totalLatencyNanos, maxLatencyNanos);
+    }
+
+    @Override
+    public void close() {
+        if (spillFile != null) {
+            spillFile.close();
+        }
+    }
+
+    private int spilled() {
+        return spillFile == null ? 0 : spillFile.size();
+    }
+
+    static final class Entry {
+        private final Message message;
+        private final long acceptedAt;
+
+        Entry(Message message, long acceptedAt) {
+            this.message = message;
+            this.acceptedAt = acceptedAt;
+        }
+
+        Message getMessage() {
+            return message;
+        }
+
+        long getAcceptedAt() {
+            return acceptedAt;
+        }
+    }
+}
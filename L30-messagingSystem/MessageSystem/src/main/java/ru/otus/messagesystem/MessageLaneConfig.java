@@ -0,0 +1,133 @@
+package ru.otus.messagesystem;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+public class MessageLaneConfig {
+    private final String name;
+    private final int capacity;
+    private final int weight;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillDirectory;
+    private final int highWatermark;
+    private final int lowWatermark;
+
+    private MessageLaneConfig(Builder builder) {
+        this.name = builder.name;
+        this.capacity = builder.capacity;
+        this.weight = builder.weight;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.spillDirectory = builder.spillDirectory;
+        this.highWatermark = builder.highWatermark > 0 ? builder.highWatermark : Math.max(1, (int) ((long) capacity * 4 / 5));
+        this.lowWatermark = builder.lowWatermark >= 0 ? builder.lowWatermark : capacity / 2;
+    }
+
+    public static Builder newBuilder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageLaneConfig{" +
+                "name='" + name + '\'' +
+                ", capacity=" + capacity +
+                ", weight=" + weight +
+                ", overflowPolicy=" + overflowPolicy +
+                '}';
+    }
+
+    public static class Builder {
+        private final String name;
+        private int capacity = 100_000;
+        private int weight = 1;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+        private Path spillDirectory;
+        private int highWatermark;
+        private int lowWatermark = -1;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public Builder setCapacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Illegal capacity: " + capacity);
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * The share of dispatches the lane gets while other lanes also have messages
+         */
+        public Builder setWeight(int weight) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Illegal weight: " + weight);
+            }
+            this.weight = weight;
+            return this;
+        }
+
+        public Builder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+            return this;
+        }
+
+        /**
+         * The directory for the spill file, required by {@link OverflowPolicy#SPILL_TO_DISK}
+         */
+        public Builder setSpillDirectory(Path spillDirectory) {
+            this.spillDirectory = Objects.requireNonNull(spillDirectory);
+            return this;
+        }
+
+        /**
+         * Clients are told about backpressure when the lane depth reaches high
+         * and told it is over when the depth falls to low.
+         * By default these are 80% and 50% of the capacity.
+         */
+        public Builder setWatermarks(int high, int low) {
+            if (high <= 0 || low < 0 || low >= high) {
+                throw new IllegalArgumentException("Illegal watermarks: " + high + ", " + low);
+            }
+            this.highWatermark = high;
+            this.lowWatermark = low;
+            return this;
+        }
+
+        public MessageLaneConfig build() {
+            if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK && spillDirectory == null) {
+                throw new IllegalStateException("Spill directory is required for lane: " + name);
+            }
+            return new MessageLaneConfig(this);
+        }
+    }
+}
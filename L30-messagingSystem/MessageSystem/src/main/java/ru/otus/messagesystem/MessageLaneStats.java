@@ -0,0 +1,86 @@
+package ru.otus.messagesystem;
+
+/**
+ * Snapshot of a lane counters.
+ */
+public class MessageLaneStats {
+    private final String name;
+    private final int depth;
+    private final int spilled;
+    private final long accepted;
+    private final long dispatched;
+    private final long rejected;
+    private final long dropped;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+
+    MessageLaneStats(String name, int depth, int spilled, long accepted, long dispatched, long rejected,
+                     long dropped, long totalLatencyNanos, long maxLatencyNanos) {
+        this.name = name;
+        this.depth = depth;
+        this.spilled = spilled;
+        this.accepted = accepted;
+        this.dispatched = dispatched;
+        this.rejected = rejected;
+        this.dropped = dropped;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Messages waiting in the lane, including the spilled ones
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSpilled() {
+        return spilled;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Average time from accepting a message to dispatching it
+     */
+    public long getAverageLatencyNanos() {
+        return dispatched == 0 ? 0 : totalLatencyNanos / dispatched;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageLaneStats{" +
+                "name='" + name + '\'' +
+                ", depth=" + depth +
+                ", spilled=" + spilled +
+                ", accepted=" + accepted +
+                ", dispatched=" + dispatched +
+                ", rejected=" + rejected +
+                ", dropped=" + dropped +
+                ", averageLatencyNanos=" + getAverageLatencyNanos() +
+                ", maxLatencyNanos=" + maxLatencyNanos +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package ru.otus.messagesystem;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.message.Message;
+
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single thread handling messages for its share of the clients.
+ * All messages to one client go through one shard, so the client gets them in the dispatch order
+ * and never concurrently.
+ */
+final class MessageShard implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(MessageShard.class);
+
+    private final String name;
+    private final Map<String, MsClient> clientMap;
+    private final MpscRingBuffer<Message> ring;
+
+    private Thread thread;
+    private volatile boolean waiting;
+    private volatile boolean stopped;
+
+    MessageShard(String name, Map<String, MsClient> clientMap, int ringCapacity) {
+        this.name = name;
+        this.clientMap = clientMap;
+        this.ring = new MpscRingBuffer<>(ringCapacity);
+    }
+
+    void start() {
+        thread = new Thread(this);
+        thread.setName(name);
+        thread.start();
+    }
+
+    /**
+     * @return false if the ring is full
+     */
+    boolean offer(Message msg) {
+        if (!ring.offer(msg)) {
+            return false;
+        }
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    int size() {
+        return ring.size();
+    }
+
+    /**
+     * The shard handles everything already offered and finishes
+     */
+    void stop() {
+        stopped = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    void join() throws InterruptedException {
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        logger.info("{} started", name);
+        while (true) {
+            Message msg = ring.poll();
+            if (msg != null) {
+                handleMessage(msg);
+                continue;
+            }
+            if (stopped) {
+                if (ring.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+            // Dekker style handshake: offer() publishes with a volatile write and then reads the flag,
+            // here the flag is written before the ring is checked. Volatile accesses are totally ordered,
+            // so either offer() sees the flag and unparks us or we see its message here
+            waiting = true;
+            if (ring.isEmpty() && !stopped) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+        logger.info("{} finished", name);
+    }
+
+    private void handleMessage(Message msg) {
+        MsClient clientTo = msg.getTo() == null ? null : clientMap.get(msg.getTo());
+        if (clientTo == null) {
+            logger.warn("client not found");
+            return;
+        }
+        try {
+            clientTo.handle(msg);
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            logger.error("message:{}", msg);
+        }
+    }
+}
@@ -3,14 +3,25 @@ package ru.otus.messagesystem;
 import ru.otus.messagesystem.client.MsClient;
 import ru.otus.messagesystem.message.Message;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 public interface MessageSystem {
 
     void addClient(MsClient msClient);
 
     void removeClient(String clientId);
 
+    /**
+     * Queues the message without waiting, a full lane applies its overflow policy
+     */
     boolean newMessage(Message msg);
 
+    /**
+     * Waits up to the timeout for room in the lane, then applies the overflow policy
+     */
+    boolean newMessage(Message msg, long timeout, TimeUnit unit) throws InterruptedException;
+
     void dispose() throws InterruptedException;
 
     void dispose(Runnable callback) throws InterruptedException;
@@ -18,5 +29,6 @@ public interface MessageSystem {
     void start();
 
     int currentQueueSize();
-}
 
+    List<MessageLaneStats> laneStats();
+}
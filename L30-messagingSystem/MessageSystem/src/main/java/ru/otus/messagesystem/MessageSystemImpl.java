@@ -4,30 +4,51 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.otus.messagesystem.client.MsClient;
 import ru.otus.messagesystem.message.Message;
-import ru.otus.messagesystem.message.MessageBuilder;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+/**
+ * Messages are queued into lanes, the lane is chosen by laneSelector (the message type by default),
+ * unknown lane names go to the first lane. Each lane is bounded and has its own overflow policy.
+ * The processor takes messages from non-empty lanes by smooth weighted round robin,
+ * so a lane with weight 3 gets three dispatches for every one of a lane with weight 1.
+ * <p>
+ * When a lane depth crosses its watermarks all the clients are told about the backpressure.
+ * <p>
+ * The processor only routes: every client name is hashed to one of the shards, each shard is a single thread
+ * with its own ring buffer. A client gets its messages in the dispatch order and one at a time,
+ * while different clients are handled in parallel. A full ring stops the processor, so the lanes fill up
+ * and their overflow policies apply.
+ */
 public final class MessageSystemImpl implements MessageSystem {
     private static final Logger logger = LoggerFactory.getLogger(MessageSystemImpl.class);
     private static final int MESSAGE_QUEUE_SIZE = 100_000;
-    private static final int MSG_HANDLER_THREAD_LIMIT = 2;
+    private static final int SHARD_RING_CAPACITY = 1024;
+    private static final long RING_FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final String DEFAULT_LANE_NAME = "default";
 
     private final AtomicBoolean runFlag = new AtomicBoolean(true);
 
     private final Map<String, MsClient> clientMap = new ConcurrentHashMap<>();
-    private final BlockingQueue<Message> messageQueue = new ArrayBlockingQueue<>(MESSAGE_QUEUE_SIZE);
+
+    private final ReentrantLock lanesLock = new ReentrantLock();
+    private final Condition notEmpty = lanesLock.newCondition();
+    private final Condition notFull = lanesLock.newCondition();
+    private final Map<String, MessageLane> lanes = new LinkedHashMap<>();
+    private final MessageLane defaultLane;
+    private final Function<Message, String> laneSelector;
 
     private Runnable disposeCallback;
 
@@ -37,24 +58,41 @@ public final class MessageSystemImpl implements MessageSystem {
         return thread;
     });
 
-    private final ExecutorService msgHandler = Executors.newFixedThreadPool(MSG_HANDLER_THREAD_LIMIT,
-            new ThreadFactory() {
-
-        private final AtomicInteger threadNameSeq = new AtomicInteger(0);
-
-        @Override
-        public Thread newThread(Runnable runnable) {
-            Thread thread = new Thread(runnable);
-            thread.setName("msg-handler-thread-" + threadNameSeq.incrementAndGet());
-            return thread;
-        }
-    });
+    private final MessageShard[] shards;
 
     public MessageSystemImpl() {
-        start();
+        this(true);
     }
 
     public MessageSystemImpl(boolean startProcessing) {
+        this(List.of(MessageLaneConfig.newBuilder(DEFAULT_LANE_NAME).setCapacity(MESSAGE_QUEUE_SIZE).build()),
+                Message::getType, startProcessing);
+    }
+
+    public MessageSystemImpl(List<MessageLaneConfig> laneConfigs, Function<Message, String> laneSelector,
+                             boolean startProcessing) {
+        this(laneConfigs, laneSelector, Runtime.getRuntime().availableProcessors(), startProcessing);
+    }
+
+    public MessageSystemImpl(List<MessageLaneConfig> laneConfigs, Function<Message, String> laneSelector,
+                             int shardCount, boolean startProcessing) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Illegal shard count: " + shardCount);
+        }
+        if (laneConfigs.isEmpty()) {
+            throw new IllegalArgumentException("At least one lane is required");
+        }
+        for (MessageLaneConfig laneConfig : laneConfigs) {
+            if (lanes.put(laneConfig.getName(), new MessageLane(laneConfig)) != null) {
+                throw new IllegalArgumentException("Duplicate lane: " + laneConfig.getName());
+            }
+        }
+        this.defaultLane = lanes.get(laneConfigs.get(0).getName());
+        this.laneSelector = laneSelector;
+        this.shards = new MessageShard[shardCount];
+        for (int idx = 0; idx < shardCount; idx++) {
+            shards[idx] = new MessageShard("msg-shard-thread-" + (idx + 1), clientMap, SHARD_RING_CAPACITY);
+        }
         if (startProcessing) {
             start();
         }
@@ -62,12 +100,39 @@ public final class MessageSystemImpl implements MessageSystem {
 
     @Override
     public void start() {
+        for (MessageShard shard : shards) {
+            shard.start();
+        }
         msgProcessor.submit(this::processMessages);
     }
 
+    /**
+     * Messages in the lanes plus the ones routed to the shards but not handled yet
+     */
     @Override
     public int currentQueueSize() {
-        return messageQueue.size();
+        int routed = 0;
+        for (MessageShard shard : shards) {
+            routed += shard.size();
+        }
+        lanesLock.lock();
+        try {
+            return totalDepth() + routed;
+        } finally {
+            lanesLock.unlock();
+        }
+    }
+
+    @Override
+    public List<MessageLaneStats> laneStats() {
+        lanesLock.lock();
+        try {
+            List<MessageLaneStats> stats = new ArrayList<>();
+            lanes.values().forEach(lane -> stats.add(lane.stats()));
+            return stats;
+        } finally {
+            lanesLock.unlock();
+        }
     }
 
     @Override
@@ -91,21 +156,69 @@ public final class MessageSystemImpl implements MessageSystem {
 
     @Override
     public boolean newMessage(Message msg) {
-        if (runFlag.get()) {
-            return messageQueue.offer(msg);
-        } else {
+        if (!runFlag.get()) {
+            logger.warn("MS is being shutting down... rejected:{}", msg);
+            return false;
+        }
+        MessageLane lane = laneFor(msg);
+        boolean accepted;
+        boolean overloadChanged;
+        lanesLock.lock();
+        try {
+            accepted = offer(lane, msg);
+            overloadChanged = lane.updateOverloaded();
+        } finally {
+            lanesLock.unlock();
+        }
+        if (overloadChanged) {
+            signalBackpressure(lane);
+        }
+        return accepted;
+    }
+
+    @Override
+    public boolean newMessage(Message msg, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!runFlag.get()) {
             logger.warn("MS is being shutting down... rejected:{}", msg);
             return false;
         }
+        MessageLane lane = laneFor(msg);
+        long nanos = unit.toNanos(timeout);
+        boolean accepted;
+        boolean overloadChanged;
+        lanesLock.lockInterruptibly();
+        try {
+            while (!lane.hasRoom() && nanos > 0 && runFlag.get()) {
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (!runFlag.get()) {
+                logger.warn("MS is being shutting down... rejected:{}", msg);
+                return false;
+            }
+            accepted = offer(lane, msg);
+            overloadChanged = lane.updateOverloaded();
+        } finally {
+            lanesLock.unlock();
+        }
+        if (overloadChanged) {
+            signalBackpressure(lane);
+        }
+        return accepted;
     }
 
     @Override
     public void dispose() throws InterruptedException {
         logger.info("now in the messageQueue {} messages", currentQueueSize());
         runFlag.set(false);
-        insertStopMessage();
+        lanesLock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lanesLock.unlock();
+        }
         msgProcessor.shutdown();
-        msgHandler.awaitTermination(60, TimeUnit.SECONDS);
+        msgProcessor.awaitTermination(60, TimeUnit.SECONDS);
     }
 
     @Override
@@ -116,55 +229,149 @@ public final class MessageSystemImpl implements MessageSystem {
 
     private void processMessages() {
         logger.info("msgProcessor started, {}", currentQueueSize());
-        while (runFlag.get() || !messageQueue.isEmpty()) {
+        while (true) {
+            Message msg;
+            MessageLane lane;
+            boolean overloadChanged;
+            lanesLock.lock();
             try {
-                Message msg = messageQueue.take();
-                if (msg == MessageBuilder.getVoidMessage()) {
-                    logger.info("received the stop message");
-                } else {
-                    MsClient clientTo = clientMap.get(msg.getTo());
-                    if (clientTo == null) {
-                        logger.warn("client not found");
-                    } else {
-                        msgHandler.submit(() -> handleMessage(clientTo, msg));
-                    }
+                while (runFlag.get() && totalDepth() == 0) {
+                    notEmpty.await();
+                }
+                if (totalDepth() == 0) {
+                    break;
                 }
+                lane = nextLane();
+                msg = lane.poll(System.nanoTime());
+                overloadChanged = lane.updateOverloaded();
+                notFull.signalAll();
             } catch (InterruptedException ex) {
                 logger.error(ex.getMessage(), ex);
                 Thread.currentThread().interrupt();
+                break;
             } catch (Exception ex) {
                 logger.error(ex.getMessage(), ex);
+                continue;
+            } finally {
+                lanesLock.unlock();
             }
+
+            if (overloadChanged) {
+                signalBackpressure(lane);
+            }
+            route(msg);
         }
 
+        stopShards();
+        closeLanes();
         if (disposeCallback != null) {
-            msgHandler.submit(disposeCallback);
+            try {
+                disposeCallback.run();
+            } catch (Exception ex) {
+                logger.error(ex.getMessage(), ex);
+            }
         }
-        msgHandler.submit(this::messageHandlerShutdown);
         logger.info("msgProcessor finished");
     }
 
-    private void messageHandlerShutdown() {
-        msgHandler.shutdown();
-        logger.info("msgHandler has been shut down");
+    private void route(Message msg) {
+        MessageShard shard = shardFor(msg.getTo());
+        while (!shard.offer(msg)) {
+            LockSupport.parkNanos(RING_FULL_PARK_NANOS);
+        }
     }
 
+    private MessageShard shardFor(String clientName) {
+        if (clientName == null) {
+            return shards[0];
+        }
+        int hash = clientName.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
 
-    private void handleMessage(MsClient msClient, Message msg) {
-        try {
-            msClient.handle(msg);
-        } catch (Exception ex) {
-            logger.error(ex.getMessage(), ex);
-            logger.error("message:{}", msg);
+    private void stopShards() {
+        for (MessageShard shard : shards) {
+            shard.stop();
+        }
+        for (MessageShard shard : shards) {
+            try {
+                shard.join();
+            } catch (InterruptedException ex) {
+                logger.error(ex.getMessage(), ex);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private MessageLane laneFor(Message msg) {
+        String laneName = laneSelector.apply(msg);
+        MessageLane lane = laneName == null ? null : lanes.get(laneName);
+        return lane == null ? defaultLane : lane;
+    }
+
+    private boolean offer(MessageLane lane, Message msg) {
+        boolean accepted = lane.offer(msg, System.nanoTime());
+        if (accepted) {
+            notEmpty.signal();
+        } else {
+            logger.warn("lane {} is full, rejected:{}", lane.getName(), msg);
+        }
+        return accepted;
+    }
+
+    /**
+     * Smooth weighted round robin over non-empty lanes, called under the lock
+     */
+    private MessageLane nextLane() {
+        MessageLane selected = null;
+        int totalWeight = 0;
+        for (MessageLane lane : lanes.values()) {
+            if (lane.depth() == 0) {
+                continue;
+            }
+            lane.currentWeight += lane.getWeight();
+            totalWeight += lane.getWeight();
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    private int totalDepth() {
+        int depth = 0;
+        for (MessageLane lane : lanes.values()) {
+            depth += lane.depth();
         }
+        return depth;
     }
 
-    private void insertStopMessage() throws InterruptedException {
-        boolean result = messageQueue.offer(MessageBuilder.getVoidMessage());
-        while (!result) {
-            Thread.sleep(100);
-            result = messageQueue.offer(MessageBuilder.getVoidMessage());
+    private void signalBackpressure(MessageLane lane) {
+        boolean overloaded;
+        lanesLock.lock();
+        try {
+            overloaded = lane.isOverloaded();
+        } finally {
+            lanesLock.unlock();
         }
+        logger.info("lane {} overloaded:{}", lane.getName(), overloaded);
+        clientMap.values().forEach(client -> {
+            try {
+                client.onBackpressure(lane.getName(), overloaded);
+            } catch (Exception ex) {
+                logger.error(ex.getMessage(), ex);
+            }
+        });
     }
 
+    private void closeLanes() {
+        lanesLock.lock();
+        try {
+            lanes.values().forEach(MessageLane::close);
+        } finally {
+            lanesLock.unlock();
+        }
+    }
 }
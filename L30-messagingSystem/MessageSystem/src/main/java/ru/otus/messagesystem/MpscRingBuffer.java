@@ -0,0 +1,90 @@
+package ru.otus.messagesystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Every slot has a sequence number. A producer claims a position by CAS on the tail and publishes
+ * the element by moving the slot sequence to position + 1 with a volatile write, the consumer frees
+ * the slot by moving its sequence to position + capacity, so the slot is ready for the next lap.
+ */
+final class MpscRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // written by the consumer only, atomic to be read by size()
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int idx = 0; idx < capacity; idx++) {
+            sequences.set(idx, idx);
+        }
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int idx = (int) (position & mask);
+            long sequence = sequences.get(idx);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[idx] = element;
+                    // a volatile write, not lazySet: the consumer parks on an empty ring, and the
+                    // producer must not read its waiting flag before this store is visible
+                    sequences.set(idx, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Consumer only
+     *
+     * @return null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head.get();
+        int idx = (int) (position & mask);
+        if (sequences.get(idx) != position + 1) {
+            return null;
+        }
+        E element = (E) buffer[idx];
+        buffer[idx] = null;
+        sequences.lazySet(idx, position + capacity);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Consumer only
+     */
+    boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) (position & mask)) != position + 1;
+    }
+
+    /**
+     * Approximate number of elements, claimed but not yet published ones included
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
@@ -0,0 +1,19 @@
+package ru.otus.messagesystem;
+
+/**
+ * What a lane does with a new message when its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * the new message is not accepted, the sender gets false
+     */
+    REJECT,
+    /**
+     * the oldest queued message is dropped to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * the new message is written to a file and read back when the queue has room
+     */
+    SPILL_TO_DISK
+}
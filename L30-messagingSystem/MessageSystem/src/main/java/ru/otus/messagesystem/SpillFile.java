@@ -0,0 +1,85 @@
+package ru.otus.messagesystem;
+
+import ru.otus.messagesystem.message.MessageHelper;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * FIFO of messages in a temporary file: records are appended at the end and read from the start.
+ * The file is truncated every time it is read to the end.
+ * Not thread safe, the lane owner synchronizes access.
+ */
+final class SpillFile implements AutoCloseable {
+    private final Path path;
+    private final RandomAccessFile file;
+    private long readPosition;
+    private long writePosition;
+    private int size;
+
+    SpillFile(Path directory, String laneName) {
+        try {
+            Files.createDirectories(directory);
+            this.path = Files.createTempFile(directory, "ms-spill-" + laneName.replaceAll("\\W", "_") + "-", ".bin");
+            this.file = new RandomAccessFile(path.toFile(), "rw");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void append(MessageLane.Entry entry) {
+        try {
+            byte[] bytes = MessageHelper.serializeMessage(entry.getMessage());
+            file.seek(writePosition);
+            file.writeLong(entry.getAcceptedAt());
+            file.writeInt(bytes.length);
+            file.write(bytes);
+            writePosition = file.getFilePointer();
+            size++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    MessageLane.Entry poll() {
+        if (size == 0) {
+            return null;
+        }
+        try {
+            file.seek(readPosition);
+            long acceptedAt = file.readLong();
+            byte[] bytes = new byte[file.readInt()];
+            file.readFully(bytes);
+            readPosition = file.getFilePointer();
+            if (--size == 0) {
+                file.setLength(0);
+                readPosition = 0;
+                writePosition = 0;
+            }
+            return new MessageLane.Entry(MessageHelper.deSerializeMessage(bytes), acceptedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
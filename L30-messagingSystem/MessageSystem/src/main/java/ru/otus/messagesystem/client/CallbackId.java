@@ -1,24 +1,57 @@
 package ru.otus.messagesystem.client;
 
+import ru.otus.messagesystem.message.MessageId;
+
 import java.io.Serializable;
-import java.util.Objects;
+import java.util.UUID;
 
+/**
+ * 128-bit id kept in two longs, the same value as the id of the request message
+ */
 public class CallbackId implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final String id;
+    private static final long serialVersionUID = 2L;
+    private final long high;
+    private final long low;
+
+    public CallbackId(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
 
+    /**
+     * @param id UUID formatted string
+     */
     public CallbackId(String id) {
-        this.id = id;
+        this(UUID.fromString(id));
+    }
+
+    private CallbackId(UUID uuid) {
+        this(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public static CallbackId of(MessageId messageId) {
+        return new CallbackId(messageId.getHigh(), messageId.getLow());
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
     }
 
+    /**
+     * UUID formatted string, built on every call
+     */
     public String getId() {
-        return id;
+        return new UUID(high, low).toString();
     }
 
     @Override
     public String toString() {
         return "CallbackId{" +
-                "id=" + id +
+                "id=" + getId() +
                 '}';
     }
 
@@ -27,11 +60,11 @@ public class CallbackId implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CallbackId that = (CallbackId) o;
-        return Objects.equals(id, that.id);
+        return high == that.high && low == that.low;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
     }
 }
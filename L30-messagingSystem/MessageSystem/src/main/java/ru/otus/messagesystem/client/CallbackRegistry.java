@@ -1,7 +1,24 @@
 package ru.otus.messagesystem.client;
 
+import java.util.concurrent.TimeUnit;
+
 public interface CallbackRegistry {
+    /**
+     * Registers the callback with the default timeout of the registry
+     */
     void put(CallbackId id, MessageCallback<? extends ResultDataType> callback);
 
+    /**
+     * If no reply comes in time, the callback is removed and gets {@link CallbackTimeoutException} in onError
+     */
+    void put(CallbackId id, MessageCallback<? extends ResultDataType> callback, long timeout, TimeUnit unit);
+
     MessageCallback<? extends ResultDataType> getAndRemove(CallbackId id);
+
+    /**
+     * Removes the callback without calling it, for the requests that were not sent
+     */
+    void cancel(CallbackId id);
+
+    CallbackRegistryStats stats();
 }
@@ -1,19 +1,99 @@
 package ru.otus.messagesystem.client;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Every callback has a timeout, so callbacks of lost replies do not pile up.
+ * Timeouts are tracked by a hashed wheel timer, shared by all the registries unless another one is given,
+ * and timed out callbacks are run on the timer thread.
+ */
 public class CallbackRegistryImpl implements CallbackRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(CallbackRegistryImpl.class);
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    private static final HashedWheelTimer SHARED_TIMER = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 512);
+
+    private final Map<CallbackId, PendingCallback> callbackRegistry = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer;
+    private final Duration defaultTimeout;
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
 
-    private final Map<CallbackId, MessageCallback<? extends ResultDataType>> callbackRegistry = new ConcurrentHashMap<>();
+    public CallbackRegistryImpl() {
+        this(SHARED_TIMER, DEFAULT_TIMEOUT);
+    }
+
+    public CallbackRegistryImpl(HashedWheelTimer timer, Duration defaultTimeout) {
+        this.timer = timer;
+        this.defaultTimeout = defaultTimeout;
+    }
 
     @Override
     public void put(CallbackId id, MessageCallback<? extends ResultDataType> callback) {
-        callbackRegistry.put(id, callback);
+        put(id, callback, defaultTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(CallbackId id, MessageCallback<? extends ResultDataType> callback, long timeout, TimeUnit unit) {
+        PendingCallback pending = new PendingCallback(callback);
+        callbackRegistry.put(id, pending);
+        registered.increment();
+        pending.timeout = timer.newTimeout(() -> expire(id, pending, timeout, unit), timeout, unit);
     }
 
     @Override
     public MessageCallback<? extends ResultDataType> getAndRemove(CallbackId id) {
-        return callbackRegistry.remove(id);
+        PendingCallback pending = callbackRegistry.remove(id);
+        if (pending == null) {
+            return null;
+        }
+        pending.cancelTimeout();
+        completed.increment();
+        return pending.callback;
+    }
+
+    @Override
+    public void cancel(CallbackId id) {
+        PendingCallback pending = callbackRegistry.remove(id);
+        if (pending != null) {
+            pending.cancelTimeout();
+        }
+    }
+
+    @Override
+    public CallbackRegistryStats stats() {
+        return new CallbackRegistryStats(callbackRegistry.size(), registered.sum(), completed.sum(), timedOut.sum());
+    }
+
+    private void expire(CallbackId id, PendingCallback pending, long timeout, TimeUnit unit) {
+        if (!callbackRegistry.remove(id, pending)) {
+            return;
+        }
+        timedOut.increment();
+        logger.warn("callback {} timed out", id);
+        pending.callback.onError(new CallbackTimeoutException(id, timeout, unit));
+    }
+
+    private static final class PendingCallback {
+        private final MessageCallback<? extends ResultDataType> callback;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private PendingCallback(MessageCallback<? extends ResultDataType> callback) {
+            this.callback = callback;
+        }
+
+        private void cancelTimeout() {
+            HashedWheelTimer.Timeout scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
     }
 }
@@ -0,0 +1,53 @@
+package ru.otus.messagesystem.client;
+
+/**
+ * Snapshot of the callback registry counters
+ */
+public final class CallbackRegistryStats {
+    private final int pending;
+    private final long registered;
+    private final long completed;
+    private final long timedOut;
+
+    public CallbackRegistryStats(int pending, long registered, long completed, long timedOut) {
+        this.pending = pending;
+        this.registered = registered;
+        this.completed = completed;
+        this.timedOut = timedOut;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public long getRegistered() {
+        return registered;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Share of the finished callbacks that timed out
+     */
+    public double timeoutRate() {
+        long finished = completed + timedOut;
+        return finished == 0 ? 0.0 : (double) timedOut / finished;
+    }
+
+    @Override
+    public String toString() {
+        return "CallbackRegistryStats{" +
+                "pending=" + pending +
+                ", registered=" + registered +
+                ", completed=" + completed +
+                ", timedOut=" + timedOut +
+                ", timeoutRate=" + timeoutRate() +
+                '}';
+    }
+}
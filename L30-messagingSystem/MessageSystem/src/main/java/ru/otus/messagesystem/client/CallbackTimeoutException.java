@@ -0,0 +1,11 @@
+package ru.otus.messagesystem.client;
+
+import java.util.concurrent.TimeUnit;
+
+public class CallbackTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CallbackTimeoutException(CallbackId callbackId, long timeout, TimeUnit unit) {
+        super("No reply for " + callbackId + " in " + timeout + " " + unit);
+    }
+}
@@ -3,4 +3,10 @@ package ru.otus.messagesystem.client;
 import java.util.function.Consumer;
 
 public interface MessageCallback<T extends ResultDataType> extends Consumer<T> {
+
+    /**
+     * Called instead of accept if there is no reply, for example on timeout
+     */
+    default void onError(Throwable error) {
+    }
 }
@@ -3,13 +3,43 @@ package ru.otus.messagesystem.client;
 import ru.otus.messagesystem.message.Message;
 import ru.otus.messagesystem.message.MessageType;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 public interface MsClient {
 
     boolean sendMessage(Message msg);
 
+    /**
+     * Waits up to the timeout if the message system lane is full
+     */
+    boolean sendMessage(Message msg, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Called by the message system when a lane becomes overloaded or recovers
+     */
+    void onBackpressure(String lane, boolean overloaded);
+
+    boolean isBackpressured();
+
+    /**
+     * Called when a message the client has sent is rejected after sendMessage returned,
+     * for example by the node of a remote message system
+     */
+    default void onRejected(Message msg) {
+    }
+
     void handle(Message msg);
 
     String getName();
 
     <T extends ResultDataType> Message produceMessage(String to, T data, MessageType msgType, MessageCallback<T> callback);
+
+    /**
+     * Sends the request and completes the future with the reply, or exceptionally
+     * with {@link CallbackTimeoutException} if there is no reply in time or with IllegalStateException
+     * if the message system rejected the request
+     */
+    <T extends ResultDataType, R extends ResultDataType> CompletableFuture<R> request(
+            String to, T data, MessageType msgType, long timeout, TimeUnit unit);
 }
@@ -10,6 +10,10 @@ import ru.otus.messagesystem.message.MessageType;
 import ru.otus.messagesystem.RequestHandler;
 
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class MsClientImpl implements MsClient {
     private static final Logger logger = LoggerFactory.getLogger(MsClientImpl.class);
@@ -18,6 +22,7 @@ public class MsClientImpl implements MsClient {
     private final MessageSystem messageSystem;
     private final HandlersStore handlersStore;
     private final CallbackRegistry callbackRegistry;
+    private final Set<String> overloadedLanes = ConcurrentHashMap.newKeySet();
 
     public MsClientImpl(String name, MessageSystem messageSystem, HandlersStore handlersStore,
                         CallbackRegistry callbackRegistry) {
@@ -41,6 +46,43 @@ public class MsClientImpl implements MsClient {
         return result;
     }
 
+    @Override
+    public boolean sendMessage(Message msg, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean result = messageSystem.newMessage(msg, timeout, unit);
+        if (!result) {
+            logger.error("the last message was rejected after {} {}: {}", timeout, unit, msg);
+        }
+        return result;
+    }
+
+    @Override
+    public void onBackpressure(String lane, boolean overloaded) {
+        if (overloaded) {
+            overloadedLanes.add(lane);
+            logger.warn("lane {} is overloaded", lane);
+        } else {
+            overloadedLanes.remove(lane);
+            logger.info("lane {} has recovered", lane);
+        }
+    }
+
+    @Override
+    public boolean isBackpressured() {
+        return !overloadedLanes.isEmpty();
+    }
+
+    /**
+     * Fails the callback of the rejected message, so its request does not wait for the timeout
+     */
+    @Override
+    public void onRejected(Message msg) {
+        logger.error("the message was rejected by the receiving side: {}", msg);
+        MessageCallback<? extends ResultDataType> callback = callbackRegistry.getAndRemove(msg.getCallbackId());
+        if (callback != null) {
+            callback.onError(new IllegalStateException("the message was rejected: " + msg.getId()));
+        }
+    }
+
     @SuppressWarnings("all")
     @Override
     public void handle(Message msg) {
@@ -65,6 +107,29 @@ public class MsClientImpl implements MsClient {
         return message;
     }
 
+    @Override
+    public <T extends ResultDataType, R extends ResultDataType> CompletableFuture<R> request(
+            String to, T data, MessageType msgType, long timeout, TimeUnit unit) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Message message = MessageBuilder.buildMessage(name, to, null, data, msgType);
+        callbackRegistry.put(message.getCallbackId(), new MessageCallback<R>() {
+            @Override
+            public void accept(R reply) {
+                result.complete(reply);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                result.completeExceptionally(error);
+            }
+        }, timeout, unit);
+        if (!sendMessage(message)) {
+            callbackRegistry.cancel(message.getCallbackId());
+            result.completeExceptionally(new IllegalStateException("the message was rejected: " + message.getId()));
+        }
+        return result;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,45 @@
+package ru.otus.messagesystem.message;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates 128-bit ids without SecureRandom and Strings on the hot path.
+ * <p>
+ * The high half is the node prefix: start time in milliseconds in the upper 41 bits and 23 random bits,
+ * chosen once per JVM, so ids of different processes and restarts do not collide.
+ * 41 bits hold epoch milliseconds until 2039, 40 bits ran out in 2004.
+ * The low half is a counter. Every thread takes a block of counter values at once,
+ * so threads do not fight over one atomic on every id.
+ */
+public final class IdGenerator {
+    static final int RANDOM_BITS = 23;
+    private static final int BLOCK_SIZE = 1024;
+    private static final long NODE_PREFIX = (System.currentTimeMillis() << RANDOM_BITS)
+            | (new SecureRandom().nextInt() & ((1L << RANDOM_BITS) - 1));
+    private static final AtomicLong nextBlock = new AtomicLong();
+    private static final ThreadLocal<long[]> threadBlock = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    private IdGenerator() {
+    }
+
+    public static MessageId nextMessageId() {
+        return new MessageId(NODE_PREFIX, nextCounter());
+    }
+
+    static long nodePrefix() {
+        return NODE_PREFIX;
+    }
+
+    /**
+     * block[0] is the next value, block[1] is the end of the block
+     */
+    private static long nextCounter() {
+        long[] block = threadBlock.get();
+        if (block[0] == block[1]) {
+            block[0] = nextBlock.getAndIncrement() * BLOCK_SIZE;
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.otus.messagesystem.message;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Java serialization, the fallback for the types without their own codec.
+ * Slow and trusts the bytes it reads, so it is better to register a codec for every payload type.
+ */
+public final class JavaPayloadCodec implements PayloadCodec<Object> {
+    public static final byte ID = 0;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public Class<Object> getType() {
+        return Object.class;
+    }
+
+    @Override
+    public void encode(Object data, ByteBuffer target) {
+        try (ObjectOutputStream os = new ObjectOutputStream(new ByteBufferOutputStream(target))) {
+            os.writeObject(data);
+        } catch (IOException e) {
+            throw new SerializerError("Serialization error", e);
+        }
+    }
+
+    @Override
+    public Object decode(ByteBuffer source) {
+        try (ObjectInputStream is = new ObjectInputStream(new ByteBufferInputStream(source))) {
+            return is.readObject();
+        } catch (Exception e) {
+            throw new SerializerError("DeSerialization error", e);
+        }
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            buffer.put(bytes, off, len);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
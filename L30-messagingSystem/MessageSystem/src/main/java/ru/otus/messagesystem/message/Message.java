@@ -15,16 +15,18 @@ public class Message implements Serializable {
     private final String to;
     private final MessageId sourceMessageId;
     private final String type;
+    private final byte codecId;
     private final byte[] payload;
     private final CallbackId callbackId;
 
     Message(MessageId messageId, String from, String to, MessageId sourceMessageId, String type,
-            byte[] payload, CallbackId callbackId) {
+            byte codecId, byte[] payload, CallbackId callbackId) {
         this.id = messageId;
         this.from = from;
         this.to = to;
         this.sourceMessageId = sourceMessageId;
         this.type = type;
+        this.codecId = codecId;
         this.payload = payload;
         this.callbackId = callbackId;
     }
@@ -39,13 +41,14 @@ public class Message implements Serializable {
                 Objects.equals(to, message.to) &&
                 Objects.equals(sourceMessageId, message.sourceMessageId) &&
                 Objects.equals(type, message.type) &&
+                codecId == message.codecId &&
                 Arrays.equals(payload, message.payload) &&
                 Objects.equals(callbackId, message.callbackId);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(id, from, to, sourceMessageId, type, callbackId);
+        int result = Objects.hash(id, from, to, sourceMessageId, type, codecId, callbackId);
         result = 31 * result + Arrays.hashCode(payload);
         return result;
     }
@@ -58,6 +61,7 @@ public class Message implements Serializable {
                 ", to='" + to + '\'' +
                 ", sourceMessageId=" + sourceMessageId +
                 ", type='" + type + '\'' +
+                ", codecId=" + codecId +
                 ", callbackId=" + callbackId +
                 '}';
     }
@@ -78,6 +82,13 @@ public class Message implements Serializable {
         return type;
     }
 
+    /**
+     * Id of the PayloadCodec the payload was encoded with
+     */
+    public byte getCodecId() {
+        return codecId;
+    }
+
     public byte[] getPayload() {
         return payload;
     }
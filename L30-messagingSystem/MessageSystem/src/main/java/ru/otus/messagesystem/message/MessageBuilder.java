@@ -3,12 +3,10 @@ package ru.otus.messagesystem.message;
 import ru.otus.messagesystem.client.CallbackId;
 import ru.otus.messagesystem.client.ResultDataType;
 
-import java.util.UUID;
-
 public class MessageBuilder {
     private static final Message VOID_MESSAGE =
-            new Message(new MessageId(UUID.randomUUID().toString()), null, null,
-                    null, "voidTechnicalMessage", new byte[1],  null);
+            new Message(IdGenerator.nextMessageId(), null, null,
+                    null, "voidTechnicalMessage", JavaPayloadCodec.ID, new byte[1],  null);
 
     private MessageBuilder() {
     }
@@ -29,8 +27,10 @@ public class MessageBuilder {
 
     private static <T extends ResultDataType> Message buildMessage(String from, String to, MessageId sourceMessageId,
                                                                      T data, MessageType msgType, CallbackId callbackId) {
-        String id = UUID.randomUUID().toString();
-        return new Message(new MessageId(id), from, to, sourceMessageId, msgType.getName(),
-                Serializers.serialize(data), callbackId == null ? new CallbackId(id) : callbackId);
+        MessageId id = IdGenerator.nextMessageId();
+        PayloadCodec<T> codec = PayloadCodecs.codecFor(data);
+        return new Message(id, from, to, sourceMessageId, msgType.getName(),
+                codec.getId(), PayloadCodecs.encode(codec, data),
+                callbackId == null ? CallbackId.of(id) : callbackId);
     }
 }
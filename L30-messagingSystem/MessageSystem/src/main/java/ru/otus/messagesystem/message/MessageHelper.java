@@ -5,7 +5,7 @@ public class MessageHelper {
     }
 
     public static <T> T getPayload(Message msg) {
-        return (T) Serializers.deserialize(msg.getPayload());
+        return (T) PayloadCodecs.decode(msg.getCodecId(), msg.getPayload());
     }
 
     public static byte[] serializeMessage(Message msg) {
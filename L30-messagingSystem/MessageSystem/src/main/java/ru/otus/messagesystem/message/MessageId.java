@@ -1,24 +1,51 @@
 package ru.otus.messagesystem.message;
 
 import java.io.Serializable;
-import java.util.Objects;
+import java.util.UUID;
 
+/**
+ * 128-bit id kept in two longs, see {@link IdGenerator}
+ */
 public class MessageId implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final String id;
+    private static final long serialVersionUID = 2L;
+    private final long high;
+    private final long low;
 
+    public MessageId(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param id UUID formatted string
+     */
     public MessageId(String id) {
-        this.id = id;
+        this(UUID.fromString(id));
+    }
+
+    private MessageId(UUID uuid) {
+        this(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
     }
 
+    /**
+     * UUID formatted string, built on every call
+     */
     public String getId() {
-        return id;
+        return new UUID(high, low).toString();
     }
 
     @Override
     public String toString() {
         return "MessageId{" +
-                "id=" + id +
+                "id=" + getId() +
                 '}';
     }
 
@@ -27,11 +54,11 @@ public class MessageId implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MessageId messageId = (MessageId) o;
-        return Objects.equals(id, messageId.id);
+        return high == messageId.high && low == messageId.low;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
     }
 }
@@ -0,0 +1,69 @@
+package ru.otus.messagesystem.message;
+
+import ru.otus.messagesystem.client.CallbackId;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary form of a message for the network: ids as longs, strings as modified UTF-8,
+ * the payload as is. Unlike {@link MessageHelper#serializeMessage} it does not use Java serialization.
+ */
+public final class MessageWireFormat {
+    private static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    private MessageWireFormat() {
+    }
+
+    public static void write(Message msg, DataOutput out) throws IOException {
+        out.writeLong(msg.getId().getHigh());
+        out.writeLong(msg.getId().getLow());
+        writeString(msg.getFrom(), out);
+        writeString(msg.getTo(), out);
+        MessageId sourceMessageId = msg.getSourceMessageId().orElse(null);
+        out.writeBoolean(sourceMessageId != null);
+        if (sourceMessageId != null) {
+            out.writeLong(sourceMessageId.getHigh());
+            out.writeLong(sourceMessageId.getLow());
+        }
+        writeString(msg.getType(), out);
+        out.writeByte(msg.getCodecId());
+        out.writeInt(msg.getPayload().length);
+        out.write(msg.getPayload());
+        CallbackId callbackId = msg.getCallbackId();
+        out.writeBoolean(callbackId != null);
+        if (callbackId != null) {
+            out.writeLong(callbackId.getHigh());
+            out.writeLong(callbackId.getLow());
+        }
+    }
+
+    public static Message read(DataInput in) throws IOException {
+        MessageId id = new MessageId(in.readLong(), in.readLong());
+        String from = readString(in);
+        String to = readString(in);
+        MessageId sourceMessageId = in.readBoolean() ? new MessageId(in.readLong(), in.readLong()) : null;
+        String type = readString(in);
+        byte codecId = in.readByte();
+        int payloadSize = in.readInt();
+        if (payloadSize < 0 || payloadSize > MAX_PAYLOAD_SIZE) {
+            throw new IOException("Illegal payload size: " + payloadSize);
+        }
+        byte[] payload = new byte[payloadSize];
+        in.readFully(payload);
+        CallbackId callbackId = in.readBoolean() ? new CallbackId(in.readLong(), in.readLong()) : null;
+        return new Message(id, from, to, sourceMessageId, type, codecId, payload, callbackId);
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.otus.messagesystem.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes message payloads of one type.
+ * <p>
+ * The codec id is written into the message header, so the receiver decodes the payload with the same codec.
+ * Codecs are found by {@link java.util.ServiceLoader} or registered with {@link PayloadCodecs#register}.
+ * Id 0 is taken by Java serialization, which is used for the types without a codec.
+ */
+public interface PayloadCodec<T> {
+
+    byte getId();
+
+    Class<T> getType();
+
+    /**
+     * Writes the data starting from the buffer position.
+     * Throws BufferOverflowException if the buffer is too small, the caller retries with a bigger one.
+     */
+    void encode(T data, ByteBuffer target);
+
+    /**
+     * Reads the data from the buffer position to its limit
+     */
+    T decode(ByteBuffer source);
+}
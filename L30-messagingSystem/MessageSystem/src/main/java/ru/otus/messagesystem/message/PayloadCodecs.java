@@ -0,0 +1,87 @@
+package ru.otus.messagesystem.message;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of payload codecs.
+ * <p>
+ * A payload is encoded by the codec registered for its exact class, other payloads go through Java serialization.
+ * Every id and every type has at most one codec, so the encoder and the decoder of a type are the same codec. Decoding looks the codec up by the id from the message header.
+ * Encoding goes through a per-thread buffer that grows on demand, so only the resulting byte array is allocated.
+ */
+public final class PayloadCodecs {
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final PayloadCodec<Object> JAVA_CODEC = new JavaPayloadCodec();
+    private static final Map<Byte, PayloadCodec<?>> codecsById = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, PayloadCodec<?>> codecsByType = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ByteBuffer> buffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    static {
+        codecsById.put(JAVA_CODEC.getId(), JAVA_CODEC);
+        ServiceLoader.load(PayloadCodec.class).forEach(PayloadCodecs::register);
+    }
+
+    private PayloadCodecs() {
+    }
+
+    /**
+     * Makes the codec the one used for its type. Registering the same codec class again does nothing,
+     * a different codec for a taken id or type is rejected.
+     */
+    public static synchronized void register(PayloadCodec<?> codec) {
+        PayloadCodec<?> byId = codecsById.get(codec.getId());
+        if (byId != null && byId.getClass() != codec.getClass()) {
+            throw new IllegalArgumentException("Codec id " + codec.getId() + " is already taken by "
+                    + byId.getClass().getName());
+        }
+        PayloadCodec<?> byType = codecsByType.get(codec.getType());
+        if (byType != null && byType.getClass() != codec.getClass()) {
+            throw new IllegalArgumentException("Type " + codec.getType().getName() + " already has codec "
+                    + byType.getClass().getName());
+        }
+        PayloadCodec<?> registered = byId != null ? byId : codec;
+        codecsById.putIfAbsent(codec.getId(), registered);
+        codecsByType.putIfAbsent(codec.getType(), registered);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PayloadCodec<T> codecFor(T data) {
+        PayloadCodec<?> codec = data == null ? null : codecsByType.get(data.getClass());
+        return (PayloadCodec<T>) (codec == null ? JAVA_CODEC : codec);
+    }
+
+    public static <T> byte[] encode(PayloadCodec<T> codec, T data) {
+        ByteBuffer buffer = buffers.get();
+        while (true) {
+            buffer.clear();
+            try {
+                codec.encode(data, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+                    buffers.set(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes straight from the payload array, without copying it
+     */
+    public static Object decode(byte codecId, byte[] payload) {
+        PayloadCodec<?> codec = codecsById.get(codecId);
+        if (codec == null) {
+            throw new SerializerError("Unknown payload codec: " + codecId, null);
+        }
+        return codec.decode(ByteBuffer.wrap(payload));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.otus.messagesystem.remote;
+
+import io.netty.channel.Channel;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes frames from any thread with one event loop task and one flush per batch
+ * instead of a task and a syscall per frame.
+ */
+final class FrameWriter {
+    private static final int MAX_FRAMES_PER_FLUSH = 256;
+
+    private final Channel channel;
+    private final Queue<RemoteFrame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    FrameWriter(Channel channel) {
+        this.channel = channel;
+    }
+
+    boolean isActive() {
+        return channel.isActive();
+    }
+
+    void write(RemoteFrame frame) {
+        queue.add(frame);
+        if (drainScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (!channel.isActive()) {
+            // the peer state is sent again on the next connection
+            queue.clear();
+            return;
+        }
+        int written = 0;
+        RemoteFrame frame;
+        while ((frame = queue.poll()) != null) {
+            channel.write(frame, channel.voidPromise());
+            if (++written % MAX_FRAMES_PER_FLUSH == 0) {
+                channel.flush();
+            }
+        }
+        if (written % MAX_FRAMES_PER_FLUSH != 0) {
+            channel.flush();
+        }
+    }
+}
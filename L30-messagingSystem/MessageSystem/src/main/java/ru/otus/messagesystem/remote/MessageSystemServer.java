@@ -0,0 +1,188 @@
+package ru.otus.messagesystem.remote;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.messagesystem.MessageSystem;
+import ru.otus.messagesystem.message.JavaPayloadCodec;
+import ru.otus.messagesystem.message.Message;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Makes a message system node reachable from other processes.
+ * <p>
+ * A process connects with {@link RemoteMessageSystem} and registers its clients, the node adds
+ * a {@link RemoteMsClient} for each of them and acknowledges the registration, so the node clients send
+ * to them as usual. Messages from the process
+ * are put into the node message system and acknowledged, the process replays the unacknowledged ones
+ * after a reconnect.
+ * <p>
+ * The server listens on the loopback interface unless a host is given. Messages with Java serialized payloads
+ * are rejected, as decoding them would run the classes the remote side chooses, and a name still bound
+ * to a live connection is not given to another one. Only the connection a name is bound to may unregister it.
+ */
+public class MessageSystemServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSystemServer.class);
+    private static final int MAX_PENDING_PER_CLIENT = 10_000;
+
+    private final MessageSystem messageSystem;
+    private final InetSocketAddress address;
+    private final Map<String, RemoteMsClient> remoteClients = new ConcurrentHashMap<>();
+    private final NioEventLoopGroup bossGroup = new NioEventLoopGroup(1);
+    private final NioEventLoopGroup workerGroup = new NioEventLoopGroup();
+
+    private Channel serverChannel;
+
+    /**
+     * Listens on the loopback interface
+     *
+     * @param port 0 to take any free port, see {@link #getPort()}
+     */
+    public MessageSystemServer(MessageSystem messageSystem, int port) {
+        this(messageSystem, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param host the interface to listen on, "0.0.0.0" for all of them
+     * @param port 0 to take any free port, see {@link #getPort()}
+     */
+    public MessageSystemServer(MessageSystem messageSystem, String host, int port) {
+        this(messageSystem, new InetSocketAddress(host, port));
+    }
+
+    private MessageSystemServer(MessageSystem messageSystem, InetSocketAddress address) {
+        this.messageSystem = messageSystem;
+        this.address = address;
+    }
+
+    public void start() throws InterruptedException {
+        ServerBootstrap serverBootstrap = new ServerBootstrap();
+        serverBootstrap.group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .localAddress(address)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel ch) {
+                        RemoteFrameCodec.initPipeline(ch.pipeline(), new ConnectionHandler());
+                    }
+                });
+        serverChannel = serverBootstrap.bind().sync().channel();
+        logger.info("message system server is listening on {}", serverChannel.localAddress());
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Waits for the server to stop even if the thread is interrupted, the interrupt status is kept
+     */
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        workerGroup.shutdownGracefully().syncUninterruptibly();
+        bossGroup.shutdownGracefully().syncUninterruptibly();
+        remoteClients.keySet().forEach(messageSystem::removeClient);
+        remoteClients.clear();
+        logger.info("message system server has been stopped");
+    }
+
+    private class ConnectionHandler extends SimpleChannelInboundHandler<RemoteFrame> {
+        private final Set<String> clientNames = new HashSet<>();
+        private FrameWriter writer;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            writer = new FrameWriter(ctx.channel());
+            logger.info("process connected: {}", ctx.channel().remoteAddress());
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, RemoteFrame frame) {
+            switch (frame.getType()) {
+                case MESSAGE:
+                    writer.write(RemoteFrame.ack(frame.getSequence(), accept(ctx, frame.getMessage())));
+                    break;
+                case REGISTER:
+                    writer.write(RemoteFrame.ack(frame.getSequence(), register(ctx, frame.getName())));
+                    break;
+                case UNREGISTER:
+                    writer.write(RemoteFrame.ack(frame.getSequence(), unregister(ctx, frame.getName())));
+                    break;
+                default:
+                    logger.warn("unexpected frame:{}", frame);
+            }
+        }
+
+        private boolean accept(ChannelHandlerContext ctx, Message msg) {
+            if (msg.getCodecId() == JavaPayloadCodec.ID) {
+                logger.warn("{} sent a Java serialized payload, rejected:{}", ctx.channel().remoteAddress(), msg);
+                return false;
+            }
+            return messageSystem.newMessage(msg);
+        }
+
+        private boolean register(ChannelHandlerContext ctx, String clientName) {
+            RemoteMsClient client = remoteClients.computeIfAbsent(clientName, name -> {
+                RemoteMsClient remoteClient = new RemoteMsClient(name, MAX_PENDING_PER_CLIENT);
+                messageSystem.addClient(remoteClient);
+                return remoteClient;
+            });
+            if (!client.bindIfFree(writer)) {
+                logger.warn("{} tried to take client {} bound to another connection",
+                        ctx.channel().remoteAddress(), clientName);
+                return false;
+            }
+            clientNames.add(clientName);
+            return true;
+        }
+
+        private boolean unregister(ChannelHandlerContext ctx, String clientName) {
+            RemoteMsClient client = remoteClients.get(clientName);
+            if (!clientNames.contains(clientName) || client == null || !client.isBoundTo(writer)) {
+                logger.warn("{} tried to unregister client {} it does not own",
+                        ctx.channel().remoteAddress(), clientName);
+                return false;
+            }
+            clientNames.remove(clientName);
+            if (remoteClients.remove(clientName, client)) {
+                messageSystem.removeClient(clientName);
+            }
+            return true;
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            logger.info("process disconnected: {}", ctx.channel().remoteAddress());
+            clientNames.forEach(name -> {
+                RemoteMsClient client = remoteClients.get(name);
+                if (client != null) {
+                    client.unbind(writer);
+                }
+            });
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.error(cause.getMessage(), cause);
+            ctx.close();
+        }
+    }
+}
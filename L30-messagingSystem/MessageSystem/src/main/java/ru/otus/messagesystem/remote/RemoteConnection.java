@@ -0,0 +1,261 @@
+package ru.otus.messagesystem.remote;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.messagesystem.message.Message;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One connection of a process to the node, bound to one event loop.
+ * <p>
+ * Messages are kept until the node acknowledges them. After a reconnect the connection registers its clients
+ * again, takes back and unregisters the removed ones the node has not acknowledged, as only the connection
+ * a name is bound to may unregister it, and resends the unacknowledged messages in their order, so the delivery
+ * is at-least-once. A message the node rejects is passed back to its sender,
+ * see {@link ru.otus.messagesystem.client.MsClient#onRejected}.
+ * The node acknowledges registrations too, {@link #register} completes when the node routes to the client,
+ * or exceptionally if the name is bound to another connection.
+ * Frames are written in batches by a task on the event loop, see {@link FrameWriter}.
+ */
+final class RemoteConnection {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteConnection.class);
+    private static final long MIN_RECONNECT_DELAY_MS = 100;
+    private static final long MAX_RECONNECT_DELAY_MS = 5_000;
+
+    private final RemoteMessageSystem owner;
+    private final EventLoop eventLoop;
+    private final Bootstrap bootstrap;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Message> inFlight = new ConcurrentSkipListMap<>();
+    private final Map<String, CompletableFuture<Void>> clientNames = new ConcurrentHashMap<>();
+    // sequence of the REGISTER frame to the client name
+    private final Map<Long, String> registering = new ConcurrentHashMap<>();
+    // the names removed but not acknowledged by the node, they are unregistered again after a reconnect
+    private final Set<String> removedNames = ConcurrentHashMap.newKeySet();
+    // sequence of the UNREGISTER frame to the client name
+    private final Map<Long, String> unregistering = new ConcurrentHashMap<>();
+    // replaced on every connect
+    private volatile FrameWriter writer;
+
+    // event loop only
+    private Channel channel;
+    private long reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+    private volatile boolean closed;
+
+    RemoteConnection(RemoteMessageSystem owner, EventLoop eventLoop, String host, int port) {
+        this.owner = owner;
+        this.eventLoop = eventLoop;
+        this.bootstrap = new Bootstrap()
+                .group(eventLoop)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .remoteAddress(host, port)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel ch) {
+                        RemoteFrameCodec.initPipeline(ch.pipeline(), new InboundHandler());
+                    }
+                });
+    }
+
+    void connect() {
+        eventLoop.execute(this::doConnect);
+    }
+
+    /**
+     * @return completes when the node acknowledges the registration, it may take a reconnect
+     */
+    CompletableFuture<Void> register(String clientName) {
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+        removedNames.remove(clientName);
+        clientNames.put(clientName, registered);
+        write(registerFrame(clientName));
+        return registered;
+    }
+
+    void unregister(String clientName) {
+        clientNames.remove(clientName);
+        removedNames.add(clientName);
+        write(unregisterFrame(clientName));
+    }
+
+    void send(Message msg) {
+        long seq = sequence.incrementAndGet();
+        inFlight.put(seq, msg);
+        write(RemoteFrame.message(seq, msg));
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    void close() throws InterruptedException {
+        closed = true;
+        eventLoop.submit(() -> {
+            if (channel != null) {
+                channel.close();
+            }
+        }).sync();
+    }
+
+    private RemoteFrame registerFrame(String clientName) {
+        long seq = sequence.incrementAndGet();
+        registering.put(seq, clientName);
+        return RemoteFrame.register(seq, clientName);
+    }
+
+    private RemoteFrame unregisterFrame(String clientName) {
+        long seq = sequence.incrementAndGet();
+        unregistering.put(seq, clientName);
+        return RemoteFrame.unregister(seq, clientName);
+    }
+
+    private void retryRegister(String clientName) {
+        if (clientNames.containsKey(clientName) && channel != null && channel.isActive()) {
+            write(registerFrame(clientName));
+        }
+    }
+
+    private void retryUnregister(String clientName) {
+        if (removedNames.contains(clientName) && channel != null && channel.isActive()) {
+            write(registerFrame(clientName));
+            write(unregisterFrame(clientName));
+        }
+    }
+
+    private void write(RemoteFrame frame) {
+        FrameWriter current = writer;
+        // without a connection the frame is resent from clientNames, removedNames and inFlight when connected
+        if (current != null && current.isActive()) {
+            current.write(frame);
+        }
+    }
+
+    private void doConnect() {
+        if (closed) {
+            return;
+        }
+        bootstrap.connect().addListener((ChannelFuture future) -> {
+            if (!future.isSuccess()) {
+                logger.warn("connection to {} failed: {}", bootstrap.config().remoteAddress(),
+                        future.cause().getMessage());
+                scheduleReconnect();
+                return;
+            }
+            onConnected(future.channel());
+        });
+    }
+
+    private void onConnected(Channel connected) {
+        channel = connected;
+        reconnectDelayMs = MIN_RECONNECT_DELAY_MS;
+        channel.closeFuture().addListener(future -> scheduleReconnect());
+        logger.info("connected to {}, clients:{}, removed clients:{}, unacknowledged:{}",
+                channel.remoteAddress(), clientNames.size(), removedNames.size(), inFlight.size());
+
+        registering.clear();
+        unregistering.clear();
+        // set before the resend, so the frames written meanwhile are either resent or queued after it
+        writer = new FrameWriter(connected);
+        removedNames.forEach(name -> {
+            writer.write(registerFrame(name));
+            writer.write(unregisterFrame(name));
+        });
+        clientNames.keySet().forEach(name -> writer.write(registerFrame(name)));
+        inFlight.forEach((seq, msg) -> writer.write(RemoteFrame.message(seq, msg)));
+    }
+
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        long delay = reconnectDelayMs;
+        reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_DELAY_MS);
+        eventLoop.schedule(this::doConnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private class InboundHandler extends SimpleChannelInboundHandler<RemoteFrame> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, RemoteFrame frame) {
+            switch (frame.getType()) {
+                case ACK:
+                    Message msg = inFlight.remove(frame.getSequence());
+                    if (msg != null) {
+                        owner.acknowledged();
+                        if (!frame.getFlag()) {
+                            owner.rejected(msg);
+                        }
+                    } else if (!unregistered(frame.getSequence(), frame.getFlag())) {
+                        registered(frame.getSequence(), frame.getFlag());
+                    }
+                    break;
+                case MESSAGE:
+                    owner.deliver(frame.getMessage());
+                    break;
+                case BACKPRESSURE:
+                    owner.backpressure(frame.getName(), frame.getFlag());
+                    break;
+                default:
+                    logger.warn("unexpected frame:{}", frame);
+            }
+        }
+
+        private boolean unregistered(long seq, boolean accepted) {
+            String clientName = unregistering.remove(seq);
+            if (clientName == null) {
+                return false;
+            }
+            if (accepted) {
+                removedNames.remove(clientName);
+            } else if (removedNames.contains(clientName)) {
+                logger.warn("the node refused to unregister client {}, the name is bound to another connection",
+                        clientName);
+                // the same as for the registration, the previous connection may still hold the name
+                eventLoop.schedule(() -> retryUnregister(clientName), MAX_RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+
+        private void registered(long seq, boolean accepted) {
+            String clientName = registering.remove(seq);
+            CompletableFuture<Void> registered = clientName == null ? null : clientNames.get(clientName);
+            if (registered == null) {
+                return;
+            }
+            if (accepted) {
+                registered.complete(null);
+            } else {
+                logger.warn("the node refused client {}, the name is bound to another connection", clientName);
+                registered.completeExceptionally(
+                        new IllegalStateException("client " + clientName + " is registered by another process"));
+                // it may be the previous connection of this process the node has not noticed closed yet
+                eventLoop.schedule(() -> retryRegister(clientName), MAX_RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.error(cause.getMessage(), cause);
+            ctx.close();
+        }
+    }
+}
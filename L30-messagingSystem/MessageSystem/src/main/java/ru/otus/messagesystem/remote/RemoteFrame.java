@@ -0,0 +1,102 @@
+package ru.otus.messagesystem.remote;
+
+import ru.otus.messagesystem.message.Message;
+
+/**
+ * A unit of the remote protocol. On the wire a frame is its length, the type code and the type specific body.
+ */
+final class RemoteFrame {
+    enum Type {
+        REGISTER(1), UNREGISTER(2), MESSAGE(3), ACK(4), BACKPRESSURE(5);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        byte getCode() {
+            return code;
+        }
+
+        static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown frame type: " + code);
+        }
+    }
+
+    private final Type type;
+    private final long sequence;
+    private final String name;
+    private final boolean flag;
+    private final Message message;
+
+    private RemoteFrame(Type type, long sequence, String name, boolean flag, Message message) {
+        this.type = type;
+        this.sequence = sequence;
+        this.name = name;
+        this.flag = flag;
+        this.message = message;
+    }
+
+    /**
+     * @param sequence number the node acknowledges the registration with
+     */
+    static RemoteFrame register(long sequence, String clientName) {
+        return new RemoteFrame(Type.REGISTER, sequence, clientName, false, null);
+    }
+
+    static RemoteFrame unregister(long sequence, String clientName) {
+        return new RemoteFrame(Type.UNREGISTER, sequence, clientName, false, null);
+    }
+
+    /**
+     * @param sequence number to acknowledge, 0 for the messages that are not acknowledged
+     */
+    static RemoteFrame message(long sequence, Message message) {
+        return new RemoteFrame(Type.MESSAGE, sequence, null, false, message);
+    }
+
+    static RemoteFrame ack(long sequence, boolean accepted) {
+        return new RemoteFrame(Type.ACK, sequence, null, accepted, null);
+    }
+
+    static RemoteFrame backpressure(String lane, boolean overloaded) {
+        return new RemoteFrame(Type.BACKPRESSURE, 0, lane, overloaded, null);
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean getFlag() {
+        return flag;
+    }
+
+    Message getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteFrame{" +
+                "type=" + type +
+                ", sequence=" + sequence +
+                ", name='" + name + '\'' +
+                ", flag=" + flag +
+                ", message=" + message +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package ru.otus.messagesystem.remote;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.codec.MessageToMessageCodec;
+import ru.otus.messagesystem.message.MessageWireFormat;
+
+import java.util.List;
+
+/**
+ * Frames are prefixed with their length by the pipeline, this codec reads and writes the frame itself:
+ * type code, then sequence and message for MESSAGE, sequence and flag for ACK, sequence and name
+ * for REGISTER and UNREGISTER, name and flag for BACKPRESSURE.
+ */
+@ChannelHandler.Sharable
+final class RemoteFrameCodec extends MessageToMessageCodec<ByteBuf, RemoteFrame> {
+    private static final int MAX_FRAME_SIZE = 65 * 1024 * 1024;
+    private static final int LENGTH_FIELD_SIZE = 4;
+    private static final RemoteFrameCodec INSTANCE = new RemoteFrameCodec();
+
+    private RemoteFrameCodec() {
+    }
+
+    static void initPipeline(ChannelPipeline pipeline, ChannelHandler handler) {
+        pipeline.addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_SIZE, 0, LENGTH_FIELD_SIZE, 0, LENGTH_FIELD_SIZE))
+                .addLast(new LengthFieldPrepender(LENGTH_FIELD_SIZE))
+                .addLast(INSTANCE)
+                .addLast(handler);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, RemoteFrame frame, List<Object> out) throws Exception {
+        ByteBuf buf = ctx.alloc().buffer();
+        try {
+            ByteBufOutputStream os = new ByteBufOutputStream(buf);
+            os.writeByte(frame.getType().getCode());
+            switch (frame.getType()) {
+                case MESSAGE:
+                    os.writeLong(frame.getSequence());
+                    MessageWireFormat.write(frame.getMessage(), os);
+                    break;
+                case ACK:
+                    os.writeLong(frame.getSequence());
+                    os.writeBoolean(frame.getFlag());
+                    break;
+                case REGISTER:
+                case UNREGISTER:
+                    os.writeLong(frame.getSequence());
+                    os.writeUTF(frame.getName());
+                    break;
+                default:
+                    os.writeUTF(frame.getName());
+                    os.writeBoolean(frame.getFlag());
+            }
+            out.add(buf);
+        } catch (Exception e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> out) throws Exception {
+        ByteBufInputStream is = new ByteBufInputStream(buf);
+        RemoteFrame.Type type = RemoteFrame.Type.of(is.readByte());
+        if (type == RemoteFrame.Type.MESSAGE) {
+            out.add(RemoteFrame.message(is.readLong(), MessageWireFormat.read(is)));
+            return;
+        }
+        if (type == RemoteFrame.Type.ACK) {
+            out.add(RemoteFrame.ack(is.readLong(), is.readBoolean()));
+            return;
+        }
+        if (type == RemoteFrame.Type.REGISTER) {
+            out.add(RemoteFrame.register(is.readLong(), is.readUTF()));
+        } else if (type == RemoteFrame.Type.UNREGISTER) {
+            out.add(RemoteFrame.unregister(is.readLong(), is.readUTF()));
+        } else {
+            out.add(RemoteFrame.backpressure(is.readUTF(), is.readBoolean()));
+        }
+    }
+}
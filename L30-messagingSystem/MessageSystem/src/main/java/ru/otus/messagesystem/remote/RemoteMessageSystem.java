@@ -0,0 +1,253 @@
+package ru.otus.messagesystem.remote;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.messagesystem.MessageLaneStats;
+import ru.otus.messagesystem.MessageSystem;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.message.JavaPayloadCodec;
+import ru.otus.messagesystem.message.Message;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Message system of a process whose clients live apart from the node, see {@link MessageSystemServer}.
+ * <p>
+ * Messages go to the node, which routes them, so the lanes and their stats are the node ones.
+ * There is a pool of connections, the one for a message is chosen by the destination name and the one
+ * for a client by its name, so the order per destination is kept. At most maxInFlight messages may wait
+ * for the acknowledgement of the node, newMessage returns false beyond that.
+ * <p>
+ * start() waits for the node to acknowledge the registrations of the clients added before it, addClient after
+ * start() waits for its own one, so the node routes to the client once they return. If the node is not reachable
+ * they give up after {@value #REGISTER_TIMEOUT_SEC} seconds, the registration is sent when the connection is up.
+ * <p>
+ * Each local client gets its messages on its own thread in the order of arrival. Messages with Java serialized
+ * payloads are dropped on both sides, register a {@link ru.otus.messagesystem.message.PayloadCodec} for
+ * the payload types.
+ */
+public final class RemoteMessageSystem implements MessageSystem {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteMessageSystem.class);
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    private static final long DISPOSE_TIMEOUT_SEC = 10;
+    private static final long REGISTER_TIMEOUT_SEC = 10;
+
+    private final int maxInFlight;
+    private final Semaphore inFlightPermits;
+    private final NioEventLoopGroup eventLoopGroup;
+    private final RemoteConnection[] connections;
+
+    private final Map<String, MsClient> clientMap = new ConcurrentHashMap<>();
+    private final Map<String, ExecutorService> clientExecutors = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> registrations = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    public RemoteMessageSystem(String host, int port) {
+        this(host, port, DEFAULT_POOL_SIZE, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public RemoteMessageSystem(String host, int port, int poolSize, int maxInFlight) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Illegal pool size: " + poolSize);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Illegal max in flight: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.eventLoopGroup = new NioEventLoopGroup(poolSize);
+        this.connections = new RemoteConnection[poolSize];
+        for (int idx = 0; idx < poolSize; idx++) {
+            connections[idx] = new RemoteConnection(this, eventLoopGroup.next(), host, port);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (RemoteConnection connection : connections) {
+            connection.connect();
+        }
+        started = true;
+        awaitRegistered(registrations.values());
+    }
+
+    @Override
+    public void addClient(MsClient msClient) {
+        logger.info("new client:{}", msClient.getName());
+        String clientName = msClient.getName();
+        if (clientMap.putIfAbsent(clientName, msClient) != null) {
+            throw new IllegalArgumentException("Error. client: " + clientName + " already exists");
+        }
+        clientExecutors.put(clientName, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("remote-client-" + clientName);
+            return thread;
+        }));
+        CompletableFuture<Void> registered = connectionFor(clientName).register(clientName);
+        registrations.put(clientName, registered);
+        if (started) {
+            awaitRegistered(List.of(registered));
+        }
+    }
+
+    @Override
+    public void removeClient(String clientId) {
+        MsClient removedClient = clientMap.remove(clientId);
+        if (removedClient == null) {
+            logger.warn("client not found: {}", clientId);
+            return;
+        }
+        registrations.remove(clientId);
+        connectionFor(clientId).unregister(clientId);
+        ExecutorService executor = clientExecutors.remove(clientId);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        logger.info("removed client:{}", removedClient);
+    }
+
+    @Override
+    public boolean newMessage(Message msg) {
+        if (!inFlightPermits.tryAcquire()) {
+            logger.warn("too many unacknowledged messages, rejected:{}", msg);
+            return false;
+        }
+        connectionFor(msg.getTo()).send(msg);
+        return true;
+    }
+
+    @Override
+    public boolean newMessage(Message msg, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!inFlightPermits.tryAcquire(timeout, unit)) {
+            logger.warn("too many unacknowledged messages, rejected:{}", msg);
+            return false;
+        }
+        connectionFor(msg.getTo()).send(msg);
+        return true;
+    }
+
+    @Override
+    public void dispose() throws InterruptedException {
+        dispose(null);
+    }
+
+    @Override
+    public void dispose(Runnable callback) throws InterruptedException {
+        if (!inFlightPermits.tryAcquire(maxInFlight, DISPOSE_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+            logger.warn("disposed with {} unacknowledged messages", currentQueueSize());
+        }
+        for (RemoteConnection connection : connections) {
+            connection.close();
+        }
+        eventLoopGroup.shutdownGracefully().sync();
+        for (ExecutorService executor : clientExecutors.values()) {
+            executor.shutdown();
+            executor.awaitTermination(DISPOSE_TIMEOUT_SEC, TimeUnit.SECONDS);
+        }
+        if (callback != null) {
+            callback.run();
+        }
+        logger.info("remote message system has been disposed");
+    }
+
+    /**
+     * Number of messages waiting for the acknowledgement of the node
+     */
+    @Override
+    public int currentQueueSize() {
+        int size = 0;
+        for (RemoteConnection connection : connections) {
+            size += connection.inFlightCount();
+        }
+        return size;
+    }
+
+    /**
+     * The lanes belong to the node, see its message system
+     */
+    @Override
+    public List<MessageLaneStats> laneStats() {
+        return List.of();
+    }
+
+    void acknowledged() {
+        inFlightPermits.release();
+    }
+
+    void deliver(Message msg) {
+        if (msg.getCodecId() == JavaPayloadCodec.ID) {
+            logger.warn("Java serialized payload from the node, dropped:{}", msg);
+            return;
+        }
+        MsClient clientTo = msg.getTo() == null ? null : clientMap.get(msg.getTo());
+        ExecutorService executor = clientTo == null ? null : clientExecutors.get(msg.getTo());
+        if (executor == null) {
+            logger.warn("client not found");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    clientTo.handle(msg);
+                } catch (Exception ex) {
+                    logger.error(ex.getMessage(), ex);
+                    logger.error("message:{}", msg);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("client {} has been removed, dropped:{}", msg.getTo(), msg);
+        }
+    }
+
+    /**
+     * The node has not accepted the message, its sender is told on its own thread
+     */
+    void rejected(Message msg) {
+        MsClient sender = msg.getFrom() == null ? null : clientMap.get(msg.getFrom());
+        ExecutorService executor = sender == null ? null : clientExecutors.get(msg.getFrom());
+        if (executor == null) {
+            logger.warn("the node rejected a message of an unknown client:{}", msg);
+            return;
+        }
+        try {
+            executor.execute(() -> sender.onRejected(msg));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("client {} has been removed, the node rejected:{}", msg.getFrom(), msg);
+        }
+    }
+
+    void backpressure(String lane, boolean overloaded) {
+        clientMap.values().forEach(client -> client.onBackpressure(lane, overloaded));
+    }
+
+    private void awaitRegistered(Collection<CompletableFuture<Void>> pending) {
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                    .get(REGISTER_TIMEOUT_SEC, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            logger.error("the node has refused the clients registration: {}", ex.getCause().getMessage());
+        } catch (TimeoutException ex) {
+            logger.warn("the node has not acknowledged the clients registration in {} sec", REGISTER_TIMEOUT_SEC);
+        }
+    }
+
+    private RemoteConnection connectionFor(String name) {
+        int hash = name == null ? 0 : name.hashCode();
+        return connections[Math.floorMod(hash ^ (hash >>> 16), connections.length)];
+    }
+}
@@ -0,0 +1,113 @@
+package ru.otus.messagesystem.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.messagesystem.client.MessageCallback;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.ResultDataType;
+import ru.otus.messagesystem.message.Message;
+import ru.otus.messagesystem.message.MessageType;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in the node message system for a client living in another process and forwards its messages
+ * to the connection the client registered from. While the process is reconnecting the messages are kept,
+ * up to maxPending, the oldest ones are dropped beyond that.
+ */
+final class RemoteMsClient implements MsClient {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteMsClient.class);
+
+    private final String name;
+    private final int maxPending;
+
+    // guarded by this
+    private final Deque<Message> pending = new ArrayDeque<>();
+    private FrameWriter writer;
+
+    RemoteMsClient(String name, int maxPending) {
+        this.name = name;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Binds the client to the connection unless it is bound to another live one
+     *
+     * @return false if the name is taken
+     */
+    synchronized boolean bindIfFree(FrameWriter writer) {
+        if (this.writer != null && this.writer != writer && this.writer.isActive()) {
+            return false;
+        }
+        this.writer = writer;
+        Message msg;
+        while ((msg = pending.poll()) != null) {
+            writer.write(RemoteFrame.message(0, msg));
+        }
+        return true;
+    }
+
+    synchronized boolean isBoundTo(FrameWriter writer) {
+        return this.writer == writer;
+    }
+
+    synchronized void unbind(FrameWriter writer) {
+        if (this.writer == writer) {
+            this.writer = null;
+        }
+    }
+
+    @Override
+    public synchronized void handle(Message msg) {
+        if (writer != null) {
+            writer.write(RemoteFrame.message(0, msg));
+            return;
+        }
+        if (pending.size() == maxPending) {
+            logger.warn("client {} is disconnected, dropped:{}", name, pending.poll());
+        }
+        pending.add(msg);
+    }
+
+    @Override
+    public synchronized void onBackpressure(String lane, boolean overloaded) {
+        if (writer != null) {
+            writer.write(RemoteFrame.backpressure(lane, overloaded));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean sendMessage(Message msg) {
+        throw new UnsupportedOperationException("remote client " + name + " sends from its own process");
+    }
+
+    @Override
+    public boolean sendMessage(Message msg, long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("remote client " + name + " sends from its own process");
+    }
+
+    @Override
+    public boolean isBackpressured() {
+        return false;
+    }
+
+    @Override
+    public <T extends ResultDataType> Message produceMessage(String to, T data, MessageType msgType,
+                                                                MessageCallback<T> callback) {
+        throw new UnsupportedOperationException("remote client " + name + " sends from its own process");
+    }
+
+    @Override
+    public <T extends ResultDataType, R extends ResultDataType> CompletableFuture<R> request(
+            String to, T data, MessageType msgType, long timeout, TimeUnit unit) {
+        throw new UnsupportedOperationException("remote client " + name + " sends from its own process");
+    }
+}
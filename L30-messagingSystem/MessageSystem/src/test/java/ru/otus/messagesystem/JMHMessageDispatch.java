@@ -0,0 +1,140 @@
+package ru.otus.messagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.messagesystem.client.MessageCallback;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.ResultDataType;
+import ru.otus.messagesystem.message.Message;
+import ru.otus.messagesystem.message.MessageBuilder;
+import ru.otus.messagesystem.message.MessageType;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messages per second through MessageSystemImpl depending on the number of shards.
+ * Every message goes to one of CLIENTS clients whose handler burns HANDLER_TOKENS of CPU,
+ * so with enough cores the throughput grows with the shard count until the processor thread is the limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMHMessageDispatch {
+    private static final int CLIENTS = 16;
+    private static final int MESSAGES = 100_000;
+    private static final long HANDLER_TOKENS = 200;
+
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    private final AtomicLong handled = new AtomicLong();
+    private MessageSystem messageSystem;
+    private Message[] messages;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHMessageDispatch.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        messageSystem = new MessageSystemImpl(List.of(
+                MessageLaneConfig.newBuilder("lane").setCapacity(MESSAGES).build()),
+                Message::getType, shards, true);
+        for (int idx = 0; idx < CLIENTS; idx++) {
+            messageSystem.addClient(new CountingClient("client" + idx, handled));
+        }
+        messages = new Message[MESSAGES];
+        for (int idx = 0; idx < MESSAGES; idx++) {
+            messages[idx] = MessageBuilder.buildMessage("producer", "client" + idx % CLIENTS, null,
+                    new ResultDataType(), MessageType.USER_DATA);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        messageSystem.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long dispatch() {
+        long expected = handled.get() + MESSAGES;
+        for (Message message : messages) {
+            messageSystem.newMessage(message);
+        }
+        while (handled.get() < expected) {
+            Thread.onSpinWait();
+        }
+        return expected;
+    }
+
+    private static final class CountingClient implements MsClient {
+        private final String name;
+        private final AtomicLong handled;
+
+        private CountingClient(String name, AtomicLong handled) {
+            this.name = name;
+            this.handled = handled;
+        }
+
+        @Override
+        public boolean sendMessage(Message msg) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean sendMessage(Message msg, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBackpressure(String lane, boolean overloaded) {
+        }
+
+        @Override
+        public boolean isBackpressured() {
+            return false;
+        }
+
+        @Override
+        public void handle(Message msg) {
+            Blackhole.consumeCPU(HANDLER_TOKENS);
+            handled.incrementAndGet();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public <T extends ResultDataType> Message produceMessage(String to, T data, MessageType msgType,
+                                                                 MessageCallback<T> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends ResultDataType, R extends ResultDataType> CompletableFuture<R> request(
+                String to, T data, MessageType msgType, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.otus.messagesystem;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.ResultDataType;
+import ru.otus.messagesystem.message.Message;
+import ru.otus.messagesystem.message.MessageBuilder;
+import ru.otus.messagesystem.message.MessageId;
+import ru.otus.messagesystem.message.MessageType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageSystemImplTest {
+    private static final String CLIENT_NAME = "client";
+
+    @Test
+    @DisplayName("Полосы обслуживаются пропорционально весу")
+    void weightedDispatch() throws Exception {
+        MessageSystem messageSystem = new MessageSystemImpl(List.of(
+                MessageLaneConfig.newBuilder("light").setCapacity(100).build(),
+                MessageLaneConfig.newBuilder("heavy").setCapacity(100).setWeight(3).build()),
+                Message::getFrom, false);
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch handledLatch = new CountDownLatch(80);
+        messageSystem.addClient(client(msg -> {
+            handled.add(msg.getFrom());
+            handledLatch.countDown();
+        }));
+
+        for (int idx = 0; idx < 40; idx++) {
+            messageSystem.newMessage(message("heavy"));
+            messageSystem.newMessage(message("light"));
+        }
+        assertThat(messageSystem.currentQueueSize()).isEqualTo(80);
+
+        messageSystem.start();
+        assertThat(handledLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        messageSystem.dispose();
+
+        // 3 к 1, а сообщения одному клиенту обрабатываются по порядку
+        long heavyFirst = handled.subList(0, 20).stream().filter("heavy"::equals).count();
+        assertThat(heavyFirst).isEqualTo(15);
+    }
+
+    @Test
+    @DisplayName("Каждый клиент получает свои сообщения по порядку и в одном потоке")
+    void perClientOrdering() throws Exception {
+        int clients = 4;
+        int messagesPerClient = 5_000;
+        MessageSystem messageSystem = new MessageSystemImpl(List.of(
+                MessageLaneConfig.newBuilder("lane").setCapacity(clients * messagesPerClient).build()),
+                Message::getType, 2, true);
+        CountDownLatch handledLatch = new CountDownLatch(clients * messagesPerClient);
+        List<List<MessageId>> sent = new ArrayList<>();
+        List<List<MessageId>> handled = new ArrayList<>();
+        List<Set<String>> handlerThreads = new ArrayList<>();
+        for (int clientIdx = 0; clientIdx < clients; clientIdx++) {
+            List<MessageId> handledByClient = new ArrayList<>();
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            handled.add(handledByClient);
+            handlerThreads.add(threads);
+            messageSystem.addClient(client(CLIENT_NAME + clientIdx, msg -> {
+                handledByClient.add(msg.getId());
+                threads.add(Thread.currentThread().getName());
+                handledLatch.countDown();
+            }));
+        }
+
+        List<Thread> producers = new ArrayList<>();
+        for (int clientIdx = 0; clientIdx < clients; clientIdx++) {
+            List<MessageId> sentToClient = new ArrayList<>();
+            sent.add(sentToClient);
+            String to = CLIENT_NAME + clientIdx;
+            Thread producer = new Thread(() -> {
+                for (int idx = 0; idx < messagesPerClient; idx++) {
+                    Message msg = message("producer", to);
+                    sentToClient.add(msg.getId());
+                    messageSystem.newMessage(msg);
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertThat(handledLatch.await(10, TimeUnit.SECONDS)).isTrue();
+        messageSystem.dispose();
+
+        for (int clientIdx = 0; clientIdx < clients; clientIdx++) {
+            assertThat(handled.get(clientIdx)).isEqualTo(sent.get(clientIdx));
+            assertThat(handlerThreads.get(clientIdx)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Переполненная полоса отклоняет, вытесняет старое или пишет на диск")
+    void overflowPolicies(@TempDir Path spillDirectory) throws Exception {
+        MessageSystem messageSystem = new MessageSystemImpl(List.of(
+                MessageLaneConfig.newBuilder("reject").setCapacity(2).build(),
+                MessageLaneConfig.newBuilder("drop").setCapacity(2)
+                        .setOverflowPolicy(OverflowPolicy.DROP_OLDEST).build(),
+                MessageLaneConfig.newBuilder("spill").setCapacity(2)
+                        .setOverflowPolicy(OverflowPolicy.SPILL_TO_DISK).setSpillDirectory(spillDirectory).build()),
+                Message::getFrom, false);
+        CountDownLatch handledLatch = new CountDownLatch(9);
+        messageSystem.addClient(client(msg -> handledLatch.countDown()));
+
+        assertThat(messageSystem.newMessage(message("reject"))).isTrue();
+        assertThat(messageSystem.newMessage(message("reject"))).isTrue();
+        assertThat(messageSystem.newMessage(message("reject"))).isFalse();
+        assertThat(messageSystem.newMessage(message("reject"), 50, TimeUnit.MILLISECONDS)).isFalse();
+        for (int idx = 0; idx < 3; idx++) {
+            assertThat(messageSystem.newMessage(message("drop"))).isTrue();
+        }
+        for (int idx = 0; idx < 5; idx++) {
+            assertThat(messageSystem.newMessage(message("spill"))).isTrue();
+        }
+
+        List<MessageLaneStats> stats = messageSystem.laneStats();
+        assertThat(stats.get(0).getRejected()).isEqualTo(2);
+        assertThat(stats.get(1).getDropped()).isEqualTo(1);
+        assertThat(stats.get(2).getSpilled()).isEqualTo(3);
+        assertThat(messageSystem.currentQueueSize()).isEqualTo(9);
+
+        messageSystem.start();
+        assertThat(handledLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        CountDownLatch disposed = new CountDownLatch(1);
+        messageSystem.dispose(disposed::countDown);
+        assertThat(disposed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(messageSystem.laneStats().get(2).getDispatched()).isEqualTo(5);
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Клиенты узнают о перегрузке полосы и о ее окончании")
+    void backpressureSignal() throws Exception {
+        MessageSystem messageSystem = new MessageSystemImpl(List.of(
+                MessageLaneConfig.newBuilder("lane").setCapacity(10).setWatermarks(4, 1).build()),
+                Message::getFrom, false);
+        CountDownLatch handledLatch = new CountDownLatch(5);
+        MsClient client = client(msg -> handledLatch.countDown());
+        messageSystem.addClient(client);
+
+        for (int idx = 0; idx < 5; idx++) {
+            messageSystem.newMessage(message("lane"));
+        }
+        verify(client).onBackpressure("lane", true);
+
+        messageSystem.start();
+        assertThat(handledLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        messageSystem.dispose();
+        verify(client).onBackpressure("lane", false);
+    }
+
+    private static MsClient client(Consumer<Message> handler) {
+        return client(CLIENT_NAME, handler);
+    }
+
+    private static MsClient client(String name, Consumer<Message> handler) {
+        MsClient client = mock(MsClient.class);
+        when(client.getName()).thenReturn(name);
+        doAnswer(invocation -> {
+            handler.accept(invocation.getArgument(0));
+            return null;
+        }).when(client).handle(any(Message.class));
+        return client;
+    }
+
+    private static Message message(String from) {
+        return message(from, CLIENT_NAME);
+    }
+
+    private static Message message(String from, String to) {
+        return MessageBuilder.buildMessage(from, to, null, new ResultDataType(), MessageType.USER_DATA);
+    }
+}
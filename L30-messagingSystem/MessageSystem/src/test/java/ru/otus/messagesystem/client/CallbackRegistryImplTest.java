@@ -0,0 +1,87 @@
+package ru.otus.messagesystem.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallbackRegistryImplTest {
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 64);
+    private final CallbackRegistry registry = new CallbackRegistryImpl(timer, Duration.ofSeconds(30));
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    @DisplayName("Колбэк без ответа удаляется по таймауту и получает ошибку")
+    void timeout() throws Exception {
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        CallbackId callbackId = new CallbackId(1, 1);
+
+        registry.put(callbackId, new MessageCallback<>() {
+            @Override
+            public void accept(ResultDataType resultDataType) {
+                error.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(error.get(5, TimeUnit.SECONDS)).isInstanceOf(CallbackTimeoutException.class);
+        assertThat(registry.getAndRemove(callbackId)).isNull();
+        CallbackRegistryStats stats = registry.stats();
+        assertThat(stats.getPending()).isZero();
+        assertThat(stats.getTimedOut()).isEqualTo(1);
+        assertThat(stats.timeoutRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Колбэк с ответом не получает ошибку по таймауту")
+    void completedBeforeTimeout() throws Exception {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CallbackId callbackId = new CallbackId(1, 2);
+        registry.put(callbackId, new MessageCallback<>() {
+            @Override
+            public void accept(ResultDataType resultDataType) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        assertThat(registry.stats().getPending()).isEqualTo(1);
+
+        assertThat(registry.getAndRemove(callbackId)).isNotNull();
+        Thread.sleep(200);
+
+        assertThat(error.get()).isNull();
+        CallbackRegistryStats stats = registry.stats();
+        assertThat(stats.getCompleted()).isEqualTo(1);
+        assertThat(stats.getTimedOut()).isZero();
+    }
+
+    @Test
+    @DisplayName("Таймауты дальше одного оборота колеса срабатывают вовремя")
+    void timeoutAfterSeveralRounds() throws Exception {
+        CompletableFuture<Long> firedAt = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        // колесо 64 * 10мс, таймаут на два оборота дальше
+        timer.newTimeout(() -> firedAt.complete(System.nanoTime()), 1500, TimeUnit.MILLISECONDS);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(firedAt.get(5, TimeUnit.SECONDS) - start);
+        assertThat(elapsedMillis).isBetween(1500L, 1700L);
+    }
+}
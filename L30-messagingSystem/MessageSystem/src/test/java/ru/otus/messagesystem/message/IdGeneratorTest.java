@@ -0,0 +1,64 @@
+package ru.otus.messagesystem.message;
+
+import org.junit.jupiter.api.Test;
+import ru.otus.messagesystem.client.CallbackId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdGeneratorTest {
+
+    @Test
+    void uniqueIdsFromManyThreads() throws InterruptedException {
+        int threads = 8;
+        int idsPerThread = 10_000;
+        Set<MessageId> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> generators = new ArrayList<>();
+        for (int idx = 0; idx < threads; idx++) {
+            Thread generator = new Thread(() -> {
+                for (int count = 0; count < idsPerThread; count++) {
+                    ids.add(IdGenerator.nextMessageId());
+                }
+            });
+            generators.add(generator);
+            generator.start();
+        }
+        for (Thread generator : generators) {
+            generator.join();
+        }
+
+        assertThat(ids).hasSize(threads * idsPerThread);
+        assertThat(ids).allMatch(id -> id.getHigh() == IdGenerator.nodePrefix());
+    }
+
+    @Test
+    void startTimeFitsNodePrefix() {
+        long startTime = IdGenerator.nodePrefix() >>> IdGenerator.RANDOM_BITS;
+
+        assertThat(startTime).isBetween(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1),
+                System.currentTimeMillis());
+    }
+
+    @Test
+    void stringForm() {
+        String uuid = UUID.randomUUID().toString();
+
+        assertThat(new MessageId(uuid).getId()).isEqualTo(uuid);
+        assertThat(new MessageId(uuid)).isEqualTo(new MessageId(uuid));
+        assertThat(new CallbackId(uuid).getId()).isEqualTo(uuid);
+    }
+
+    @Test
+    void callbackIdOfMessage() {
+        Message msg = MessageBuilder.buildMessage("from", "to", null, new TestData(1, "str", 2), MessageType.USER_DATA);
+
+        assertThat(msg.getCallbackId()).isEqualTo(CallbackId.of(msg.getId()));
+        assertThat(msg.getCallbackId().getId()).isEqualTo(msg.getId().getId());
+    }
+}
@@ -11,7 +11,7 @@ class MessageHelperTest {
     @Test
     void serializeDeSerializeMessage() {
         Message msgExpected = new Message(new MessageId(UUID.randomUUID().toString()), "from", "to",
-                new MessageId(UUID.randomUUID().toString()), "type",
+                new MessageId(UUID.randomUUID().toString()), "type", JavaPayloadCodec.ID,
                 new byte[12], new CallbackId(UUID.randomUUID().toString()));
 
         byte[] data = MessageHelper.serializeMessage(msgExpected);
@@ -23,6 +23,7 @@ class MessageHelperTest {
         assertThat(msg.getTo()).isEqualTo(msgExpected.getTo());
         assertThat(msg.getSourceMessageId()).isEqualTo(msgExpected.getSourceMessageId());
         assertThat(msg.getType()).isEqualTo(msgExpected.getType());
+        assertThat(msg.getCodecId()).isEqualTo(msgExpected.getCodecId());
         assertThat(msg.getPayload()).isEqualTo(msgExpected.getPayload());
         assertThat(msg.getCallbackId()).isEqualTo(msgExpected.getCallbackId());
     }
@@ -0,0 +1,95 @@
+package ru.otus.messagesystem.message;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadCodecsTest {
+
+    @Test
+    void javaSerializationFallback() {
+        TestData testData = new TestData(1, "str", 2);
+
+        Message msg = MessageBuilder.buildMessage("from", "to", null, testData, MessageType.USER_DATA);
+
+        assertThat(msg.getCodecId()).isEqualTo(JavaPayloadCodec.ID);
+        TestData payload = MessageHelper.getPayload(msg);
+        assertThat(payload).isEqualTo(testData);
+    }
+
+    @Test
+    void registeredCodec() {
+        PayloadCodecs.register(new BinaryTestDataCodec());
+        BinaryTestData testData = new BinaryTestData(1, "x".repeat(100_000), 2);
+
+        Message msg = MessageBuilder.buildMessage("from", "to", null, testData, MessageType.USER_DATA);
+
+        // буфер кодирования вырос под большую строку
+        assertThat(msg.getCodecId()).isEqualTo(BinaryTestDataCodec.ID);
+        assertThat(msg.getPayload()).hasSize(100_000 + 12);
+        BinaryTestData payload = MessageHelper.getPayload(msg);
+        assertThat(payload).isEqualTo(testData);
+    }
+
+    @Test
+    void secondCodecForTypeIsRejected() {
+        PayloadCodecs.register(new BinaryTestDataCodec());
+
+        assertThatThrownBy(() -> PayloadCodecs.register(new OtherBinaryTestDataCodec()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(PayloadCodecs.codecFor(new BinaryTestData(1, "str", 2))).isInstanceOf(BinaryTestDataCodec.class);
+    }
+
+    @Test
+    void unknownCodec() {
+        assertThatThrownBy(() -> PayloadCodecs.decode((byte) 99, new byte[1])).isInstanceOf(SerializerError.class);
+    }
+
+    private static class BinaryTestData extends TestData {
+        BinaryTestData(int x, String str, int y) {
+            super(x, str, y);
+        }
+    }
+
+    private static class BinaryTestDataCodec implements PayloadCodec<BinaryTestData> {
+        private static final byte ID = 100;
+
+        @Override
+        public byte getId() {
+            return ID;
+        }
+
+        @Override
+        public Class<BinaryTestData> getType() {
+            return BinaryTestData.class;
+        }
+
+        @Override
+        public void encode(BinaryTestData data, ByteBuffer target) {
+            byte[] str = data.str.getBytes(StandardCharsets.UTF_8);
+            target.putInt(data.x).putInt(data.y).putInt(str.length).put(str);
+        }
+
+        @Override
+        public BinaryTestData decode(ByteBuffer source) {
+            int x = source.getInt();
+            int y = source.getInt();
+            byte[] str = new byte[source.getInt()];
+            source.get(str);
+            return new BinaryTestData(x, new String(str, StandardCharsets.UTF_8), y);
+        }
+    }
+
+    private static class OtherBinaryTestDataCodec extends BinaryTestDataCodec {
+        private static final byte ID = 101;
+
+        @Override
+        public byte getId() {
+            return ID;
+        }
+    }
+}
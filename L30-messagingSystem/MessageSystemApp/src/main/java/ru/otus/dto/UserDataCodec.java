@@ -0,0 +1,53 @@
+package ru.otus.dto;
+
+import ru.otus.messagesystem.message.PayloadCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-written binary format: userId, data length (-1 for null) and data in UTF-8
+ */
+public class UserDataCodec implements PayloadCodec<UserData> {
+    public static final byte ID = 1;
+    private static final int NULL_LENGTH = -1;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public Class<UserData> getType() {
+        return UserData.class;
+    }
+
+    @Override
+    public void encode(UserData data, ByteBuffer target) {
+        target.putLong(data.getUserId());
+        if (data.getData() == null) {
+            target.putInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = data.getData().getBytes(StandardCharsets.UTF_8);
+            target.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    @Override
+    public UserData decode(ByteBuffer source) {
+        long userId = source.getLong();
+        int length = source.getInt();
+        if (length == NULL_LENGTH) {
+            return new UserData(userId);
+        }
+        if (!source.hasArray()) {
+            byte[] bytes = new byte[length];
+            source.get(bytes);
+            return new UserData(userId, new String(bytes, StandardCharsets.UTF_8));
+        }
+        String data = new String(source.array(), source.arrayOffset() + source.position(), length,
+                StandardCharsets.UTF_8);
+        source.position(source.position() + length);
+        return new UserData(userId, data);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.otus.dto;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import ru.otus.dto.proto.UserDataProto;
+import ru.otus.messagesystem.message.PayloadCodec;
+import ru.otus.messagesystem.message.SerializerError;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Protobuf format for the clients written in other languages, see userData.proto
+ */
+public class UserDataProtoCodec implements PayloadCodec<UserData> {
+    public static final byte ID = 2;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public Class<UserData> getType() {
+        return UserData.class;
+    }
+
+    @Override
+    public void encode(UserData data, ByteBuffer target) {
+        UserDataProto.UserDataMessage.Builder builder = UserDataProto.UserDataMessage.newBuilder()
+                .setUserId(data.getUserId());
+        if (data.getData() != null) {
+            builder.setData(data.getData());
+        }
+        UserDataProto.UserDataMessage message = builder.build();
+        if (message.getSerializedSize() > target.remaining()) {
+            throw new BufferOverflowException();
+        }
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(target);
+            message.writeTo(output);
+            output.flush();
+        } catch (IOException e) {
+            throw new SerializerError("Serialization error", e);
+        }
+    }
+
+    @Override
+    public UserData decode(ByteBuffer source) {
+        try {
+            UserDataProto.UserDataMessage message = UserDataProto.UserDataMessage.parseFrom(source);
+            return message.getDataValueCase() == UserDataProto.UserDataMessage.DataValueCase.DATA
+                    ? new UserData(message.getUserId(), message.getData())
+                    : new UserData(message.getUserId());
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializerError("DeSerialization error", e);
+        }
+    }
+}
@@ -3,7 +3,12 @@ package ru.otus.front;
 import ru.otus.dto.UserData;
 import ru.otus.messagesystem.client.MessageCallback;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 public interface FrontendService {
     void getUserData(long userId, MessageCallback<UserData> dataConsumer);
+
+    CompletableFuture<UserData> getUserData(long userId, long timeout, TimeUnit unit);
 }
 
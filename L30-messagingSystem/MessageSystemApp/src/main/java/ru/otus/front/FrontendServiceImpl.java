@@ -6,6 +6,9 @@ import ru.otus.messagesystem.message.Message;
 import ru.otus.messagesystem.message.MessageType;
 import ru.otus.messagesystem.client.MsClient;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 
 public class FrontendServiceImpl implements FrontendService {
 
@@ -23,4 +26,9 @@ public class FrontendServiceImpl implements FrontendService {
                 MessageType.USER_DATA, dataConsumer);
         msClient.sendMessage(outMsg);
     }
+
+    @Override
+    public CompletableFuture<UserData> getUserData(long userId, long timeout, TimeUnit unit) {
+        return msClient.request(databaseServiceClientName, new UserData(userId), MessageType.USER_DATA, timeout, unit);
+    }
 }
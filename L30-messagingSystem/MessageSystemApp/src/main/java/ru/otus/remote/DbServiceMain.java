@@ -0,0 +1,42 @@
+package ru.otus.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.db.DBServiceImpl;
+import ru.otus.db.handlers.GetUserDataRequestHandler;
+import ru.otus.messagesystem.HandlersStore;
+import ru.otus.messagesystem.HandlersStoreImpl;
+import ru.otus.messagesystem.MessageSystem;
+import ru.otus.messagesystem.client.CallbackRegistryImpl;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.MsClientImpl;
+import ru.otus.messagesystem.message.MessageType;
+import ru.otus.messagesystem.remote.RemoteMessageSystem;
+
+/**
+ * The database service in its own process, connects to {@link FrontendNodeMain} on localhost
+ */
+public class DbServiceMain {
+    private static final Logger logger = LoggerFactory.getLogger(DbServiceMain.class);
+
+    public static void main(String[] args) throws Exception {
+        MessageSystem messageSystem = new RemoteMessageSystem("localhost", FrontendNodeMain.PORT);
+        messageSystem.start();
+
+        HandlersStore requestHandlerDatabaseStore = new HandlersStoreImpl();
+        requestHandlerDatabaseStore.addHandler(MessageType.USER_DATA, new GetUserDataRequestHandler(new DBServiceImpl()));
+        MsClient databaseMsClient = new MsClientImpl(FrontendNodeMain.DATABASE_SERVICE_CLIENT_NAME,
+                messageSystem, requestHandlerDatabaseStore, new CallbackRegistryImpl());
+        messageSystem.addClient(databaseMsClient);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                messageSystem.dispose();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            logger.info("done");
+        }));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.otus.remote;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.otus.front.FrontendService;
+import ru.otus.front.FrontendServiceImpl;
+import ru.otus.front.handlers.GetUserDataResponseHandler;
+import ru.otus.messagesystem.HandlersStore;
+import ru.otus.messagesystem.HandlersStoreImpl;
+import ru.otus.messagesystem.MessageSystem;
+import ru.otus.messagesystem.MessageSystemImpl;
+import ru.otus.messagesystem.client.CallbackRegistry;
+import ru.otus.messagesystem.client.CallbackRegistryImpl;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.MsClientImpl;
+import ru.otus.messagesystem.message.MessageType;
+import ru.otus.messagesystem.remote.MessageSystemServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The node with the frontend, the database service runs in another process, see {@link DbServiceMain}
+ */
+public class FrontendNodeMain {
+    private static final Logger logger = LoggerFactory.getLogger(FrontendNodeMain.class);
+
+    static final int PORT = 8090;
+    static final String FRONTEND_SERVICE_CLIENT_NAME = "frontendService";
+    static final String DATABASE_SERVICE_CLIENT_NAME = "databaseService";
+
+    public static void main(String[] args) throws Exception {
+        MessageSystem messageSystem = new MessageSystemImpl();
+        CallbackRegistry callbackRegistry = new CallbackRegistryImpl();
+
+        HandlersStore requestHandlerFrontendStore = new HandlersStoreImpl();
+        requestHandlerFrontendStore.addHandler(MessageType.USER_DATA, new GetUserDataResponseHandler(callbackRegistry));
+        MsClient frontendMsClient = new MsClientImpl(FRONTEND_SERVICE_CLIENT_NAME,
+                messageSystem, requestHandlerFrontendStore, callbackRegistry);
+        FrontendService frontendService = new FrontendServiceImpl(frontendMsClient, DATABASE_SERVICE_CLIENT_NAME);
+        messageSystem.addClient(frontendMsClient);
+
+        try (MessageSystemServer server = new MessageSystemServer(messageSystem, PORT)) {
+            server.start();
+            for (long id = 1; id <= 10; id++) {
+                frontendService.getUserData(id, 10, TimeUnit.SECONDS)
+                        .whenComplete((data, ex) -> logger.info("got data:{}, error:{}", data, ex));
+                Thread.sleep(1000);
+            }
+        }
+        messageSystem.dispose();
+        logger.info("done");
+    }
+}
@@ -0,0 +1,58 @@
+package ru.otus.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.messagesystem.message.JavaPayloadCodec;
+import ru.otus.messagesystem.message.PayloadCodec;
+import ru.otus.messagesystem.message.PayloadCodecs;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode + decode of UserData with every codec.
+ * Run with -prof gc to compare the allocations as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JMHUserDataCodecs {
+
+    private final PayloadCodec<UserData> binaryCodec = new UserDataCodec();
+    private final PayloadCodec<UserData> protoCodec = new UserDataProtoCodec();
+    private final PayloadCodec<Object> javaCodec = new JavaPayloadCodec();
+    private UserData userData;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHUserDataCodecs.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        userData = new UserData(42, "data for user 42");
+    }
+
+    @Benchmark
+    public Object binaryCodec() {
+        return PayloadCodecs.decode(binaryCodec.getId(), PayloadCodecs.encode(binaryCodec, userData));
+    }
+
+    @Benchmark
+    public Object protoCodec() {
+        return PayloadCodecs.decode(protoCodec.getId(), PayloadCodecs.encode(protoCodec, userData));
+    }
+
+    @Benchmark
+    public Object javaCodec() {
+        return PayloadCodecs.decode(javaCodec.getId(), PayloadCodecs.encode(javaCodec, userData));
+    }
+}
@@ -0,0 +1,51 @@
+package ru.otus.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.otus.messagesystem.message.Message;
+import ru.otus.messagesystem.message.MessageBuilder;
+import ru.otus.messagesystem.message.MessageHelper;
+import ru.otus.messagesystem.message.MessageType;
+import ru.otus.messagesystem.message.PayloadCodec;
+import ru.otus.messagesystem.message.PayloadCodecs;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDataCodecsTest {
+
+    static Stream<Arguments> codecs() {
+        return Stream.of(
+                Arguments.of(new UserDataCodec(), new UserData(1, "данные пользователя")),
+                Arguments.of(new UserDataCodec(), new UserData(2)),
+                Arguments.of(new UserDataProtoCodec(), new UserData(3, "данные пользователя")),
+                Arguments.of(new UserDataProtoCodec(), new UserData(4)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("codecs")
+    @DisplayName("Данные пользователя кодируются и декодируются без потерь")
+    void encodeDecode(PayloadCodec<UserData> codec, UserData userData) {
+        byte[] bytes = PayloadCodecs.encode(codec, userData);
+
+        UserData decoded = (UserData) PayloadCodecs.decode(codec.getId(), bytes);
+
+        assertThat(decoded.getUserId()).isEqualTo(userData.getUserId());
+        assertThat(decoded.getData()).isEqualTo(userData.getData());
+    }
+
+    @Test
+    @DisplayName("Кодек для UserData находится через ServiceLoader и записывается в заголовок сообщения")
+    void codecFromServiceLoader() {
+        Message msg = MessageBuilder.buildMessage("from", "to", null, new UserData(1, "data"),
+                MessageType.USER_DATA);
+
+        assertThat(msg.getCodecId()).isEqualTo(UserDataCodec.ID);
+        UserData decoded = MessageHelper.getPayload(msg);
+        assertThat(decoded.getData()).isEqualTo("data");
+    }
+}
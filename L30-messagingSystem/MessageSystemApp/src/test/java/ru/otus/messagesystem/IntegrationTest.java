@@ -5,22 +5,27 @@ import org.junit.jupiter.api.RepeatedTest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.otus.db.DBService;
+import ru.otus.dto.UserData;
 import ru.otus.db.handlers.GetUserDataRequestHandler;
 import ru.otus.front.FrontendService;
 import ru.otus.front.FrontendServiceImpl;
 import ru.otus.front.handlers.GetUserDataResponseHandler;
 import ru.otus.messagesystem.client.CallbackRegistry;
 import ru.otus.messagesystem.client.CallbackRegistryImpl;
+import ru.otus.messagesystem.client.CallbackTimeoutException;
 import ru.otus.messagesystem.client.MsClient;
 import ru.otus.messagesystem.client.MsClientImpl;
 import ru.otus.messagesystem.message.Message;
 import ru.otus.messagesystem.message.MessageType;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -36,6 +41,7 @@ class IntegrationTest {
     private MessageSystem messageSystem;
     private FrontendService frontendService;
     private MsClient frontendMsClient;
+    private CallbackRegistry callbackRegistry;
 
     @DisplayName("Базовый сценарий получения данных")
     @RepeatedTest(1000)
@@ -55,6 +61,32 @@ class IntegrationTest {
         logger.info("done");
     }
 
+    @DisplayName("Запрос с ожиданием ответа через CompletableFuture")
+    @RepeatedTest(2)
+    void getDataWithFuture() throws Exception {
+        createMessageSystem(true);
+
+        UserData data = frontendService.getUserData(7, 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+
+        assertThat(data.getUserId()).isEqualTo(7);
+        messageSystem.dispose();
+    }
+
+    @DisplayName("Запрос без ответа завершается по таймауту")
+    @RepeatedTest(2)
+    void getDataTimeout() throws Exception {
+        createMessageSystem(true);
+        messageSystem.removeClient(DATABASE_SERVICE_CLIENT_NAME);
+
+        CompletableFuture<UserData> data = frontendService.getUserData(7, 100, TimeUnit.MILLISECONDS);
+
+        assertThatThrownBy(() -> data.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(CallbackTimeoutException.class);
+        assertThat(callbackRegistry.stats().getPending()).isZero();
+        assertThat(callbackRegistry.stats().getTimedOut()).isEqualTo(1);
+        messageSystem.dispose();
+    }
+
     @DisplayName("Выполнение запроса после остановки сервиса")
     @RepeatedTest(2)
     void getDataAfterShutdown() throws Exception {
@@ -106,7 +138,7 @@ class IntegrationTest {
     private void createMessageSystem(boolean startProcessing) {
         logger.info("setup");
         messageSystem = new MessageSystemImpl(startProcessing);
-        CallbackRegistry callbackRegistry = new CallbackRegistryImpl();
+        callbackRegistry = new CallbackRegistryImpl();
 
         DBService dbService = mock(DBService.class);
         when(dbService.getUserData(any(Long.class))).thenAnswer(invocation -> String.valueOf((Long) invocation.getArgument(0)));
@@ -0,0 +1,108 @@
+package ru.otus.messagesystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.otus.db.DBService;
+import ru.otus.db.handlers.GetUserDataRequestHandler;
+import ru.otus.front.FrontendService;
+import ru.otus.front.FrontendServiceImpl;
+import ru.otus.front.handlers.GetUserDataResponseHandler;
+import ru.otus.messagesystem.client.CallbackId;
+import ru.otus.messagesystem.client.CallbackRegistry;
+import ru.otus.messagesystem.client.CallbackRegistryImpl;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.MsClientImpl;
+import ru.otus.messagesystem.message.IdGenerator;
+import ru.otus.messagesystem.message.MessageType;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/response round trips through MsClientImpl: the frontend asks the database client for UserData
+ * and the reply finds its callback by the CallbackId. The id benchmarks compare the old
+ * UUID.randomUUID().toString() ids with IdGenerator, both put into and removed from a map like the callback registry.
+ * Turn the logging off (logback level WARN) before running, otherwise the logger dominates.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMHRequestResponse {
+    private static final int REQUESTS = 10_000;
+    private static final String FRONTEND_SERVICE_CLIENT_NAME = "frontendService";
+    private static final String DATABASE_SERVICE_CLIENT_NAME = "databaseService";
+
+    private final Map<Object, Object> registry = new ConcurrentHashMap<>();
+    private MessageSystem messageSystem;
+    private FrontendService frontendService;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHRequestResponse.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        messageSystem = new MessageSystemImpl();
+        CallbackRegistry callbackRegistry = new CallbackRegistryImpl();
+
+        DBService dbService = id -> "user " + id;
+        HandlersStore requestHandlerDatabaseStore = new HandlersStoreImpl();
+        requestHandlerDatabaseStore.addHandler(MessageType.USER_DATA, new GetUserDataRequestHandler(dbService));
+        messageSystem.addClient(new MsClientImpl(DATABASE_SERVICE_CLIENT_NAME, messageSystem,
+                requestHandlerDatabaseStore, callbackRegistry));
+
+        HandlersStore requestHandlerFrontendStore = new HandlersStoreImpl();
+        requestHandlerFrontendStore.addHandler(MessageType.USER_DATA, new GetUserDataResponseHandler(callbackRegistry));
+        MsClient frontendMsClient = new MsClientImpl(FRONTEND_SERVICE_CLIENT_NAME, messageSystem,
+                requestHandlerFrontendStore, callbackRegistry);
+        messageSystem.addClient(frontendMsClient);
+        frontendService = new FrontendServiceImpl(frontendMsClient, DATABASE_SERVICE_CLIENT_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        messageSystem.dispose();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(REQUESTS)
+    public void requestResponse() throws InterruptedException {
+        CountDownLatch replies = new CountDownLatch(REQUESTS);
+        for (int idx = 0; idx < REQUESTS; idx++) {
+            frontendService.getUserData(idx, data -> replies.countDown());
+        }
+        replies.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Object uuidCallbackId() {
+        String id = UUID.randomUUID().toString();
+        registry.put(id, id);
+        return registry.remove(id);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Object generatedCallbackId() {
+        CallbackId id = CallbackId.of(IdGenerator.nextMessageId());
+        registry.put(id, id);
+        return registry.remove(id);
+    }
+}
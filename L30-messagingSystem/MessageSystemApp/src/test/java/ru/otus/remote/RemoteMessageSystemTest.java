@@ -0,0 +1,180 @@
+package ru.otus.remote;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.otus.db.DBService;
+import ru.otus.db.handlers.GetUserDataRequestHandler;
+import ru.otus.dto.UserData;
+import ru.otus.front.FrontendService;
+import ru.otus.front.FrontendServiceImpl;
+import ru.otus.front.handlers.GetUserDataResponseHandler;
+import ru.otus.messagesystem.HandlersStore;
+import ru.otus.messagesystem.HandlersStoreImpl;
+import ru.otus.messagesystem.MessageSystem;
+import ru.otus.messagesystem.MessageSystemImpl;
+import ru.otus.messagesystem.client.CallbackRegistry;
+import ru.otus.messagesystem.client.CallbackRegistryImpl;
+import ru.otus.messagesystem.client.CallbackTimeoutException;
+import ru.otus.messagesystem.client.MsClient;
+import ru.otus.messagesystem.client.MsClientImpl;
+import ru.otus.messagesystem.client.ResultDataType;
+import ru.otus.messagesystem.message.Message;
+import ru.otus.messagesystem.message.MessageBuilder;
+import ru.otus.messagesystem.message.MessageType;
+import ru.otus.messagesystem.remote.MessageSystemServer;
+import ru.otus.messagesystem.remote.RemoteMessageSystem;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RemoteMessageSystemTest {
+    private static final String FRONTEND_SERVICE_CLIENT_NAME = "frontendService";
+    private static final String DATABASE_SERVICE_CLIENT_NAME = "databaseService";
+
+    private MessageSystem nodeMessageSystem;
+    private MessageSystemServer server;
+    private RemoteMessageSystem remoteMessageSystem;
+    private FrontendService frontendService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nodeMessageSystem = new MessageSystemImpl();
+        CallbackRegistry callbackRegistry = new CallbackRegistryImpl();
+        HandlersStore requestHandlerFrontendStore = new HandlersStoreImpl();
+        requestHandlerFrontendStore.addHandler(MessageType.USER_DATA, new GetUserDataResponseHandler(callbackRegistry));
+        MsClient frontendMsClient = new MsClientImpl(FRONTEND_SERVICE_CLIENT_NAME, nodeMessageSystem,
+                requestHandlerFrontendStore, callbackRegistry);
+        frontendService = new FrontendServiceImpl(frontendMsClient, DATABASE_SERVICE_CLIENT_NAME);
+        nodeMessageSystem.addClient(frontendMsClient);
+
+        server = new MessageSystemServer(nodeMessageSystem, 0);
+        server.start();
+
+        // база данных живет "в другом процессе" и ходит к узлу по сети
+        remoteMessageSystem = new RemoteMessageSystem("localhost", server.getPort());
+        DBService dbService = mock(DBService.class);
+        when(dbService.getUserData(any(Long.class))).thenAnswer(invocation -> String.valueOf((Long) invocation.getArgument(0)));
+        HandlersStore requestHandlerDatabaseStore = new HandlersStoreImpl();
+        requestHandlerDatabaseStore.addHandler(MessageType.USER_DATA, new GetUserDataRequestHandler(dbService));
+        remoteMessageSystem.addClient(new MsClientImpl(DATABASE_SERVICE_CLIENT_NAME, remoteMessageSystem,
+                requestHandlerDatabaseStore, new CallbackRegistryImpl()));
+        remoteMessageSystem.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        remoteMessageSystem.dispose();
+        server.close();
+        nodeMessageSystem.dispose();
+    }
+
+    @DisplayName("Запросы к сервису в другом процессе получают ответы")
+    @Test
+    void requestResponseOverNetwork() throws Exception {
+        List<CompletableFuture<UserData>> results = LongStream.range(0, 1000)
+                .mapToObj(id -> frontendService.getUserData(id, 10, TimeUnit.SECONDS))
+                .collect(Collectors.toList());
+
+        for (int id = 0; id < results.size(); id++) {
+            assertThat(results.get(id).get(10, TimeUnit.SECONDS).getUserId()).isEqualTo(id);
+        }
+        // подтверждение последнего ответа может прийти после самого ответа
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (remoteMessageSystem.currentQueueSize() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(remoteMessageSystem.currentQueueSize()).isZero();
+    }
+
+    @DisplayName("После перезапуска узла клиенты процесса регистрируются заново")
+    @Test
+    void reconnectAfterServerRestart() throws Exception {
+        assertThat(frontendService.getUserData(1, 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS).getUserId())
+                .isEqualTo(1);
+        int port = server.getPort();
+        server.close();
+
+        server = new MessageSystemServer(nodeMessageSystem, port);
+        server.start();
+
+        // пока процесс не переподключился, запросы к базе никто не получает
+        UserData data = null;
+        for (int attempt = 0; attempt < 20 && data == null; attempt++) {
+            try {
+                data = frontendService.getUserData(2, 500, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+            } catch (ExecutionException ex) {
+                assertThat(ex).hasCauseInstanceOf(CallbackTimeoutException.class);
+            }
+        }
+        assertThat(data).isNotNull();
+        assertThat(data.getUserId()).isEqualTo(2);
+    }
+
+    @DisplayName("Имя, занятое живым соединением, не отдается другому процессу")
+    @Test
+    void boundNameIsNotTakenOver() throws Exception {
+        // второй процесс с тем же именем, но без обработчиков: если он перехватит имя, ответов не будет
+        RemoteMessageSystem intruder = new RemoteMessageSystem("localhost", server.getPort());
+        try {
+            intruder.addClient(new MsClientImpl(DATABASE_SERVICE_CLIENT_NAME, intruder,
+                    new HandlersStoreImpl(), new CallbackRegistryImpl()));
+            intruder.start();
+
+            assertThat(frontendService.getUserData(3, 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS).getUserId())
+                    .isEqualTo(3);
+        } finally {
+            intruder.dispose();
+        }
+    }
+
+    @DisplayName("Сообщение с Java-сериализацией узел отклоняет, не передавая клиенту")
+    @Test
+    void javaSerializedPayloadIsRejected() throws Exception {
+        BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+        MsClient probe = mock(MsClient.class);
+        when(probe.getName()).thenReturn("probe");
+        doAnswer(invocation -> received.add(invocation.getArgument(0))).when(probe).handle(any());
+        nodeMessageSystem.addClient(probe);
+
+        // оба сообщения идут по одному соединению, поэтому второе приходит после отказа в первом
+        Message javaSerialized = MessageBuilder.buildMessage(DATABASE_SERVICE_CLIENT_NAME, "probe", null,
+                new ResultDataType(), MessageType.USER_DATA);
+        Message encoded = MessageBuilder.buildMessage(DATABASE_SERVICE_CLIENT_NAME, "probe", null,
+                new UserData(1, "data"), MessageType.USER_DATA);
+        assertThat(remoteMessageSystem.newMessage(javaSerialized)).isTrue();
+        assertThat(remoteMessageSystem.newMessage(encoded)).isTrue();
+
+        assertThat(received.poll(10, TimeUnit.SECONDS)).isEqualTo(encoded);
+        assertThat(received).isEmpty();
+    }
+
+    @DisplayName("Отказ узла завершает запрос отправителя ошибкой, не дожидаясь таймаута")
+    @Test
+    void rejectionFailsSenderRequest() throws Exception {
+        MsClient sender = new MsClientImpl("sender", remoteMessageSystem, new HandlersStoreImpl(),
+                new CallbackRegistryImpl());
+        remoteMessageSystem.addClient(sender);
+
+        CompletableFuture<UserData> result = sender.request(FRONTEND_SERVICE_CLIENT_NAME, new ResultDataType(),
+                MessageType.USER_DATA, 30, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -2,14 +2,19 @@ package ru.dankoy.otus.generics;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
 public class DIYArrayList<E> implements List<E> {
 
     private final static int INITIAL_ARRAY_SIZE = 10;
+    private final static int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
     private Object[] array;
     private int lastUsedElement = 0;
 
+    // Счетчик структурных изменений, по нему итераторы и сплитераторы определяют конкурентную модификацию
+    private int modCount = 0;
+
     public DIYArrayList() {
         array = new Object[INITIAL_ARRAY_SIZE];
     }
@@ -21,7 +26,6 @@ public class DIYArrayList<E> implements List<E> {
      * @param arraySize
      */
     public DIYArrayList(int arraySize) {
-        array = new Object[arraySize];
         if (arraySize >= 0) {
             array = new Object[arraySize];
         } else {
@@ -29,6 +33,16 @@ public class DIYArrayList<E> implements List<E> {
         }
     }
 
+    /**
+     * Конструктор, создающий ArrayList из элементов коллекции
+     *
+     * @param c
+     */
+    public DIYArrayList(Collection<? extends E> c) {
+        array = Arrays.copyOf(c.toArray(), c.size(), Object[].class);
+        lastUsedElement = array.length;
+    }
+
     @Override
     public int size() {
         return lastUsedElement;
@@ -36,12 +50,12 @@ public class DIYArrayList<E> implements List<E> {
 
     @Override
     public boolean isEmpty() {
-        throw new UnsupportedOperationException();
+        return lastUsedElement == 0;
     }
 
     @Override
     public boolean contains(Object o) {
-        throw new UnsupportedOperationException();
+        return indexOf(o) >= 0;
     }
 
     @Override
@@ -56,7 +70,14 @@ public class DIYArrayList<E> implements List<E> {
 
     @Override
     public <T> T[] toArray(T[] a) {
-        throw new UnsupportedOperationException();
+        if (a.length < lastUsedElement) {
+            return (T[]) Arrays.copyOf(array, lastUsedElement, a.getClass());
+        }
+        System.arraycopy(array, 0, a, 0, lastUsedElement);
+        if (a.length > lastUsedElement) {
+            a[lastUsedElement] = null;
+        }
+        return a;
     }
 
     /**
@@ -67,217 +88,641 @@ public class DIYArrayList<E> implements List<E> {
      */
     @Override
     public boolean add(E e) {
-        set(lastUsedElement, e);
+        ensureCapacity(lastUsedElement + 1);
+        array[lastUsedElement++] = e;
+        modCount++;
         return true;
     }
 
     @Override
     public boolean remove(Object o) {
-        throw new UnsupportedOperationException();
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        fastRemove(index);
+        return true;
     }
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Добавляет все элементы коллекции одним копированием массива
+     *
+     * @param c
+     * @return true, если лист изменился
+     */
     @Override
     public boolean addAll(Collection<? extends E> c) {
-        throw new UnsupportedOperationException();
+        Object[] elements = c.toArray();
+        modCount++;
+        if (elements.length == 0) {
+            return false;
+        }
+        ensureCapacity(lastUsedElement + elements.length);
+        System.arraycopy(elements, 0, array, lastUsedElement, elements.length);
+        lastUsedElement += elements.length;
+        return true;
     }
 
+    /**
+     * Вставляет все элементы коллекции в позицию index. Хвост листа сдвигается одним копированием.
+     *
+     * @param index
+     * @param c
+     * @return true, если лист изменился
+     */
     @Override
     public boolean addAll(int index, Collection<? extends E> c) {
-        throw new UnsupportedOperationException();
+        rangeCheckForAdd(index);
+        Object[] elements = c.toArray();
+        modCount++;
+        if (elements.length == 0) {
+            return false;
+        }
+        ensureCapacity(lastUsedElement + elements.length);
+        int numMoved = lastUsedElement - index;
+        if (numMoved > 0) {
+            System.arraycopy(array, index, array, index + elements.length, numMoved);
+        }
+        System.arraycopy(elements, 0, array, index, elements.length);
+        lastUsedElement += elements.length;
+        return true;
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
+        Objects.requireNonNull(c);
+        return batchRemove(c::contains);
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        throw new UnsupportedOperationException();
+        Objects.requireNonNull(c);
+        return batchRemove(e -> !c.contains(e));
+    }
+
+    /**
+     * Удаляет элементы за один проход: оставшиеся элементы сдвигаются к началу массива, без копирования хвоста
+     * на каждое удаление.
+     *
+     * @param filter
+     * @return true, если что-то было удалено
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return batchRemove(filter);
     }
 
     @Override
     public void replaceAll(UnaryOperator<E> operator) {
-        throw new UnsupportedOperationException();
+        Objects.requireNonNull(operator);
+        int expectedModCount = modCount;
+        for (int i = 0; i < lastUsedElement && modCount == expectedModCount; i++) {
+            array[i] = operator.apply((E) array[i]);
+        }
+        checkForComodification(expectedModCount);
+        modCount++;
     }
 
     @Override
     public void sort(Comparator<? super E> c) {
+        int expectedModCount = modCount;
         Arrays.sort((E[]) array, 0, lastUsedElement, c);
+        checkForComodification(expectedModCount);
+        modCount++;
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (int i = 0; i < lastUsedElement && modCount == expectedModCount; i++) {
+            action.accept((E) array[i]);
+        }
+        checkForComodification(expectedModCount);
     }
 
     @Override
     public void clear() {
-        throw new UnsupportedOperationException();
+        modCount++;
+        Arrays.fill(array, 0, lastUsedElement, null);
+        lastUsedElement = 0;
     }
 
     @Override
     public E get(int index) {
+        rangeCheck(index);
         return (E) array[index];
     }
 
     @Override
     public E set(int index, E element) {
-        if (index >= array.length) {
-            grow();
-        }
+        rangeCheck(index);
         E oldElement = (E) array[index];
         array[index] = element;
-        if (index >= lastUsedElement) {
-            lastUsedElement = index + 1;
-        }
         return oldElement;
     }
 
     @Override
     public void add(int index, E element) {
-        throw new UnsupportedOperationException();
+        rangeCheckForAdd(index);
+        ensureCapacity(lastUsedElement + 1);
+        System.arraycopy(array, index, array, index + 1, lastUsedElement - index);
+        array[index] = element;
+        lastUsedElement++;
+        modCount++;
     }
 
     @Override
     public E remove(int index) {
-        throw new UnsupportedOperationException();
+        rangeCheck(index);
+        E oldElement = (E) array[index];
+        fastRemove(index);
+        return oldElement;
     }
 
     @Override
     public int indexOf(Object o) {
-        throw new UnsupportedOperationException();
+        for (int i = 0; i < lastUsedElement; i++) {
+            if (Objects.equals(o, array[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
     public int lastIndexOf(Object o) {
-        throw new UnsupportedOperationException();
+        for (int i = lastUsedElement - 1; i >= 0; i--) {
+            if (Objects.equals(o, array[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     // Итератор
     @Override
     public ListIterator<E> listIterator() {
-        return new DIYArrayListIterator();
+        return new DIYArrayListIterator(0);
     }
 
     @Override
     public ListIterator<E> listIterator(int index) {
-        throw new UnsupportedOperationException();
+        rangeCheckForAdd(index);
+        return new DIYArrayListIterator(index);
     }
 
     @Override
     public List<E> subList(int fromIndex, int toIndex) {
-        throw new UnsupportedOperationException();
+        subListRangeCheck(fromIndex, toIndex, lastUsedElement);
+        return new DIYSubList(fromIndex, toIndex);
     }
 
+    /**
+     * Сплитератор с известным размером, делится пополам по индексам. Нужен, чтобы parallelStream() распределял
+     * работу по ядрам, а не обходил лист последовательно итератором.
+     *
+     * @return Spliterator
+     */
     @Override
     public Spliterator<E> spliterator() {
-        throw new UnsupportedOperationException();
+        return new DIYArrayListSpliterator(0, -1, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        int expectedModCount = modCount;
+        Iterator<?> other = ((List<?>) o).iterator();
+        int i = 0;
+        for (; i < lastUsedElement && other.hasNext(); i++) {
+            if (!Objects.equals(array[i], other.next())) {
+                return false;
+            }
+        }
+        checkForComodification(expectedModCount);
+        return i == lastUsedElement && !other.hasNext();
     }
 
-    private void grow() {
+    @Override
+    public int hashCode() {
+        int expectedModCount = modCount;
+        int hashCode = 1;
+        for (int i = 0; i < lastUsedElement; i++) {
+            hashCode = 31 * hashCode + Objects.hashCode(array[i]);
+        }
+        checkForComodification(expectedModCount);
+        return hashCode;
+    }
 
-        array = Arrays.copyOf(array, array.length * 2);
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
 
+    /**
+     * Увеличивает емкость массива так, чтобы в него поместилось не меньше minCapacity элементов
+     *
+     * @param minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) {
+            grow(minCapacity);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required array length is too large");
+        }
+        int oldCapacity = array.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = Math.max(minCapacity, INITIAL_ARRAY_SIZE);
+        }
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            newCapacity = minCapacity > MAX_ARRAY_SIZE ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        array = Arrays.copyOf(array, newCapacity);
+    }
+
+    private void fastRemove(int index) {
+        modCount++;
+        int numMoved = lastUsedElement - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(array, index + 1, array, index, numMoved);
+        }
+        array[--lastUsedElement] = null;
+    }
+
+    private void removeRange(int fromIndex, int toIndex) {
+        modCount++;
+        System.arraycopy(array, toIndex, array, fromIndex, lastUsedElement - toIndex);
+        int newSize = lastUsedElement - (toIndex - fromIndex);
+        Arrays.fill(array, newSize, lastUsedElement, null);
+        lastUsedElement = newSize;
+    }
+
+    /**
+     * Удаление по предикату за один проход. Если предикат выбросит исключение, необработанный хвост сдвигается
+     * целиком, и лист остается согласованным.
+     */
+    private boolean batchRemove(Predicate<? super E> filter) {
+        int expectedModCount = modCount;
+        int end = lastUsedElement;
+        int r = 0;
+        int w = 0;
+        try {
+            for (; r < end; r++) {
+                Object element = array[r];
+                if (!filter.test((E) element)) {
+                    array[w++] = element;
+                }
+            }
+            checkForComodification(expectedModCount);
+        } finally {
+            if (r != end) {
+                System.arraycopy(array, r, array, w, end - r);
+                w += end - r;
+            }
+            if (w != end) {
+                Arrays.fill(array, w, end, null);
+                lastUsedElement = w;
+                modCount++;
+            }
+        }
+        return w != end;
+    }
+
+    private void checkForComodification(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private void rangeCheck(int index) {
+        if (index < 0 || index >= lastUsedElement) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + lastUsedElement);
+        }
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if (index < 0 || index > lastUsedElement) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + lastUsedElement);
+        }
+    }
+
+    private static void subListRangeCheck(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex = " + fromIndex);
+        }
+        if (toIndex > size) {
+            throw new IndexOutOfBoundsException("toIndex = " + toIndex);
+        }
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
     }
 
 
     private class DIYArrayListSimpleIterator implements Iterator<E> {
 
-        private int currentPlace = 0;
-        private int lastReturnedIndex = -1;
+        int currentPlace = 0;
+        int lastReturnedIndex = -1;
+        int expectedModCount = modCount;
 
         @Override
         public boolean hasNext() {
-            if (currentPlace < lastUsedElement) {
-                return true;
-            } else {
-                return false;
-            }
+            return currentPlace != lastUsedElement;
         }
 
         @Override
         public E next() {
-            if (hasNext()) {
-                Object element = array[currentPlace];
-                lastReturnedIndex = currentPlace;
-                currentPlace += 1;
-                return (E) element;
-            } else {
-                throw new java.util.NoSuchElementException();
+            checkForComodification();
+            if (currentPlace >= lastUsedElement) {
+                throw new NoSuchElementException();
+            }
+            if (currentPlace >= array.length) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturnedIndex = currentPlace;
+            currentPlace += 1;
+            return (E) array[lastReturnedIndex];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturnedIndex < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            DIYArrayList.this.remove(lastReturnedIndex);
+            currentPlace = lastReturnedIndex;
+            lastReturnedIndex = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int i = currentPlace;
+            for (; i < lastUsedElement && modCount == expectedModCount; i++) {
+                action.accept((E) array[i]);
+            }
+            currentPlace = i;
+            lastReturnedIndex = i - 1;
+            checkForComodification();
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
             }
         }
     }
 
     // ListIterator
-    private class DIYArrayListIterator implements ListIterator<E> {
+    private class DIYArrayListIterator extends DIYArrayListSimpleIterator implements ListIterator<E> {
 
-        private int currentPlace = 0;
-        private int lastReturnedIndex = -1;
+        DIYArrayListIterator(int index) {
+            currentPlace = index;
+        }
 
         @Override
-        public boolean hasNext() {
+        public boolean hasPrevious() {
+            return currentPlace != 0;
+        }
 
-            if (currentPlace < lastUsedElement) {
-                return true;
-            } else {
-                return false;
+        @Override
+        public E previous() {
+            checkForComodification();
+            int i = currentPlace - 1;
+            if (i < 0) {
+                throw new NoSuchElementException();
+            }
+            if (i >= array.length) {
+                throw new ConcurrentModificationException();
             }
+            currentPlace = i;
+            lastReturnedIndex = i;
+            return (E) array[i];
+        }
 
+        @Override
+        public int nextIndex() {
+            return currentPlace;
         }
 
         @Override
-        public E next() {
-            if (hasNext()) {
-                Object element = array[currentPlace];
-                lastReturnedIndex = currentPlace;
-                currentPlace += 1;
-                return (E) element;
-            } else {
-                throw new java.util.NoSuchElementException();
+        public int previousIndex() {
+            return currentPlace - 1;
+        }
+
+        @Override
+        public void set(E e) {
+            if (lastReturnedIndex < 0) {
+                throw new IllegalStateException();
             }
+            checkForComodification();
+            DIYArrayList.this.set(lastReturnedIndex, e);
         }
 
         @Override
-        public boolean hasPrevious() {
-            throw new UnsupportedOperationException();
+        public void add(E e) {
+            checkForComodification();
+            DIYArrayList.this.add(currentPlace, e);
+            currentPlace += 1;
+            lastReturnedIndex = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    // Представление части листа. Все изменения пишутся в исходный массив.
+    private class DIYSubList extends AbstractList<E> {
+
+        private final int offset;
+        private int size;
+
+        DIYSubList(int fromIndex, int toIndex) {
+            this.offset = fromIndex;
+            this.size = toIndex - fromIndex;
+            this.modCount = DIYArrayList.this.modCount;
         }
 
         @Override
-        public E previous() {
-            throw new UnsupportedOperationException();
+        public E get(int index) {
+            Objects.checkIndex(index, size);
+            checkForComodification();
+            return (E) array[offset + index];
         }
 
         @Override
-        public int nextIndex() {
-            throw new UnsupportedOperationException();
+        public E set(int index, E element) {
+            Objects.checkIndex(index, size);
+            checkForComodification();
+            E oldElement = (E) array[offset + index];
+            array[offset + index] = element;
+            return oldElement;
         }
 
         @Override
-        public int previousIndex() {
-            throw new UnsupportedOperationException();
+        public int size() {
+            checkForComodification();
+            return size;
         }
 
         @Override
-        public void remove() {
-            throw new UnsupportedOperationException();
+        public void add(int index, E element) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            checkForComodification();
+            DIYArrayList.this.add(offset + index, element);
+            this.modCount = DIYArrayList.this.modCount;
+            size++;
         }
 
         @Override
-        public void set(E e) {
-            // крайние случаи здесь могут быть?
-            DIYArrayList.this.set(lastReturnedIndex, e);
+        public E remove(int index) {
+            Objects.checkIndex(index, size);
+            checkForComodification();
+            E oldElement = DIYArrayList.this.remove(offset + index);
+            this.modCount = DIYArrayList.this.modCount;
+            size--;
+            return oldElement;
+        }
 
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            checkForComodification();
+            DIYArrayList.this.removeRange(offset + fromIndex, offset + toIndex);
+            this.modCount = DIYArrayList.this.modCount;
+            size -= toIndex - fromIndex;
         }
 
         @Override
-        public void add(E e) {
-            throw new UnsupportedOperationException();
+        public boolean addAll(int index, Collection<? extends E> c) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int cSize = c.size();
+            if (cSize == 0) {
+                return false;
+            }
+            checkForComodification();
+            DIYArrayList.this.addAll(offset + index, c);
+            this.modCount = DIYArrayList.this.modCount;
+            size += cSize;
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> c) {
+            return addAll(size, c);
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            checkForComodification();
+            return new DIYArrayListSpliterator(offset, offset + size, this.modCount);
+        }
+
+        private void checkForComodification() {
+            if (DIYArrayList.this.modCount != this.modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // Сплитератор по индексам [index, fence). Граница вычисляется лениво при первом использовании.
+    private class DIYArrayListSpliterator implements Spliterator<E> {
+
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        DIYArrayListSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            int hi = fence;
+            if (hi < 0) {
+                expectedModCount = modCount;
+                hi = fence = lastUsedElement;
+            }
+            return hi;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new DIYArrayListSpliterator(lo, mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int hi = getFence();
+            int i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept((E) array[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                return true;
+            }
+            return false;
         }
 
         @Override
         public void forEachRemaining(Consumer<? super E> action) {
-            throw new UnsupportedOperationException();
+            Objects.requireNonNull(action);
+            Object[] a = array;
+            int hi = getFence();
+            int i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                action.accept((E) a[i]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
         }
     }
 
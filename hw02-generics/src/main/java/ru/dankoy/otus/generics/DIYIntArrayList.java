@@ -0,0 +1,210 @@
+package ru.dankoy.otus.generics;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Лист примитивов int на основе массива int[]. В отличие от DIYArrayList&lt;Integer&gt; элементы не упаковываются, поэтому
+ * каждый элемент занимает 4 байта вместо ссылки и объекта Integer.
+ */
+public class DIYIntArrayList {
+
+    private static final int INITIAL_ARRAY_SIZE = 10;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int[] EMPTY_ARRAY = {};
+
+    private int[] array;
+    private int size = 0;
+    private int modCount = 0;
+
+    public DIYIntArrayList() {
+        array = new int[INITIAL_ARRAY_SIZE];
+    }
+
+    /**
+     * Конструктор, создающий лист определенной емкости. Если емкость отрицательная - выбрасывается исключение
+     *
+     * @param capacity
+     */
+    public DIYIntArrayList(int capacity) {
+        if (capacity > 0) {
+            array = new int[capacity];
+        } else if (capacity == 0) {
+            array = EMPTY_ARRAY;
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean add(int value) {
+        ensureCapacity(size + 1);
+        array[size++] = value;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Добавляет все элементы массива одним копированием.
+     *
+     * @param values
+     * @return true, если лист изменился
+     */
+    public boolean addAll(int[] values) {
+        if (values.length == 0) {
+            return false;
+        }
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+        modCount++;
+        return true;
+    }
+
+    public int get(int index) {
+        checkIndex(index);
+        return array[index];
+    }
+
+    public int set(int index, int value) {
+        checkIndex(index);
+        int oldValue = array[index];
+        array[index] = value;
+        return oldValue;
+    }
+
+    public int removeAt(int index) {
+        checkIndex(index);
+        int oldValue = array[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(array, index + 1, array, index, numMoved);
+        }
+        size--;
+        modCount++;
+        return oldValue;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Увеличивает емкость так, чтобы в лист поместилось не меньше minCapacity элементов
+     *
+     * @param minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < array.length) {
+            array = size == 0 ? EMPTY_ARRAY : Arrays.copyOf(array, size);
+        }
+    }
+
+    public void forEach(IntConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && expectedModCount == modCount; i++) {
+            action.accept(array[i]);
+        }
+        if (expectedModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new DIYIntArrayListIterator();
+    }
+
+    /**
+     * Стрим по элементам листа без упаковки. Лист нельзя изменять, пока стрим не завершен.
+     *
+     * @return IntStream
+     */
+    public IntStream stream() {
+        return Arrays.stream(array, 0, size);
+    }
+
+    /**
+     * Рост в 1.5 раза, как в java.util.ArrayList. Удвоение на десятках миллионов элементов слишком сильно
+     * переплачивает по памяти.
+     *
+     * @param minCapacity
+     */
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required array length is too large");
+        }
+        int oldCapacity = array.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = Math.max(minCapacity, INITIAL_ARRAY_SIZE);
+        }
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            newCapacity = minCapacity > MAX_ARRAY_SIZE ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        array = Arrays.copyOf(array, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private class DIYIntArrayListIterator implements PrimitiveIterator.OfInt {
+
+        private int currentPlace = 0;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return currentPlace < size;
+        }
+
+        @Override
+        public int nextInt() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return array[currentPlace++];
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package ru.dankoy.otus.generics;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Лист примитивов long на основе массива long[]. В отличие от DIYArrayList&lt;Long&gt; элементы не упаковываются, поэтому
+ * каждый элемент занимает 8 байт вместо ссылки и объекта Long.
+ */
+public class DIYLongArrayList {
+
+    private static final int INITIAL_ARRAY_SIZE = 10;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final long[] EMPTY_ARRAY = {};
+
+    private long[] array;
+    private int size = 0;
+    private int modCount = 0;
+
+    public DIYLongArrayList() {
+        array = new long[INITIAL_ARRAY_SIZE];
+    }
+
+    /**
+     * Конструктор, создающий лист определенной емкости. Если емкость отрицательная - выбрасывается исключение
+     *
+     * @param capacity
+     */
+    public DIYLongArrayList(int capacity) {
+        if (capacity > 0) {
+            array = new long[capacity];
+        } else if (capacity == 0) {
+            array = EMPTY_ARRAY;
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean add(long value) {
+        ensureCapacity(size + 1);
+        array[size++] = value;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Добавляет все элементы массива одним копированием.
+     *
+     * @param values
+     * @return true, если лист изменился
+     */
+    public boolean addAll(long[] values) {
+        if (values.length == 0) {
+            return false;
+        }
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+        modCount++;
+        return true;
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return array[index];
+    }
+
+    public long set(int index, long value) {
+        checkIndex(index);
+        long oldValue = array[index];
+        array[index] = value;
+        return oldValue;
+    }
+
+    public long removeAt(int index) {
+        checkIndex(index);
+        long oldValue = array[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(array, index + 1, array, index, numMoved);
+        }
+        size--;
+        modCount++;
+        return oldValue;
+    }
+
+    public int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Увеличивает емкость так, чтобы в лист поместилось не меньше minCapacity элементов
+     *
+     * @param minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > array.length) {
+            grow(minCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < array.length) {
+            array = size == 0 ? EMPTY_ARRAY : Arrays.copyOf(array, size);
+        }
+    }
+
+    public void forEach(LongConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && expectedModCount == modCount; i++) {
+            action.accept(array[i]);
+        }
+        if (expectedModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+        return new DIYLongArrayListIterator();
+    }
+
+    /**
+     * Стрим по элементам листа без упаковки. Лист нельзя изменять, пока стрим не завершен.
+     *
+     * @return LongStream
+     */
+    public LongStream stream() {
+        return Arrays.stream(array, 0, size);
+    }
+
+    /**
+     * Рост в 1.5 раза, как в java.util.ArrayList. Удвоение на десятках миллионов элементов слишком сильно
+     * переплачивает по памяти.
+     *
+     * @param minCapacity
+     */
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required array length is too large");
+        }
+        int oldCapacity = array.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = Math.max(minCapacity, INITIAL_ARRAY_SIZE);
+        }
+        if (newCapacity - MAX_ARRAY_SIZE > 0) {
+            newCapacity = minCapacity > MAX_ARRAY_SIZE ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        }
+        array = Arrays.copyOf(array, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private class DIYLongArrayListIterator implements PrimitiveIterator.OfLong {
+
+        private int currentPlace = 0;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return currentPlace < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return array[currentPlace++];
+        }
+    }
+
+}
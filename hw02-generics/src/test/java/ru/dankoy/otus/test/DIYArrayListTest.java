@@ -7,9 +7,15 @@ import ru.dankoy.otus.generics.DIYArrayList;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class DIYArrayListTest {
 
@@ -99,6 +105,63 @@ public class DIYArrayListTest {
 
     }
 
+    @Test
+    public void addAllAndRemoveIfTest() {
+
+        List<Integer> list = new DIYArrayList<>(0);
+        list.addAll(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+        list.addAll(0, List.of(-3, -2, -1));
+
+        assertThat(list).hasSize(103).startsWith(-3, -2, -1, 0);
+
+        list.removeIf(value -> value % 2 == 0);
+
+        assertThat(list).hasSize(52).startsWith(-3, -1, 1, 3).endsWith(97, 99);
+        assertThat(list.indexOf(99)).isEqualTo(51);
+        assertThat(list.remove(Integer.valueOf(-3))).isTrue();
+        assertThat(list.contains(-3)).isFalse();
+
+    }
+
+    @Test
+    public void subListIsViewTest() {
+
+        List<Integer> list = new DIYArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        List<Integer> subList = list.subList(2, 5);
+
+        assertThat(subList).containsExactly(2, 3, 4);
+
+        subList.clear();
+
+        assertThat(list).containsExactly(0, 1, 5, 6, 7, 8, 9);
+
+    }
+
+    @Test
+    public void iteratorFailFastTest() {
+
+        List<Integer> list = new DIYArrayList<>(List.of(1, 2, 3));
+        Iterator<Integer> iterator = list.iterator();
+        iterator.next();
+        list.add(4);
+
+        assertThatThrownBy(iterator::next).isInstanceOf(ConcurrentModificationException.class);
+
+    }
+
+    @Test
+    public void parallelStreamTest() {
+
+        List<Integer> list = new DIYArrayList<>();
+        list.addAll(IntStream.range(0, 100_000).boxed().collect(Collectors.toList()));
+
+        assertThat(list.spliterator().hasCharacteristics(
+                Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED)).isTrue();
+        assertThat(list.spliterator().trySplit()).isNotNull();
+        assertThat(list.parallelStream().mapToLong(Integer::longValue).sum()).isEqualTo(4_999_950_000L);
+
+    }
+
     private static void copyArrays(List<Integer> from, List<Integer> to) {
         for (int i = 0; i < from.size(); i++) {
             to.add(from.get(i));
@@ -0,0 +1,71 @@
+package ru.dankoy.otus.test;
+
+import org.junit.jupiter.api.Test;
+import ru.dankoy.otus.generics.DIYIntArrayList;
+import ru.dankoy.otus.generics.DIYLongArrayList;
+
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DIYPrimitiveArrayListTest {
+
+    @Test
+    public void intListAddAndGetTest() {
+
+        DIYIntArrayList list = new DIYIntArrayList(0);
+        for (int i = 0; i < 50; i++) {
+            list.add(i);
+        }
+
+        assertThat(list.size()).isEqualTo(50);
+        assertThat(list.toArray()).isEqualTo(IntStream.range(0, 50).toArray());
+        assertThatThrownBy(() -> list.get(50)).isInstanceOf(IndexOutOfBoundsException.class);
+
+    }
+
+    @Test
+    public void intListAddAllAndStreamTest() {
+
+        DIYIntArrayList list = new DIYIntArrayList();
+        list.add(1);
+        list.addAll(new int[]{2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        assertThat(list.stream().sum()).isEqualTo(78);
+        assertThat(list.removeAt(0)).isEqualTo(1);
+        assertThat(list.indexOf(12)).isEqualTo(10);
+
+    }
+
+    @Test
+    public void intListIteratorFailFastTest() {
+
+        DIYIntArrayList list = new DIYIntArrayList();
+        list.addAll(new int[]{1, 2, 3});
+        PrimitiveIterator.OfInt iterator = list.iterator();
+
+        assertThat(iterator.nextInt()).isEqualTo(1);
+        list.add(4);
+        assertThatThrownBy(iterator::nextInt).isInstanceOf(ConcurrentModificationException.class);
+
+    }
+
+    @Test
+    public void longListAddAllAndStreamTest() {
+
+        long[] values = LongStream.rangeClosed(1, 30).map(v -> v * Integer.MAX_VALUE).toArray();
+        DIYLongArrayList list = new DIYLongArrayList();
+        list.addAll(values);
+
+        assertThat(list.size()).isEqualTo(30);
+        assertThat(list.stream().toArray()).isEqualTo(values);
+        assertThat(list.set(0, -1L)).isEqualTo((long) Integer.MAX_VALUE);
+        assertThat(list.contains(-1L)).isTrue();
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package ru.dankoy.otus.test;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.dankoy.otus.generics.DIYArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность addAll, removeIf и суммирования через parallelStream() для DIYArrayList и ArrayList.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMHDIYArrayList {
+
+    @Param({"DIYArrayList", "ArrayList"})
+    private String listType;
+
+    @Param({"1000000"})
+    private int listSize;
+
+    private List<Integer> source;
+    private List<Integer> list;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHDIYArrayList.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        source = new ArrayList<>(listSize);
+        for (int idx = 0; idx < listSize; idx++) {
+            source.add(idx);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillList() {
+        list = newList();
+        list.addAll(source);
+    }
+
+    @Benchmark
+    public List<Integer> addAllTest() {
+        List<Integer> target = newList();
+        target.addAll(source);
+        return target;
+    }
+
+    @Benchmark
+    public boolean removeIfTest() {
+        return list.removeIf(value -> (value & 1) == 0);
+    }
+
+    @Benchmark
+    public long parallelStreamSumTest() {
+        return list.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    private List<Integer> newList() {
+        return "DIYArrayList".equals(listType) ? new DIYArrayList<>() : new ArrayList<>();
+    }
+}
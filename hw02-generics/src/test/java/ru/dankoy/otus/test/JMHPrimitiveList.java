@@ -0,0 +1,97 @@
+package ru.dankoy.otus.test;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.dankoy.otus.generics.DIYArrayList;
+import ru.dankoy.otus.generics.DIYIntArrayList;
+import ru.dankoy.otus.generics.DIYLongArrayList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение листов примитивов с DIYArrayList&lt;Integer&gt; и java.util.ArrayList на заполнении и суммировании.
+ * Запускать с -prof gc, чтобы увидеть разницу в аллокациях.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JMHPrimitiveList {
+
+    private static final int LIST_SIZE = 10_000_000;
+    private int[] source;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHPrimitiveList.class.getSimpleName()).forks(1).build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        source = new int[LIST_SIZE];
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            source[idx] = idx;
+        }
+    }
+
+    @Benchmark
+    public long diyIntArrayListTest() {
+        DIYIntArrayList list = new DIYIntArrayList();
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            list.add(idx);
+        }
+        return list.stream().asLongStream().sum();
+    }
+
+    @Benchmark
+    public long diyIntArrayListAddAllTest() {
+        DIYIntArrayList list = new DIYIntArrayList();
+        list.addAll(source);
+        return list.stream().asLongStream().sum();
+    }
+
+    @Benchmark
+    public long diyLongArrayListTest() {
+        DIYLongArrayList list = new DIYLongArrayList();
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            list.add(idx);
+        }
+        return list.stream().sum();
+    }
+
+    @Benchmark
+    public long diyArrayListTest() {
+        List<Integer> list = new DIYArrayList<>();
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            list.add(idx);
+        }
+        long summ = 0;
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            summ += list.get(idx);
+        }
+        return summ;
+    }
+
+    @Benchmark
+    public long arrayListTest() {
+        List<Integer> list = new ArrayList<>();
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            list.add(idx);
+        }
+        long summ = 0;
+        for (int idx = 0; idx < LIST_SIZE; idx++) {
+            summ += list.get(idx);
+        }
+        return summ;
+    }
+}
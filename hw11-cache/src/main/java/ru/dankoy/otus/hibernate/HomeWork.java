@@ -3,10 +3,10 @@ package ru.dankoy.otus.hibernate;
 import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.dankoy.otus.hibernate.cache.CustomCache;
-import ru.dankoy.otus.hibernate.cache.CustomCacheImpl;
-import ru.dankoy.otus.hibernate.cache.CustomCacheListener;
+import ru.dankoy.otus.hibernate.cache.AsyncCustomCacheListener;
+import ru.dankoy.otus.hibernate.cache.BoundedCustomCache;
 import ru.dankoy.otus.hibernate.cache.CustomCacheListenerImpl;
+import ru.dankoy.otus.hibernate.cache.LoadingCustomCache;
 import ru.dankoy.otus.hibernate.core.dao.AddressDataSetDao;
 import ru.dankoy.otus.hibernate.core.dao.PhoneDataSetDao;
 import ru.dankoy.otus.hibernate.core.dao.UserDao;
@@ -23,6 +23,7 @@ import ru.dankoy.otus.hibernate.hibernate.dao.UserDaoHibernate;
 import ru.dankoy.otus.hibernate.hibernate.sessionmanager.SessionManagerHibernate;
 import ru.dankoy.otus.hibernate.hibernate.utils.HibernateUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -32,16 +33,21 @@ public class HomeWork {
     private static final Logger logger = LoggerFactory.getLogger(HomeWork.class);
 
     private static final String HIBERNATE_CFG_FILE = "hibernate.cfg.xml";
+    private static final int CACHE_LISTENER_QUEUE_CAPACITY = 10_000;
     private static UserDao userDaoWithCache;
-    private static CustomCache<Long, Optional<User>> cache;
+    private static LoadingCustomCache<Long, User> daoCache;
 
     public static void main(String[] args) {
 
         SessionManagerHibernate sessionManagerHibernate = getSessionManager();
 
-        cache = new CustomCacheImpl<>();
-        CustomCacheListener<Long, Optional<User>> listener = new CustomCacheListenerImpl<>();
-        cache.addListener(listener);
+        daoCache = BoundedCustomCache.<Long, User>newBuilder()
+                .setMaximumSize(1000)
+                .setNegativeTtl(Duration.ofSeconds(30))
+                .build();
+        // Логирование не должно тормозить чтение из кэша, поэтому слушатель работает в своем потоке
+        daoCache.addListener(new AsyncCustomCacheListener<>(new CustomCacheListenerImpl<>(),
+                CACHE_LISTENER_QUEUE_CAPACITY));
 
         // использование Dao классов Hibernate с кэшем. Работает только внутри одной транзакции. Можно сохранить
         // юзера и получить его. Обновления не работают так как при операции update вызывается метод persist на
@@ -57,7 +63,7 @@ public class HomeWork {
 //        // Пример с DBService
 //        UserDao userDao = new UserDaoHibernate(sessionManagerHibernate);
 //        DBServiceUser dbServiceUser = new DbServiceUserImpl(userDao);
-//        DBServiceUser dbServiceUserCache = new DbServiceUserCacheImpl(dbServiceUser, cache);
+//        DBServiceUser dbServiceUserCache = new DbServiceUserCacheImpl(dbServiceUser, new CustomCacheImpl<>());
 //
 //        // Запись юзера в базу
 //        List<PhoneDataSet> phoneDataSets = List.of(new PhoneDataSet("phone1"), new PhoneDataSet("phone2"),
@@ -189,7 +195,7 @@ public class HomeWork {
         sessionManagerHibernate.beginSession();
 
         UserDao userDao = new UserDaoHibernate(sessionManagerHibernate);
-        userDaoWithCache = new CachedUserDaoHibernate(userDao, cache);
+        userDaoWithCache = new CachedUserDaoHibernate(userDao, daoCache);
 
         // Запись юзера в базу
         List<PhoneDataSet> phoneDataSets = new ArrayList<>();
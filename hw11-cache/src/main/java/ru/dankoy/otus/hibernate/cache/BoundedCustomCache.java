@@ -0,0 +1,667 @@
+package ru.dankoy.otus.hibernate.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Ограниченный потокобезопасный кэш.
+ * <p>
+ * Записи хранятся по сильным ссылкам в ConcurrentHashMap, поэтому чтение не блокируется. Порядок вытеснения
+ * (LRU, LFU или TinyLFU) меняется под одной блокировкой: запись ее ждет, а чтение только пробует взять и при
+ * конкуренции пропускает обновление порядка. Суммарный вес записей не превышает maximumWeight. Записи
+ * истекают по времени жизни (expireAfterWrite, в том числе для отдельной записи) и по времени простоя
+ * (expireAfterAccess). Истекшие записи удаляются при обращении к ним и в cleanUp().
+ * <p>
+ * Загрузка через get(key, loader) выполняется одна на ключ: пока она идет, остальные потоки ждут ее future.
+ * getAll(keys, loader) загружает все свои промахи одним вызовом loader.
+ * Отсутствие значения (null от loader) кэшируется на отдельное, обычно более короткое время negativeTtl.
+ * Если задан refreshAfterWrite, запись старше этого времени при чтении перезагружается в фоне, а читатели
+ * до конца перезагрузки получают старое значение.
+ * <p>
+ * Попадания, промахи, вытеснения и загрузки считаются в CacheStatsCounter. Слушатели вызываются в потоке
+ * операции, поэтому медленные слушатели стоит оборачивать в AsyncCustomCacheListener.
+ */
+public class BoundedCustomCache<K, V> implements LoadingCustomCache<K, V> {
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    private static final long NO_NEGATIVE_CACHING = -1;
+    private static final int NEGATIVE_ENTRY_WEIGHT = 1;
+    private static final long DEFAULT_EXPECTED_SIZE = 256;
+
+    private final ConcurrentHashMap<K, CacheNode<K, V>> data = new ConcurrentHashMap<>();
+    private final List<CustomCacheListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    private final long maximumWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long negativeTtlNanos;
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier ticker;
+
+    // guarded by evictionLock
+    private final EvictionOrder<K, V> order;
+    private final FrequencySketch<K> sketch;
+    private long weightedSize;
+
+    private BoundedCustomCache(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.negativeTtlNanos = builder.negativeTtlNanos;
+        this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        this.refreshExecutor = builder.refreshExecutor;
+        this.ticker = builder.ticker;
+        this.order = EvictionOrder.of(builder.evictionPolicy);
+        this.sketch = builder.evictionPolicy == EvictionPolicy.TINY_LFU ? new FrequencySketch<>(builder.expectedSize) : null;
+    }
+
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCustomCache{" +
+                "size=" + data.size() +
+                ", weightedSize=" + weightedSize +
+                ", maximumWeight=" + maximumWeight +
+                '}';
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, expireAfterWriteNanos);
+    }
+
+    /**
+     * Кладет запись со своим временем жизни вместо expireAfterWrite кэша
+     *
+     * @param key
+     * @param value
+     * @param ttl
+     * @param unit
+     */
+    public void put(K key, V value, long ttl, TimeUnit unit) {
+        put(key, value, unit.toNanos(ttl));
+    }
+
+    private void put(K key, V value, long ttlNanos) {
+        Objects.requireNonNull(key);
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        // идущая загрузка уже не положит в кэш значение старее этого
+        loads.remove(key);
+        store(key, value, ttlNanos);
+    }
+
+    @Override
+    public void remove(K key) {
+        Objects.requireNonNull(key);
+        loads.remove(key);
+        invalidate(key);
+    }
+
+    private void invalidate(K key) {
+        invalidateNode(key).run();
+    }
+
+    /**
+     * @return оповещение слушателей, вызывается вне блокировок
+     */
+    private Runnable invalidateNode(K key) {
+        CacheNode<K, V> node;
+        evictionLock.lock();
+        try {
+            node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        V value = node == null ? null : node.value;
+        return () -> notify(key, value, "remove");
+    }
+
+    @Override
+    public V get(K key) {
+        Objects.requireNonNull(key);
+        CacheNode<K, V> node = lookup(key, ticker.getAsLong());
+        V value = node == null ? null : node.value;
+        notify(key, value, "get");
+        return value;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        long now = ticker.getAsLong();
+        CacheNode<K, V> node = lookup(key, now);
+        if (node == null) {
+            return load(key, loader);
+        }
+        if (refreshAfterWriteNanos != NO_EXPIRY && now - node.writeTime >= refreshAfterWriteNanos) {
+            refresh(key, loader);
+        }
+        notify(key, node.value, "get");
+        return node.value;
+    }
+
+    @Override
+    public void addListener(CustomCacheListener<K, V> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(CustomCacheListener<K, V> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Удаляет все истекшие записи
+     */
+    public void cleanUp() {
+        long now = ticker.getAsLong();
+        data.values().forEach(node -> {
+            if (isExpired(node, now)) {
+                expire(node);
+            }
+        });
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * @return счетчики статистики, для регистрации в JMX
+     */
+    public CacheStatsCounter getStatsCounter() {
+        return statsCounter;
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Попадания отдаются сразу, по ключам, которые уже грузятся другими потоками, ждем их загрузку,
+     * остальные промахи грузим одним вызовом loader.
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        Objects.requireNonNull(loader);
+        long now = ticker.getAsLong();
+        Set<K> uniqueKeys = new LinkedHashSet<>(keys);
+        // до регистрации загрузок, иначе брошенные future повесят ждущие их потоки
+        uniqueKeys.forEach(Objects::requireNonNull);
+        Map<K, V> found = new HashMap<>();
+        Map<K, CompletableFuture<V>> ownLoads = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> otherLoads = new HashMap<>();
+        for (K key : uniqueKeys) {
+            CacheNode<K, V> node = lookup(key, now);
+            if (node != null) {
+                if (node.value != null) {
+                    found.put(key, node.value);
+                }
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> running = loads.putIfAbsent(key, future);
+            if (running != null) {
+                otherLoads.put(key, running);
+            } else if (loadedMeanwhile(key, future)) {
+                V value = future.join();
+                if (value != null) {
+                    found.put(key, value);
+                }
+            } else {
+                ownLoads.put(key, future);
+            }
+        }
+        if (!ownLoads.isEmpty()) {
+            found.putAll(loadAllAndStore(ownLoads, loader));
+        }
+        otherLoads.forEach((key, future) -> {
+            V value = await(future);
+            if (value != null) {
+                found.put(key, value);
+            }
+        });
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : uniqueKeys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private CacheNode<K, V> lookup(K key, long now) {
+        CacheNode<K, V> node = data.get(key);
+        if (node != null && isExpired(node, now)) {
+            expire(node);
+            node = null;
+        }
+        afterRead(key, node, now);
+        if (node == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        return node;
+    }
+
+    /**
+     * Первый промахнувшийся поток регистрирует свой future и грузит значение, остальные ждут этот future.
+     */
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+        if (loadedMeanwhile(key, future)) {
+            return future.join();
+        }
+        return loadAndStore(key, loader, future);
+    }
+
+    /**
+     * Загрузка другого потока могла закончиться между промахом и регистрацией future, тогда ее значение
+     * уже в кэше и второй раз не грузится. Зарегистрированный future снимается и завершается этим значением.
+     */
+    private boolean loadedMeanwhile(K key, CompletableFuture<V> future) {
+        CacheNode<K, V> node = data.get(key);
+        if (node == null || isExpired(node, ticker.getAsLong())) {
+            return false;
+        }
+        loads.remove(key, future);
+        future.complete(node.value);
+        return true;
+    }
+
+    /**
+     * Перезагрузка в фоне. Если по ключу уже идет загрузка, вторая не запускается.
+     */
+    private void refresh(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadAndStore(key, loader, future);
+                } catch (RuntimeException | Error e) {
+                    // старое значение остается в кэше до истечения, ошибка уже посчитана в статистике
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loads.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private V loadAndStore(K key, Function<? super K, ? extends V> loader, CompletableFuture<V> future) {
+        long start = ticker.getAsLong();
+        V value;
+        try {
+            value = loader.apply(key);
+            statsCounter.recordLoadSuccess(ticker.getAsLong() - start);
+        } catch (RuntimeException | Error e) {
+            statsCounter.recordLoadFailure(ticker.getAsLong() - start);
+            loads.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        storeLoaded(key, value, future);
+        return value;
+    }
+
+    /**
+     * Загрузка всех промахов одним вызовом loader, futures - зарегистрированные этим потоком загрузки
+     */
+    private Map<K, V> loadAllAndStore(Map<K, CompletableFuture<V>> futures,
+                                      Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        long start = ticker.getAsLong();
+        Map<K, V> loaded;
+        try {
+            loaded = Objects.requireNonNull(loader.apply(Collections.unmodifiableSet(futures.keySet())));
+            statsCounter.recordLoadSuccess(ticker.getAsLong() - start);
+        } catch (RuntimeException | Error e) {
+            statsCounter.recordLoadFailure(ticker.getAsLong() - start);
+            futures.forEach((key, future) -> {
+                loads.remove(key, future);
+                future.completeExceptionally(e);
+            });
+            throw e;
+        }
+        Map<K, V> result = new HashMap<>();
+        futures.forEach((key, future) -> {
+            V value = loaded.get(key);
+            storeLoaded(key, value, future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Значение кладется в кэш до завершения future, поэтому после снятия future из loads следующий
+     * промах уже невозможен, пока запись жива. Кладется оно только если future еще зарегистрирован:
+     * put и remove снимают его, и тогда загруженное значение считается устаревшим.
+     * Слушатели вызываются после compute: внутри него обращение слушателя к кэшу по тому же ключу
+     * повисло бы на незавершенном future.
+     */
+    private void storeLoaded(K key, V value, CompletableFuture<V> future) {
+        List<Runnable> notifications = new ArrayList<>();
+        try {
+            loads.computeIfPresent(key, (k, current) -> {
+                if (current != future) {
+                    return current;
+                }
+                if (value != null) {
+                    notifications.addAll(storeNode(k, value, expireAfterWriteNanos));
+                } else if (negativeTtlNanos != NO_NEGATIVE_CACHING) {
+                    notifications.addAll(storeNode(k, null, negativeTtlNanos));
+                } else {
+                    notifications.add(invalidateNode(k));
+                }
+                return null;
+            });
+        } finally {
+            loads.remove(key, future);
+            future.complete(value);
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CacheLoaderException(cause);
+        }
+    }
+
+    /**
+     * value == null - отрицательная запись, она помнит, что значения нет
+     */
+    private void store(K key, V value, long ttlNanos) {
+        storeNode(key, value, ttlNanos).forEach(Runnable::run);
+    }
+
+    /**
+     * @return оповещения слушателей о записи и вытеснениях, вызываются вне блокировок
+     */
+    private List<Runnable> storeNode(K key, V value, long ttlNanos) {
+        int weight = value == null ? NEGATIVE_ENTRY_WEIGHT : weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight for the key: " + key);
+        }
+        long now = ticker.getAsLong();
+        long expireAt = ttlNanos == NO_EXPIRY ? NO_EXPIRY : now + ttlNanos;
+        CacheNode<K, V> node = new CacheNode<>(key, value, weight, now, expireAt);
+
+        List<CacheNode<K, V>> evicted = new ArrayList<>();
+        evictionLock.lock();
+        try {
+            CacheNode<K, V> old = data.put(key, node);
+            if (old != null) {
+                unlink(old);
+            }
+            order.add(node);
+            weightedSize += weight;
+            if (sketch != null) {
+                sketch.ensureCapacity(data.size());
+                sketch.increment(key);
+            }
+            evict(node, evicted);
+        } finally {
+            evictionLock.unlock();
+        }
+        List<Runnable> notifications = new ArrayList<>(evicted.size() + 1);
+        notifications.add(() -> notify(key, value, "put"));
+        evicted.forEach(victim -> notifications.add(() -> notify(victim.key, victim.value, "evict")));
+        return notifications;
+    }
+
+    private void evict(CacheNode<K, V> candidate, List<CacheNode<K, V>> evicted) {
+        while (weightedSize > maximumWeight) {
+            CacheNode<K, V> victim = order.victim();
+            if (victim == null) {
+                return;
+            }
+            if (sketch != null && candidate.alive && victim != candidate
+                    && sketch.frequency(candidate.key) < sketch.frequency(victim.key)) {
+                victim = candidate;
+            }
+            data.remove(victim.key, victim);
+            unlink(victim);
+            evicted.add(victim);
+            statsCounter.recordEviction();
+        }
+    }
+
+    private void expire(CacheNode<K, V> node) {
+        boolean removed;
+        evictionLock.lock();
+        try {
+            removed = data.remove(node.key, node);
+            if (removed) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        if (removed) {
+            notify(node.key, node.value, "expire");
+        }
+    }
+
+    /**
+     * Чтение не должно ждать записи, поэтому порядок обновляется только если блокировка свободна.
+     * Пропущенное обновление лишь немного искажает порядок вытеснения.
+     */
+    private void afterRead(K key, CacheNode<K, V> node, long now) {
+        if (node != null) {
+            node.accessTime = now;
+        }
+        if (evictionLock.tryLock()) {
+            try {
+                if (sketch != null) {
+                    sketch.increment(key);
+                }
+                if (node != null && node.alive) {
+                    order.access(node);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void unlink(CacheNode<K, V> node) {
+        if (node.alive) {
+            node.alive = false;
+            order.remove(node);
+            weightedSize -= node.weight;
+        }
+    }
+
+    private boolean isExpired(CacheNode<K, V> node, long now) {
+        return (node.expireAt != NO_EXPIRY && now - node.expireAt >= 0)
+                || (expireAfterAccessNanos != NO_EXPIRY && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    private void notify(K key, V value, String action) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        try {
+            listeners.forEach(l -> l.notify(key, value, action));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static class Builder<K, V> {
+
+        private long maximumWeight = Long.MAX_VALUE;
+        private long expectedSize = DEFAULT_EXPECTED_SIZE;
+        private ToIntBiFunction<? super K, ? super V> weigher = (key, value) -> 1;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+        private long expireAfterWriteNanos = NO_EXPIRY;
+        private long expireAfterAccessNanos = NO_EXPIRY;
+        private long negativeTtlNanos = NO_NEGATIVE_CACHING;
+        private long refreshAfterWriteNanos = NO_EXPIRY;
+        private Executor refreshExecutor = ForkJoinPool.commonPool();
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * Максимальное число записей. Каждая запись весит 1.
+         */
+        public Builder<K, V> setMaximumSize(long maximumSize) {
+            setMaximumWeight(maximumSize, (key, value) -> 1);
+            this.expectedSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Максимальный суммарный вес записей, вес записи считает weigher
+         */
+        public Builder<K, V> setMaximumWeight(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("Illegal maximum weight: " + maximumWeight);
+            }
+            this.maximumWeight = maximumWeight;
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        /**
+         * Ожидаемое число записей, по нему выделяется скетч TinyLFU. Для кэша с весами число записей
+         * не следует из максимального веса, без этой настройки скетч начинается с малого и растет вместе с кэшем.
+         */
+        public Builder<K, V> setExpectedSize(long expectedSize) {
+            if (expectedSize <= 0) {
+                throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+            }
+            this.expectedSize = expectedSize;
+            return this;
+        }
+
+        public Builder<K, V> setEvictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = Objects.requireNonNull(evictionPolicy);
+            return this;
+        }
+
+        public Builder<K, V> setExpireAfterWrite(Duration duration) {
+            this.expireAfterWriteNanos = toNanos(duration);
+            return this;
+        }
+
+        public Builder<K, V> setExpireAfterAccess(Duration duration) {
+            this.expireAfterAccessNanos = toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Время жизни отрицательной записи, когда loader вернул null. Без этой настройки отсутствие
+         * значения не кэшируется.
+         */
+        public Builder<K, V> setNegativeTtl(Duration duration) {
+            this.negativeTtlNanos = toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Через сколько после записи значение перезагружается в фоне при очередном get(key, loader)
+         */
+        public Builder<K, V> setRefreshAfterWrite(Duration duration) {
+            this.refreshAfterWriteNanos = toNanos(duration);
+            return this;
+        }
+
+        public Builder<K, V> setRefreshExecutor(Executor refreshExecutor) {
+            this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+            return this;
+        }
+
+        /**
+         * Источник времени в наносекундах, для тестов
+         */
+        public Builder<K, V> setTicker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        public BoundedCustomCache<K, V> build() {
+            return new BoundedCustomCache<>(this);
+        }
+
+        private static long toNanos(Duration duration) {
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+            try {
+                return Math.min(duration.toNanos(), NO_EXPIRY - 1);
+            } catch (ArithmeticException e) {
+                return NO_EXPIRY - 1;
+            }
+        }
+    }
+}
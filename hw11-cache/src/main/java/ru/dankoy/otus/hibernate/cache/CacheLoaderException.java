@@ -0,0 +1,8 @@
+package ru.dankoy.otus.hibernate.cache;
+
+public class CacheLoaderException extends RuntimeException {
+
+    public CacheLoaderException(Throwable cause) {
+        super(cause);
+    }
+}
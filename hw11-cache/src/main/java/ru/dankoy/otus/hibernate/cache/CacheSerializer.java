@@ -0,0 +1,12 @@
+package ru.dankoy.otus.hibernate.cache;
+
+/**
+ * Превращает значения кэша в байты для хранения вне кучи
+ */
+public interface CacheSerializer<V> {
+
+    byte[] serialize(V value);
+
+    V deserialize(byte[] bytes);
+
+}
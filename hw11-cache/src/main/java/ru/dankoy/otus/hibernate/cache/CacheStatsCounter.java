@@ -0,0 +1,90 @@
+package ru.dankoy.otus.hibernate.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики статистики кэша. LongAdder разносит инкременты из разных потоков по разным ячейкам, поэтому
+ * запись статистики на горячем пути чтения не создает конкуренции за одну переменную.
+ * Регистрируется в JMX как CacheStatsCounterMBean.
+ */
+public class CacheStatsCounter implements CacheStatsCounterMBean {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    public CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), loadSuccessCount.sum(),
+                loadFailureCount.sum(), totalLoadTime.sum());
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        return snapshot().getHitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return loadSuccessCount.sum();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    @Override
+    public double getAverageLoadPenalty() {
+        return snapshot().getAverageLoadPenalty();
+    }
+
+    @Override
+    public void reset() {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+        loadSuccessCount.reset();
+        loadFailureCount.reset();
+        totalLoadTime.reset();
+    }
+}
@@ -1,5 +1,9 @@
 package ru.dankoy.otus.hibernate.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public interface CustomCache<K, V> {
 
     void put(K key, V value);
@@ -8,6 +12,25 @@ public interface CustomCache<K, V> {
 
     V get(K key);
 
+    /**
+     * @param keys
+     * @return найденные в кэше значения в порядке ключей, отсутствующих ключей в результате нет
+     */
+    default Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    default void putAll(Map<? extends K, ? extends V> map) {
+        map.forEach(this::put);
+    }
+
     void addListener(CustomCacheListener<K, V> listener);
 
     void removeListener(CustomCacheListener<K, V> listener);
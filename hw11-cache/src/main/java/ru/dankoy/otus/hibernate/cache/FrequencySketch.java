@@ -0,0 +1,120 @@
+package ru.dankoy.otus.hibernate.cache;
+
+/**
+ * Count-Min скетч для оценки частоты обращений к ключу: DEPTH строк по rowWidth счетчиков, ключ попадает
+ * в один счетчик каждой строки, частота - минимум из них. Счетчики насыщаются на MAX_FREQUENCY.
+ * После sampleSize увеличений все счетчики делятся пополам, так что скетч помнит недавнюю популярность,
+ * а не всю историю.
+ * <p>
+ * Индексы строк получаются двойным хэшированием: 64-битный хэш ключа делится на две половины h1 и h2,
+ * индекс строки row - (h1 + row * h2) по модулю rowWidth.
+ * <p>
+ * Ширина рассчитана на ожидаемое число записей, в строке COUNTERS_PER_ENTRY счетчиков на запись, чтобы
+ * пореже ловить коллизии. Счетчик - байт, так что на запись уходит DEPTH * COUNTERS_PER_ENTRY байт.
+ * Ширина растет через ensureCapacity вслед за кэшем, при росте счетчики обнуляются.
+ * Не потокобезопасен, вызывается под блокировкой кэша.
+ */
+final class FrequencySketch<K> {
+
+    private static final int DEPTH = 4;
+    private static final int COUNTERS_PER_ENTRY = 2;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int MIN_WIDTH = 8;
+    private static final int MAX_WIDTH = 1 << 24;
+    private static final int SAMPLE_FACTOR = 10;
+
+    private byte[] counters;
+    private int width;
+    private int rowWidth;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch(long expectedSize) {
+        allocate(widthFor(expectedSize));
+    }
+
+    /**
+     * Увеличивает таблицу, если она мала для expectedSize записей
+     */
+    void ensureCapacity(long expectedSize) {
+        int newWidth = widthFor(expectedSize);
+        if (newWidth > width) {
+            allocate(newWidth);
+        }
+    }
+
+    int tableSize() {
+        return width;
+    }
+
+    int frequency(K key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[counterIndex(row, h1, h2)]);
+        }
+        return frequency;
+    }
+
+    void increment(K key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = counterIndex(row, h1, h2);
+            if (counters[index] < MAX_FREQUENCY) {
+                counters[index]++;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            halve();
+        }
+    }
+
+    private void halve() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+        }
+        size >>>= 1;
+    }
+
+    /**
+     * h2 нечетный, поэтому при ширине строки - степени двойки строки не схлопываются в один индекс
+     */
+    private int counterIndex(int row, int h1, int h2) {
+        return row * rowWidth + ((h1 + row * h2) & (rowWidth - 1));
+    }
+
+    private void allocate(int newWidth) {
+        width = newWidth;
+        rowWidth = newWidth * COUNTERS_PER_ENTRY;
+        counters = new byte[DEPTH * rowWidth];
+        sampleSize = (int) Math.min((long) SAMPLE_FACTOR * newWidth, Integer.MAX_VALUE);
+        size = 0;
+    }
+
+    private static int widthFor(long expectedSize) {
+        if (expectedSize <= MIN_WIDTH) {
+            return MIN_WIDTH;
+        }
+        if (expectedSize >= MAX_WIDTH) {
+            return MAX_WIDTH;
+        }
+        return Integer.highestOneBit((int) expectedSize - 1) << 1;
+    }
+
+    /**
+     * Перемешивает hashCode ключа в 64 бита, чтобы у близких hashCode (например, у Long подряд)
+     * индексы в строках не шли подряд
+     */
+    private static long hash(Object key) {
+        long h = key.hashCode() * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 31;
+        h *= 0xbf58476d1ce4e5b9L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -3,11 +3,14 @@ package ru.dankoy.otus.hibernate.core.dao;
 import ru.dankoy.otus.hibernate.core.model.User;
 import ru.dankoy.otus.hibernate.core.sessionmanager.SessionManager;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserDao {
     Optional<User> findById(long id);
 
+    List<User> getAllUsers();
+
     long insertUser(User user);
 
     void updateUser(User user);
@@ -1,13 +1,21 @@
 package ru.dankoy.otus.hibernate.core.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
+import java.io.Serializable;
+
 /**
  * @author ezelenin
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Entity
 @Table(name = "tAddress")
-public class AddressDataSet {
+public class AddressDataSet implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
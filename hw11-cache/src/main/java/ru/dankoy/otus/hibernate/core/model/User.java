@@ -1,5 +1,9 @@
 package ru.dankoy.otus.hibernate.core.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.*;
@@ -9,10 +13,17 @@ import javax.persistence.*;
  * <p>
  * Памятка.
  * Запись JoinColumn указывает новый столбец
+ * <p>
+ * Юзер, адрес, телефоны и коллекция телефонов кэшируются во 2 уровне (CustomCacheRegionFactory). Адрес при
+ * сборке юзера из кэша все равно читается запросом: это обратная сторона OneToOne, hibernate ищет ее по user_id,
+ * а кэш 2 уровня ищет только по id.
  */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Entity
 @Table(name = "tUser")
-public class User {
+public class User implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -29,6 +40,7 @@ public class User {
     private AddressDataSet address = new AddressDataSet();
 
     @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<PhoneDataSet> phoneDataSets = new ArrayList<>();
 
     public User() {
@@ -2,6 +2,7 @@ package ru.dankoy.otus.hibernate.core.service.userservice;
 
 import ru.dankoy.otus.hibernate.core.model.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface DBServiceUser {
@@ -9,4 +10,6 @@ public interface DBServiceUser {
     long saveUser(User user);
 
     Optional<User> getUser(long id);
+
+    List<User> getAllUsers();
 }
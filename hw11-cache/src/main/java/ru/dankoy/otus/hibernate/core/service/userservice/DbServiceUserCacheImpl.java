@@ -6,6 +6,7 @@ import ru.dankoy.otus.hibernate.cache.CustomCache;
 import ru.dankoy.otus.hibernate.core.model.User;
 import ru.dankoy.otus.hibernate.core.service.DbServiceException;
 
+import java.util.List;
 import java.util.Optional;
 
 public class DbServiceUserCacheImpl implements DBServiceUser {
@@ -41,4 +42,11 @@ public class DbServiceUserCacheImpl implements DBServiceUser {
             return dbServiceUser.getUser(id);
         }
     }
+
+    @Override
+    public List<User> getAllUsers() {
+        List<User> users = dbServiceUser.getAllUsers();
+        users.forEach(user -> cache.put(user.getId(), Optional.of(user)));
+        return users;
+    }
 }
@@ -6,6 +6,8 @@ import ru.dankoy.otus.hibernate.core.dao.UserDao;
 import ru.dankoy.otus.hibernate.core.model.User;
 import ru.dankoy.otus.hibernate.core.service.DbServiceException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class DbServiceUserImpl implements DBServiceUser {
@@ -37,7 +39,7 @@ public class DbServiceUserImpl implements DBServiceUser {
     @Override
     public Optional<User> getUser(long id) {
         try (var sessionManager = userDao.getSessionManager()) {
-            sessionManager.beginSession();
+            sessionManager.beginReadOnlySession();
             try {
                 Optional<User> userOptional = userDao.findById(id);
 
@@ -50,4 +52,21 @@ public class DbServiceUserImpl implements DBServiceUser {
             return Optional.empty();
         }
     }
+
+    @Override
+    public List<User> getAllUsers() {
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
+            try {
+                List<User> users = userDao.getAllUsers();
+
+                logger.info("users: {}", users);
+                return users;
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                sessionManager.rollbackSession();
+            }
+            return new ArrayList<>();
+        }
+    }
 }
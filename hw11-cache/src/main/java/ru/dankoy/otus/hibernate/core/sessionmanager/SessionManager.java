@@ -3,6 +3,14 @@ package ru.dankoy.otus.hibernate.core.sessionmanager;
 public interface SessionManager extends AutoCloseable {
     void beginSession();
 
+    /**
+     * Сессия только для чтения. Реализация может не следить за изменениями объектов и не сбрасывать их в базу,
+     * изменения в такой сессии не сохраняются. По умолчанию - обычная сессия.
+     */
+    default void beginReadOnlySession() {
+        beginSession();
+    }
+
     void commitSession();
 
     void rollbackSession();
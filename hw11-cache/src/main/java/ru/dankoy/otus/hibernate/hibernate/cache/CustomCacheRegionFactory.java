@@ -0,0 +1,80 @@
+package ru.dankoy.otus.hibernate.hibernate.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import ru.dankoy.otus.hibernate.cache.BoundedCustomCache;
+import ru.dankoy.otus.hibernate.cache.CustomCache;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Кэш 2 уровня hibernate на BoundedCustomCache. Подключается так:
+ * <pre>
+ * hibernate.cache.use_second_level_cache=true
+ * hibernate.cache.use_query_cache=true
+ * hibernate.cache.region.factory_class=ru.dankoy.otus.hibernate.hibernate.cache.CustomCacheRegionFactory
+ * </pre>
+ * Кэшируются сущности и коллекции с аннотацией {@link org.hibernate.annotations.Cache}, каждый регион
+ * ограничен {@value #MAXIMUM_SIZE} записями (по умолчанию {@value #DEFAULT_MAXIMUM_SIZE}), а если задан
+ * {@value #EXPIRE_AFTER_WRITE_SECONDS}, записи еще и истекают.
+ * <p>
+ * Регион отметок времени не вытесняется и не истекает: по нему hibernate решает, устарели ли результаты
+ * запросов, и потерянная отметка сделала бы старый результат снова годным.
+ */
+public class CustomCacheRegionFactory extends RegionFactoryTemplate {
+
+    public static final String MAXIMUM_SIZE = "hibernate.cache.custom.maximum_size";
+    public static final String EXPIRE_AFTER_WRITE_SECONDS = "hibernate.cache.custom.expire_after_write_seconds";
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int NO_EXPIRY = -1;
+
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private int expireAfterWriteSeconds = NO_EXPIRY;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        maximumSize = ConfigurationHelper.getInt(MAXIMUM_SIZE, configValues, DEFAULT_MAXIMUM_SIZE);
+        expireAfterWriteSeconds = ConfigurationHelper.getInt(EXPIRE_AFTER_WRITE_SECONDS, configValues, NO_EXPIRY);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        // регионы освобождает hibernate через StorageAccess.release()
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new CustomCacheStorageAccess(this::newBoundedCache);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new CustomCacheStorageAccess(this::newBoundedCache);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new CustomCacheStorageAccess(() -> BoundedCustomCache.newBuilder().build());
+    }
+
+    private CustomCache<Object, Object> newBoundedCache() {
+        BoundedCustomCache.Builder<Object, Object> builder = BoundedCustomCache.newBuilder()
+                .setMaximumSize(maximumSize);
+        if (expireAfterWriteSeconds != NO_EXPIRY) {
+            builder.setExpireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds));
+        }
+        return builder.build();
+    }
+}
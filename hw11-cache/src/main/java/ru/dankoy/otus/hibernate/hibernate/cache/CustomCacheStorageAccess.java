@@ -0,0 +1,53 @@
+package ru.dankoy.otus.hibernate.hibernate.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import ru.dankoy.otus.hibernate.cache.CustomCache;
+
+import java.util.function.Supplier;
+
+/**
+ * Хранилище одного региона кэша 2 уровня поверх CustomCache. Блокировки и версии записей ведет стратегия
+ * доступа hibernate, здесь только хранение. Очистка региона заменяет кэш новым, так как CustomCache не умеет
+ * очищаться целиком.
+ */
+class CustomCacheStorageAccess implements DomainDataStorageAccess {
+
+    private final Supplier<CustomCache<Object, Object>> cacheFactory;
+    private volatile CustomCache<Object, Object> cache;
+
+    CustomCacheStorageAccess(Supplier<CustomCache<Object, Object>> cacheFactory) {
+        this.cacheFactory = cacheFactory;
+        this.cache = cacheFactory.get();
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.get(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        cache = cacheFactory.get();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        cache.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+}
@@ -1,18 +1,23 @@
 package ru.dankoy.otus.hibernate.hibernate.cacheddao;
 
-import ru.dankoy.otus.hibernate.cache.CustomCache;
+import ru.dankoy.otus.hibernate.cache.LoadingCustomCache;
 import ru.dankoy.otus.hibernate.core.dao.UserDao;
 import ru.dankoy.otus.hibernate.core.model.User;
 import ru.dankoy.otus.hibernate.core.sessionmanager.SessionManager;
 
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Dao с кэшем поверх UserDao. Промахи по одному id из разных потоков ждут один запрос в базу, отсутствие
+ * юзера кэш помнит сам (negativeTtl), поэтому повторный поиск несуществующего id в базу не ходит.
+ */
 public class CachedUserDaoHibernate implements UserDao {
 
     private final UserDao userDaoHibernate;
-    private final CustomCache<Long, Optional<User>> cache;
+    private final LoadingCustomCache<Long, User> cache;
 
-    public CachedUserDaoHibernate(UserDao userDaoHibernate, CustomCache<Long, Optional<User>> cache) {
+    public CachedUserDaoHibernate(UserDao userDaoHibernate, LoadingCustomCache<Long, User> cache) {
         this.userDaoHibernate = userDaoHibernate;
         this.cache = cache;
     }
@@ -21,22 +26,27 @@ public class CachedUserDaoHibernate implements UserDao {
     @Override
     public Optional<User> findById(long id) {
 
-        Optional<User> userFromCache = cache.get(id);
-        if (userFromCache.isEmpty()) {
-            Optional<User> foundUser = userDaoHibernate.findById(id);
-            cache.put(id, foundUser);
-            return foundUser;
-        } else {
-            return userFromCache;
-        }
+        return Optional.ofNullable(cache.get(id, key -> userDaoHibernate.findById(key).orElse(null)));
 
     }
 
+    /**
+     * Список целиком кэш по id не хранит, поэтому всегда идет в базу, а найденных юзеров кладет в кэш
+     */
+    @Override
+    public List<User> getAllUsers() {
+
+        List<User> users = userDaoHibernate.getAllUsers();
+        users.forEach(user -> cache.put(user.getId(), user));
+
+        return users;
+    }
+
     @Override
     public long insertUser(User user) {
 
         long userId = userDaoHibernate.insertUser(user);
-        cache.put(userId, Optional.ofNullable(user));
+        cache.put(userId, user);
 
         return userId;
     }
@@ -45,7 +55,7 @@ public class CachedUserDaoHibernate implements UserDao {
     public void updateUser(User user) {
 
         userDaoHibernate.updateUser(user);
-        cache.put(user.getId(), Optional.of(user));
+        cache.put(user.getId(), user);
 
     }
 
@@ -53,7 +63,7 @@ public class CachedUserDaoHibernate implements UserDao {
     public void insertOrUpdate(User user) {
 
         userDaoHibernate.insertOrUpdate(user);
-        cache.put(user.getId(), Optional.of(user));
+        cache.put(user.getId(), user);
 
     }
 
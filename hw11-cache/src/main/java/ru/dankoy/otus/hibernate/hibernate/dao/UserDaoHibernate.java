@@ -10,6 +10,7 @@ import ru.dankoy.otus.hibernate.core.sessionmanager.SessionManager;
 import ru.dankoy.otus.hibernate.hibernate.sessionmanager.DatabaseSessionHibernate;
 import ru.dankoy.otus.hibernate.hibernate.sessionmanager.SessionManagerHibernate;
 
+import java.util.List;
 import java.util.Optional;
 
 public class UserDaoHibernate implements UserDao {
@@ -34,6 +35,24 @@ public class UserDaoHibernate implements UserDao {
         return Optional.empty();
     }
 
+    /**
+     * Результат запроса кэшируется: пока таблица юзеров не менялась, повторный вызов берет из кэша запросов
+     * список id, а самих юзеров из кэша 2 уровня.
+     */
+    @Override
+    public List<User> getAllUsers() {
+        DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
+        try {
+            return currentSession.getHibernateSession()
+                    .createQuery("select u from User u order by u.id", User.class)
+                    .setCacheable(true)
+                    .getResultList();
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            throw new UserDaoException(e);
+        }
+    }
+
     @Override
     public long insertUser(User user) {
         DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
@@ -1,5 +1,6 @@
 package ru.dankoy.otus.hibernate.hibernate.sessionmanager;
 
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -27,6 +28,24 @@ public class SessionManagerHibernate implements SessionManager {
         }
     }
 
+    /**
+     * Объекты загружаются read only: hibernate не хранит их снимки и не проверяет на изменения, flush только ручной,
+     * поэтому commit ничего не сбрасывает. Соединение помечается read only до начала транзакции, пул возвращает
+     * ему исходное состояние при возврате (HikariCP так делает).
+     */
+    @Override
+    public void beginReadOnlySession() {
+        try {
+            Session session = sessionFactory.openSession();
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.doWork(connection -> connection.setReadOnly(true));
+            databaseSession = new DatabaseSessionHibernate(session);
+        } catch (Exception e) {
+            throw new SessionManagerException(e);
+        }
+    }
+
     @Override
     public void commitSession() {
         checkSessionAndTransaction();
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.dankoy.otus.hibernate.cache.BoundedCustomCache;
 import ru.dankoy.otus.hibernate.cache.CustomCache;
 import ru.dankoy.otus.hibernate.cache.CustomCacheImpl;
 import ru.dankoy.otus.hibernate.cache.CustomCacheListener;
 import ru.dankoy.otus.hibernate.cache.CustomCacheListenerImpl;
+import ru.dankoy.otus.hibernate.cache.LoadingCustomCache;
 import ru.dankoy.otus.hibernate.core.dao.AddressDataSetDao;
 import ru.dankoy.otus.hibernate.core.dao.PhoneDataSetDao;
 import ru.dankoy.otus.hibernate.core.dao.UserDao;
@@ -24,6 +26,7 @@ import ru.dankoy.otus.hibernate.hibernate.dao.UserDaoHibernate;
 import ru.dankoy.otus.hibernate.hibernate.sessionmanager.SessionManagerHibernate;
 import ru.dankoy.otus.hibernate.hibernate.utils.HibernateUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -47,8 +50,11 @@ class HibernateTests {
     @BeforeEach
     public void setUp() {
 
-        CustomCache<Long, Optional<User>> cache = new CustomCacheImpl<>();
-        CustomCacheListener<Long, Optional<User>> listener = new CustomCacheListenerImpl<>();
+        LoadingCustomCache<Long, User> cache = BoundedCustomCache.<Long, User>newBuilder()
+                .setMaximumSize(1000)
+                .setNegativeTtl(Duration.ofSeconds(30))
+                .build();
+        CustomCacheListener<Long, User> listener = new CustomCacheListenerImpl<>();
         cache.addListener(listener);
 
         sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
@@ -227,5 +233,28 @@ class HibernateTests {
 
     }
 
+    @Test
+    @DisplayName("Проверка, что изменения юзера в сессии только для чтения не сохраняются в базу")
+    void readOnlySessionDoesNotFlushChanges() {
 
+        sessionManagerHibernate.beginSession();
+        List<PhoneDataSet> phoneDataSets = List.of(new PhoneDataSet("phone1"));
+        AddressDataSet addressDataSet = new AddressDataSet("nice address");
+        User newUser = new User("name", 12, addressDataSet, phoneDataSets);
+        addressDataSet.setUser(newUser);
+        phoneDataSets.forEach(phone -> phone.setUser(newUser));
+        var userId = userDao.insertUser(newUser);
+        sessionManagerHibernate.commitSession();
+
+        sessionManagerHibernate.beginReadOnlySession();
+        User readOnlyUser = userDao.findById(userId).orElseThrow();
+        readOnlyUser.setName("changed");
+        sessionManagerHibernate.commitSession();
+
+        sessionManagerHibernate.beginSession();
+        Optional<User> foundUser = userDao.findById(userId);
+        assertThat(foundUser).hasValueSatisfying(user -> assertThat(user.getName()).isEqualTo("name"));
+        sessionManagerHibernate.commitSession();
+
+    }
 }
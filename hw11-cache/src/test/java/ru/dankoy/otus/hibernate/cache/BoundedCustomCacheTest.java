@@ -0,0 +1,366 @@
+package ru.dankoy.otus.hibernate.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class BoundedCustomCacheTest {
+
+    @Test
+    @DisplayName("LRU вытесняет запись, к которой дольше всего не обращались")
+    void lruEviction() {
+
+        CustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setMaximumSize(3)
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .build();
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+        cache.get(1L);
+        cache.put(4L, "four");
+
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(4L)).isEqualTo("four");
+
+    }
+
+    @Test
+    @DisplayName("LFU вытесняет запись с наименьшим числом обращений")
+    void lfuEviction() {
+
+        CustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setMaximumSize(3)
+                .setEvictionPolicy(EvictionPolicy.LFU)
+                .build();
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+        cache.put(4L, "four");
+
+        assertThat(cache.get(3L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(2L)).isEqualTo("two");
+
+    }
+
+    @Test
+    @DisplayName("TinyLFU не пускает редкий ключ на место популярного")
+    void tinyLfuAdmission() {
+
+        BoundedCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setMaximumSize(3)
+                .setEvictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+        for (int i = 0; i < 5; i++) {
+            cache.get(1L);
+            cache.get(2L);
+            cache.get(3L);
+        }
+        cache.put(4L, "four");
+
+        assertThat(cache.get(4L)).isNull();
+        assertThat(cache.size()).isEqualTo(3);
+
+    }
+
+    @Test
+    @DisplayName("Записи истекают по времени жизни и простоя")
+    void expiration() {
+
+        AtomicLong now = new AtomicLong();
+        BoundedCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setExpireAfterWrite(Duration.ofSeconds(10))
+                .setExpireAfterAccess(Duration.ofSeconds(3))
+                .setTicker(now::get)
+                .build();
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three", 1, TimeUnit.SECONDS);
+
+        now.set(TimeUnit.SECONDS.toNanos(2));
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(3L)).isNull();
+
+        now.set(TimeUnit.SECONDS.toNanos(4));
+        assertThat(cache.get(1L)).isEqualTo("one");
+        assertThat(cache.get(2L)).isNull();
+
+        now.set(TimeUnit.SECONDS.toNanos(11));
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.size()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Суммарный вес записей не превышает максимальный")
+    void maximumWeight() {
+
+        BoundedCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setMaximumWeight(10, (key, value) -> value.length())
+                .build();
+
+        cache.put(1L, "aaaa");
+        cache.put(2L, "bbbb");
+        cache.put(3L, "cccc");
+
+        assertThat(cache.weightedSize()).isEqualTo(8);
+        assertThat(cache.get(1L)).isNull();
+
+    }
+
+    @Test
+    @DisplayName("Размер кэша ограничен при конкурентной нагрузке")
+    void concurrentLoad() throws InterruptedException {
+
+        int maximumSize = 1000;
+        BoundedCustomCache<Integer, Integer> cache = BoundedCustomCache.<Integer, Integer>newBuilder()
+                .setMaximumSize(maximumSize)
+                .setEvictionPolicy(EvictionPolicy.TINY_LFU)
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    int key = ThreadLocalRandom.current().nextInt(5000);
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(cache.size()).isLessThanOrEqualTo(maximumSize);
+        assertThat(cache.weightedSize()).isEqualTo(cache.size());
+
+    }
+
+    @Test
+    @DisplayName("Статистика считает попадания, промахи и вытеснения")
+    void stats() {
+
+        BoundedCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setMaximumSize(1)
+                .build();
+
+        cache.put(1L, "one");
+        cache.get(1L);
+        cache.get(2L);
+        cache.put(2L, "two");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+        assertThat(stats.getEvictionCount()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Асинхронный слушатель получает события в своем потоке")
+    void asyncListener() throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(2);
+        Thread cacheThread = Thread.currentThread();
+        CustomCacheListener<Long, String> slowListener = (key, value, action) -> {
+            assertThat(Thread.currentThread()).isNotEqualTo(cacheThread);
+            latch.countDown();
+        };
+
+        BoundedCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder().build();
+        try (AsyncCustomCacheListener<Long, String> listener = new AsyncCustomCacheListener<>(slowListener, 16)) {
+            cache.addListener(listener);
+            cache.put(1L, "one");
+            cache.get(1L);
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+    }
+
+    @Test
+    @DisplayName("Одновременные промахи по одному ключу вызывают loader один раз")
+    void coalescedLoad() throws InterruptedException {
+
+        int threads = 8;
+        LoadingCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder().build();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int idx = 0; idx < threads; idx++) {
+            executor.execute(() -> {
+                String value = cache.get(1L, key -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    try {
+                        releaseLoader.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "one";
+                });
+                assertThat(value).isEqualTo("one");
+                done.countDown();
+            });
+        }
+        assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // даем остальным потокам встать в ожидание загрузки
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(loads.get()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Отсутствие значения кэшируется на negativeTtl")
+    void negativeCaching() {
+
+        AtomicLong time = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setExpireAfterWrite(Duration.ofMinutes(10))
+                .setNegativeTtl(Duration.ofSeconds(1))
+                .setTicker(time::get)
+                .build();
+
+        assertThat(cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return null;
+        })).isNull();
+        assertThat(cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return null;
+        })).isNull();
+        assertThat(loads.get()).isEqualTo(1);
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return "one";
+        })).isEqualTo("one");
+        assertThat(loads.get()).isEqualTo(2);
+
+    }
+
+    @Test
+    @DisplayName("Старая запись перезагружается в фоне, читатель получает старое значение")
+    void refreshAhead() {
+
+        AtomicLong time = new AtomicLong();
+        List<Runnable> refreshTasks = new ArrayList<>();
+        LoadingCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setRefreshAfterWrite(Duration.ofSeconds(1))
+                .setRefreshExecutor(refreshTasks::add)
+                .setTicker(time::get)
+                .build();
+
+        cache.put(1L, "old");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertThat(cache.get(1L, key -> "new")).isEqualTo("old");
+        // перезагрузка уже запущена, вторую не ставим
+        assertThat(cache.get(1L, key -> "newer")).isEqualTo("old");
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.get(0).run();
+        assertThat(cache.get(1L)).isEqualTo("new");
+
+    }
+
+    @Test
+    @DisplayName("getAll загружает все промахи одним вызовом loader")
+    void batchLoad() {
+
+        List<Set<Long>> requests = new ArrayList<>();
+        LoadingCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder()
+                .setNegativeTtl(Duration.ofMinutes(1))
+                .build();
+        cache.put(2L, "two");
+
+        Map<Long, String> values = cache.getAll(List.of(3L, 1L, 2L, 4L), misses -> {
+            requests.add(new HashSet<>(misses));
+            Map<Long, String> loaded = new HashMap<>();
+            misses.stream().filter(key -> key != 4L).forEach(key -> loaded.put(key, "value" + key));
+            return loaded;
+        });
+
+        assertThat(values).containsExactly(entry(3L, "value3"), entry(1L, "value1"), entry(2L, "two"));
+        assertThat(requests).containsExactly(Set.of(1L, 3L, 4L));
+
+        // 4 закэширован как отсутствующий, поэтому второй загрузки нет
+        assertThat(cache.getAll(List.of(1L, 2L, 3L, 4L), misses -> {
+            requests.add(new HashSet<>(misses));
+            return Map.of();
+        })).hasSize(3);
+        assertThat(requests).hasSize(1);
+
+    }
+
+    @Test
+    @DisplayName("Слушатель загрузки вызывается вне блокировки ключа и не задерживает другие потоки")
+    void listenerIsCalledOutsideLoadLock() {
+
+        LoadingCustomCache<Long, String> cache = BoundedCustomCache.<Long, String>newBuilder().build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean firstPut = new AtomicBoolean(true);
+        List<Boolean> otherThreadPuts = new ArrayList<>();
+        cache.addListener((key, value, action) -> {
+            if ("put".equals(action) && firstPut.compareAndSet(true, false)) {
+                try {
+                    executor.submit(() -> cache.put(key, "two")).get(1, TimeUnit.SECONDS);
+                    otherThreadPuts.add(true);
+                } catch (Exception e) {
+                    otherThreadPuts.add(false);
+                }
+            }
+        });
+
+        try {
+            assertThat(cache.get(1L, key -> "one")).isEqualTo("one");
+            assertThat(otherThreadPuts).containsExactly(true);
+            assertThat(cache.get(1L)).isEqualTo("two");
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package ru.dankoy.otus.hibernate.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrequencySketchTest {
+
+    @Test
+    @DisplayName("Таблица скетча рассчитана на ожидаемое число записей, а не на максимальный вес")
+    void tableSizedByExpectedSize() {
+
+        FrequencySketch<Long> sketch = new FrequencySketch<>(1000);
+
+        assertThat(sketch.tableSize()).isEqualTo(1024);
+
+    }
+
+    @Test
+    @DisplayName("Таблица растет вслед за числом записей и не уменьшается")
+    void ensureCapacityGrowsTable() {
+
+        FrequencySketch<Long> sketch = new FrequencySketch<>(16);
+        sketch.increment(1L);
+
+        sketch.ensureCapacity(8);
+        assertThat(sketch.tableSize()).isEqualTo(16);
+        assertThat(sketch.frequency(1L)).isEqualTo(1);
+
+        sketch.ensureCapacity(5000);
+        assertThat(sketch.tableSize()).isEqualTo(8192);
+        assertThat(sketch.frequency(1L)).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Частота считается по ключу и ограничена 15")
+    void frequencyIsCounted() {
+
+        FrequencySketch<Long> sketch = new FrequencySketch<>(64);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(1L);
+        }
+        sketch.increment(2L);
+
+        assertThat(sketch.frequency(1L)).isEqualTo(15);
+        assertThat(sketch.frequency(2L)).isEqualTo(1);
+
+    }
+}
@@ -0,0 +1,81 @@
+package ru.dankoy.otus.hibernate.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.dankoy.otus.hibernate.core.model.AddressDataSet;
+import ru.dankoy.otus.hibernate.core.model.PhoneDataSet;
+import ru.dankoy.otus.hibernate.core.model.User;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredCustomCacheTest {
+
+    @Test
+    @DisplayName("Вытесненная из кучи запись опускается вне кучи и поднимается обратно при чтении")
+    void demotionAndPromotion() {
+
+        try (TieredCustomCache<Long, User> cache = TieredCustomCache.<Long, User>newBuilder()
+                .setHeapMaximumSize(1)
+                .setOffHeapMaximumBytes(1024 * 1024)
+                .build()) {
+
+            User first = newUser("first");
+            cache.put(1L, first);
+            cache.put(2L, newUser("second"));
+
+            assertThat(cache.heapSize()).isEqualTo(1);
+            assertThat(cache.offHeapSize()).isEqualTo(1);
+            assertThat(cache.offHeapUsedBytes()).isPositive();
+
+            User promoted = cache.get(1L);
+            assertThat(promoted).isNotSameAs(first);
+            assertThat(promoted.toString()).isEqualTo(first.toString());
+            assertThat(promoted.getPhoneDataSets().get(0).getUser()).isSameAs(promoted);
+            // поднятая запись вытеснила вторую
+            assertThat(cache.offHeapSize()).isEqualTo(1);
+        }
+
+    }
+
+    @Test
+    @DisplayName("Объем вне кучи ограничен в байтах, лишнее уходит на диск, а с диска теряется")
+    void byteSizeEviction(@TempDir Path tempDir) {
+
+        String value = "x".repeat(300);
+        try (TieredCustomCache<Integer, String> cache = TieredCustomCache.<Integer, String>newBuilder()
+                .setHeapMaximumSize(2)
+                .setOffHeapMaximumBytes(1024)
+                .setBlockSize(64)
+                .setDisk(tempDir.resolve("cache.bin"), 2048)
+                .build()) {
+
+            for (int idx = 0; idx < 20; idx++) {
+                cache.put(idx, value + idx);
+            }
+
+            assertThat(cache.offHeapUsedBytes()).isLessThanOrEqualTo(1024);
+            assertThat(cache.diskSize()).isPositive();
+            assertThat(cache.diskUsedBytes()).isLessThanOrEqualTo(2048);
+            assertThat(cache.stats().getEvictionCount()).isPositive();
+            assertThat(cache.get(0)).isNull();
+            assertThat(cache.get(8)).isNull();
+            assertThat(cache.get(19)).isEqualTo(value + 19);
+            assertThat(cache.get(12)).isEqualTo(value + 12);
+        }
+
+    }
+
+    private static User newUser(String name) {
+        List<PhoneDataSet> phoneDataSets = List.of(new PhoneDataSet("phone1"), new PhoneDataSet("phone2"));
+        AddressDataSet addressDataSet = new AddressDataSet("nice address");
+        User user = new User(name, 12, addressDataSet, phoneDataSets);
+        addressDataSet.setUser(user);
+        phoneDataSets.forEach(phone -> phone.setUser(user));
+        return user;
+    }
+
+}
@@ -0,0 +1,177 @@
+package ru.dankoy.otus.hibernate.hibernate.cache;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.dankoy.otus.hibernate.cache.BoundedCustomCache;
+import ru.dankoy.otus.hibernate.core.dao.UserDao;
+import ru.dankoy.otus.hibernate.core.model.AddressDataSet;
+import ru.dankoy.otus.hibernate.core.model.PhoneDataSet;
+import ru.dankoy.otus.hibernate.core.model.User;
+import ru.dankoy.otus.hibernate.hibernate.StatementCounter;
+import ru.dankoy.otus.hibernate.hibernate.cacheddao.CachedUserDaoHibernate;
+import ru.dankoy.otus.hibernate.hibernate.dao.UserDaoHibernate;
+import ru.dankoy.otus.hibernate.hibernate.sessionmanager.SessionManagerHibernate;
+import ru.dankoy.otus.hibernate.hibernate.utils.HibernateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение кэша 2 уровня на CustomCacheRegionFactory с кэшем-оберткой над dao (CachedUserDaoHibernate)
+ * по числу запросов в базу. Каждое чтение идет в новой сессии, поэтому кэш 1 уровня не помогает.
+ */
+class SecondLevelCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheTest.class);
+
+    private static final String L2_CFG_FILE = "hibernate-l2-test.cfg.xml";
+    private static final String NO_CACHE_CFG_FILE = "hibernate-nocache-test.cfg.xml";
+    private static final int PHONES_PER_USER = 3;
+
+    @Test
+    @DisplayName("Повторное чтение юзера с телефонами: без кэша каждый раз в базу, с кэшем 2 уровня только адрес")
+    void repeatedUserReadStatements() {
+        long[] noCache = measureRepeatedRead(NO_CACHE_CFG_FILE, false);
+        long[] wrapper = measureRepeatedRead(NO_CACHE_CFG_FILE, true);
+        long[] secondLevel = measureRepeatedRead(L2_CFG_FILE, false);
+
+        logger.info("statements, first/second read: no cache {}/{}, dao wrapper {}/{}, second level cache {}/{}",
+                noCache[0], noCache[1], wrapper[0], wrapper[1], secondLevel[0], secondLevel[1]);
+
+        assertThat(noCache[0]).isPositive();
+        assertThat(noCache[1]).isEqualTo(noCache[0]);
+        assertThat(wrapper[1]).isZero();
+        assertThat(secondLevel[1]).isLessThan(secondLevel[0]);
+    }
+
+    @Test
+    @DisplayName("Кэш 2 уровня видит изменение юзера в другой сессии, а обертка над dao отдает устаревшего юзера")
+    void updatedUserIsNotStale() {
+        assertThat(readAfterUpdate(NO_CACHE_CFG_FILE, true).getName()).isEqualTo("name");
+        assertThat(readAfterUpdate(L2_CFG_FILE, false).getName()).isEqualTo("updated");
+    }
+
+    @Test
+    @DisplayName("Повторный getAllUsers берет список из кэша запросов, а новый юзер этот кэш сбрасывает")
+    void getAllUsersUsesQueryCache() {
+        SessionFactory sessionFactory = buildSessionFactory(L2_CFG_FILE);
+        try {
+            SessionManagerHibernate sessionManager = new SessionManagerHibernate(sessionFactory);
+            UserDao userDao = new UserDaoHibernate(sessionManager);
+            StatementCounter statementCounter = new StatementCounter(sessionFactory);
+            for (int idx = 0; idx < 3; idx++) {
+                saveUser(sessionManager, userDao, "user" + idx);
+            }
+            sessionFactory.getCache().evictAllRegions();
+
+            long first = statementCounter.count(() -> readAllUsersWithPhones(sessionManager, userDao));
+            long second = statementCounter.count(() -> readAllUsersWithPhones(sessionManager, userDao));
+            long queryCacheHits = sessionFactory.getStatistics().getQueryCacheHitCount();
+
+            logger.info("getAllUsers statements, first/second call: {}/{}", first, second);
+
+            assertThat(queryCacheHits).isPositive();
+            assertThat(second).isLessThan(first);
+
+            saveUser(sessionManager, userDao, "user3");
+            assertThat(readAllUsersWithPhones(sessionManager, userDao)).hasSize(4);
+        } finally {
+            sessionFactory.close();
+        }
+    }
+
+    /**
+     * @return число запросов при первом и втором чтении юзера с телефонами
+     */
+    private long[] measureRepeatedRead(String cfgFile, boolean daoWrapper) {
+        SessionFactory sessionFactory = buildSessionFactory(cfgFile);
+        try {
+            SessionManagerHibernate sessionManager = new SessionManagerHibernate(sessionFactory);
+            UserDao userDaoHibernate = new UserDaoHibernate(sessionManager);
+            UserDao userDao = daoWrapper ? newCachedUserDao(userDaoHibernate) : userDaoHibernate;
+            StatementCounter statementCounter = new StatementCounter(sessionFactory);
+
+            long id = saveUser(sessionManager, userDaoHibernate, "name");
+            sessionFactory.getCache().evictAllRegions();
+
+            long first = statementCounter.count(() -> readUserWithPhones(sessionManager, userDao, id));
+            long second = statementCounter.count(() -> readUserWithPhones(sessionManager, userDao, id));
+            return new long[]{first, second};
+        } finally {
+            sessionFactory.close();
+        }
+    }
+
+    private User readAfterUpdate(String cfgFile, boolean daoWrapper) {
+        SessionFactory sessionFactory = buildSessionFactory(cfgFile);
+        try {
+            SessionManagerHibernate sessionManager = new SessionManagerHibernate(sessionFactory);
+            UserDao userDaoHibernate = new UserDaoHibernate(sessionManager);
+            UserDao userDao = daoWrapper ? newCachedUserDao(userDaoHibernate) : userDaoHibernate;
+
+            long id = saveUser(sessionManager, userDaoHibernate, "name");
+            readUserWithPhones(sessionManager, userDao, id);
+
+            sessionManager.beginSession();
+            userDaoHibernate.findById(id).orElseThrow().setName("updated");
+            sessionManager.commitSession();
+
+            return readUserWithPhones(sessionManager, userDao, id);
+        } finally {
+            sessionFactory.close();
+        }
+    }
+
+    private static UserDao newCachedUserDao(UserDao userDao) {
+        return new CachedUserDaoHibernate(userDao, BoundedCustomCache.<Long, User>newBuilder()
+                .setMaximumSize(1000)
+                .build());
+    }
+
+    private static SessionFactory buildSessionFactory(String cfgFile) {
+        return HibernateUtils.buildSessionFactory(cfgFile, User.class, AddressDataSet.class, PhoneDataSet.class);
+    }
+
+    private static long saveUser(SessionManagerHibernate sessionManager, UserDao userDao, String name) {
+        List<PhoneDataSet> phoneDataSets = new ArrayList<>();
+        for (int idx = 0; idx < PHONES_PER_USER; idx++) {
+            phoneDataSets.add(new PhoneDataSet(name + "-" + idx));
+        }
+        AddressDataSet addressDataSet = new AddressDataSet("street " + name);
+        User user = new User(name, 12, addressDataSet, phoneDataSets);
+        addressDataSet.setUser(user);
+        phoneDataSets.forEach(phone -> phone.setUser(user));
+
+        sessionManager.beginSession();
+        long id = userDao.insertUser(user);
+        sessionManager.commitSession();
+        return id;
+    }
+
+    private static User readUserWithPhones(SessionManagerHibernate sessionManager, UserDao userDao, long id) {
+        sessionManager.beginReadOnlySession();
+        try {
+            User user = userDao.findById(id).orElseThrow();
+            assertThat(user.getPhoneDataSets()).hasSize(PHONES_PER_USER);
+            return user;
+        } finally {
+            sessionManager.close();
+        }
+    }
+
+    private static List<User> readAllUsersWithPhones(SessionManagerHibernate sessionManager, UserDao userDao) {
+        sessionManager.beginReadOnlySession();
+        try {
+            List<User> users = userDao.getAllUsers();
+            users.forEach(user -> assertThat(user.getPhoneDataSets()).hasSize(PHONES_PER_USER));
+            return users;
+        } finally {
+            sessionManager.close();
+        }
+    }
+}
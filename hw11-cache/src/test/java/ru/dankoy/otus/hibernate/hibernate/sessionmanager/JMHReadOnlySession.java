@@ -0,0 +1,112 @@
+package ru.dankoy.otus.hibernate.hibernate.sessionmanager;
+
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.dankoy.otus.hibernate.core.dao.UserDao;
+import ru.dankoy.otus.hibernate.core.model.AddressDataSet;
+import ru.dankoy.otus.hibernate.core.model.PhoneDataSet;
+import ru.dankoy.otus.hibernate.core.model.User;
+import ru.dankoy.otus.hibernate.hibernate.dao.UserDaoHibernate;
+import ru.dankoy.otus.hibernate.hibernate.utils.HibernateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение юзера с адресом и телефонами в обычной сессии и в сессии только для чтения.
+ * Операция - открыть сессию, прочитать юзера, обойти его связи и закрыть сессию.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JMHReadOnlySession {
+
+    private static final String HIBERNATE_CFG_FILE = "hibernate-jmh.cfg.xml";
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"10"})
+    private int phonesPerUser;
+
+    private SessionFactory sessionFactory;
+    private SessionManagerHibernate sessionManager;
+    private UserDao userDao;
+    private List<Long> ids;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(JMHReadOnlySession.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(10)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
+                AddressDataSet.class, PhoneDataSet.class);
+        sessionManager = new SessionManagerHibernate(sessionFactory);
+        userDao = new UserDaoHibernate(sessionManager);
+        ids = new ArrayList<>(users);
+
+        sessionManager.beginSession();
+        for (int idx = 0; idx < users; idx++) {
+            List<PhoneDataSet> phones = new ArrayList<>();
+            for (int phone = 0; phone < phonesPerUser; phone++) {
+                phones.add(new PhoneDataSet("phone" + phone));
+            }
+            AddressDataSet address = new AddressDataSet("street" + idx);
+            User user = new User("user" + idx, idx, address, phones);
+            address.setUser(user);
+            phones.forEach(phoneDataSet -> phoneDataSet.setUser(user));
+            ids.add(userDao.insertUser(user));
+        }
+        sessionManager.commitSession();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public int regularSession() {
+        sessionManager.beginSession();
+        try {
+            return readRandomUser();
+        } finally {
+            sessionManager.commitSession();
+        }
+    }
+
+    @Benchmark
+    public int readOnlySession() {
+        sessionManager.beginReadOnlySession();
+        try {
+            return readRandomUser();
+        } finally {
+            sessionManager.commitSession();
+        }
+    }
+
+    private int readRandomUser() {
+        User user = userDao.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size()))).orElseThrow();
+        return user.toString().length();
+    }
+}
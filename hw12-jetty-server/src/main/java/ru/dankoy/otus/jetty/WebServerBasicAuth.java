@@ -8,15 +8,18 @@ import org.flywaydb.core.Flyway;
 import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.dankoy.otus.jetty.cache.CustomCache;
-import ru.dankoy.otus.jetty.cache.CustomCacheImpl;
+import ru.dankoy.otus.jetty.cache.AsyncCustomCacheListener;
+import ru.dankoy.otus.jetty.cache.BoundedCustomCache;
 import ru.dankoy.otus.jetty.cache.CustomCacheListener;
 import ru.dankoy.otus.jetty.cache.CustomCacheListenerImpl;
+import ru.dankoy.otus.jetty.cache.EvictionPolicy;
 import ru.dankoy.otus.jetty.core.model.AddressDataSet;
 import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
 import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.service.userservice.DBServiceUser;
 import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserCacheImpl;
 import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserImpl;
+import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserWriteBehindImpl;
 import ru.dankoy.otus.jetty.flyway.MigrationsExecutor;
 import ru.dankoy.otus.jetty.flyway.MigrationsExecutorFlyway;
 import ru.dankoy.otus.jetty.h2.DataSourceH2;
@@ -29,7 +32,11 @@ import ru.dankoy.otus.jetty.service.TemplateProcessorImpl;
 import ru.dankoy.otus.jetty.web.server.UsersWebServer;
 import ru.dankoy.otus.jetty.web.server.UsersWebServerWithBasicAuth;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 
 /*
 
@@ -52,7 +59,21 @@ public class WebServerBasicAuth {
     private static final String HASH_LOGIN_SERVICE_CONFIG_NAME = "realm.properties";
     private static final String REALM_NAME = "admin";
     public static final int MAX_INACTIVE_INTERVAL = 10;
-    private static final CustomCache<Long, User> cache = new CustomCacheImpl<>();
+    private static final int CACHE_MAXIMUM_SIZE = 10_000;
+    private static final Duration CACHE_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+    private static final int CACHE_LISTENER_QUEUE_CAPACITY = 10_000;
+    // Если регистрации приходят всплесками, новых юзеров можно коммитить пачками: -Dusers.write-behind=true
+    private static final String WRITE_BEHIND_PROPERTY = "users.write-behind";
+    private static final int WRITE_BEHIND_BATCH_SIZE = 100;
+    private static final Duration WRITE_BEHIND_MAX_DELAY = Duration.ofMillis(10);
+    private static final int WRITE_BEHIND_QUEUE_CAPACITY = 10_000;
+    private static final String CACHE_STATS_MBEAN_NAME = "ru.dankoy.otus.jetty.cache:type=CacheStats,name=users";
+    // Кэш используется всеми потоками Jetty, поэтому ограниченный и потокобезопасный
+    private static final BoundedCustomCache<Long, User> cache = BoundedCustomCache.<Long, User>newBuilder()
+            .setMaximumSize(CACHE_MAXIMUM_SIZE)
+            .setEvictionPolicy(EvictionPolicy.TINY_LFU)
+            .setExpireAfterWrite(CACHE_EXPIRE_AFTER_WRITE)
+            .build();
 
     public static void main(String[] args) throws Exception {
 
@@ -61,11 +82,23 @@ public class WebServerBasicAuth {
 
         SessionManagerHibernate sessionManagerHibernate = getSessionManager();
 
-        CustomCacheListener<Long, User> listener = new CustomCacheListenerImpl<>();
+        // Логирование не должно тормозить чтение из кэша, поэтому слушатель работает в своем потоке
+        CustomCacheListener<Long, User> listener = new AsyncCustomCacheListener<>(new CustomCacheListenerImpl<>(),
+                CACHE_LISTENER_QUEUE_CAPACITY);
         cache.addListener(listener);
 
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        mbs.registerMBean(cache.getStatsCounter(), new ObjectName(CACHE_STATS_MBEAN_NAME));
+
         var userDao = new UserDaoHibernate(sessionManagerHibernate);
-        var dbServiceUser = new DbServiceUserImpl(userDao);
+        DBServiceUser dbServiceUser = new DbServiceUserImpl(userDao);
+        DbServiceUserWriteBehindImpl writeBehindDbServiceUser = null;
+        if (Boolean.getBoolean(WRITE_BEHIND_PROPERTY)) {
+            writeBehindDbServiceUser = new DbServiceUserWriteBehindImpl(dbServiceUser, WRITE_BEHIND_BATCH_SIZE,
+                    WRITE_BEHIND_MAX_DELAY, WRITE_BEHIND_QUEUE_CAPACITY);
+            dbServiceUser = writeBehindDbServiceUser;
+            logger.info("users are saved in write-behind batches");
+        }
         var cachedDbServiceUser = new DbServiceUserCacheImpl(dbServiceUser, cache);
 
         Gson gson = new GsonBuilder().serializeNulls().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation()
@@ -81,6 +114,9 @@ public class WebServerBasicAuth {
 
         usersWebServer.start();
         usersWebServer.join();
+        if (writeBehindDbServiceUser != null) {
+            writeBehindDbServiceUser.close();
+        }
 
 
     }
@@ -0,0 +1,83 @@
+package ru.dankoy.otus.jetty.cache;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обертка над слушателем, которая передает события в отдельный поток. Поток кэша только кладет событие
+ * в ограниченную очередь и не ждет ни логирования, ни самого слушателя. Если очередь заполнена, событие
+ * отбрасывается. При sampleRate = n дальше передается в среднем одно событие из n.
+ */
+public class AsyncCustomCacheListener<K, V> implements CustomCacheListener<K, V>, AutoCloseable {
+
+    private final CustomCacheListener<K, V> delegate;
+    private final BlockingQueue<Event<K, V>> events;
+    private final int sampleRate;
+    private final LongAdder droppedCount = new LongAdder();
+    private final Thread dispatcher;
+
+    public AsyncCustomCacheListener(CustomCacheListener<K, V> delegate, int queueCapacity) {
+        this(delegate, queueCapacity, 1);
+    }
+
+    public AsyncCustomCacheListener(CustomCacheListener<K, V> delegate, int queueCapacity, int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Illegal sample rate: " + sampleRate);
+        }
+        this.delegate = delegate;
+        this.events = new ArrayBlockingQueue<>(queueCapacity);
+        this.sampleRate = sampleRate;
+        this.dispatcher = new Thread(this::dispatch, "cache-listener-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public void notify(K key, V value, String action) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        if (!events.offer(new Event<>(key, value, action))) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * @return количество событий, отброшенных из-за переполнения очереди
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Event<K, V> event = events.take();
+                delegate.notify(event.key, event.value, event.action);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class Event<K, V> {
+        private final K key;
+        private final V value;
+        private final String action;
+
+        private Event(K key, V value, String action) {
+            this.key = key;
+            this.value = value;
+            this.action = action;
+        }
+    }
+}
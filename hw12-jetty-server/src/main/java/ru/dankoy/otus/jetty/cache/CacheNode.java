@@ -0,0 +1,28 @@
+package ru.dankoy.otus.jetty.cache;
+
+/**
+ * Запись кэша. Поля порядка вытеснения (prev, next, frequency) меняются только под блокировкой кэша.
+ */
+final class CacheNode<K, V> {
+
+    final K key;
+    final V value;
+    final int weight;
+    final long writeTime;
+    final long expireAt;
+    volatile long accessTime;
+
+    CacheNode<K, V> prev;
+    CacheNode<K, V> next;
+    int frequency;
+    boolean alive = true;
+
+    CacheNode(K key, V value, int weight, long now, long expireAt) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+        this.writeTime = now;
+        this.accessTime = now;
+        this.expireAt = expireAt;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.dankoy.otus.jetty.cache;
+
+public interface CacheStatsCounterMBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getEvictionCount();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadPenalty();
+
+    void reset();
+
+}
@@ -0,0 +1,22 @@
+package ru.dankoy.otus.jetty.cache;
+
+/**
+ * Порядок вытеснения записей. Все методы вызываются под блокировкой кэша.
+ */
+interface EvictionOrder<K, V> {
+
+    void add(CacheNode<K, V> node);
+
+    void access(CacheNode<K, V> node);
+
+    void remove(CacheNode<K, V> node);
+
+    /**
+     * @return запись-кандидат на вытеснение или null, если порядок пуст
+     */
+    CacheNode<K, V> victim();
+
+    static <K, V> EvictionOrder<K, V> of(EvictionPolicy policy) {
+        return policy == EvictionPolicy.LFU ? new LfuOrder<>() : new LruOrder<>();
+    }
+}
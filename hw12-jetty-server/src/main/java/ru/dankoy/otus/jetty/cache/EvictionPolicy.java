@@ -0,0 +1,24 @@
+package ru.dankoy.otus.jetty.cache;
+
+/**
+ * Политика вытеснения для BoundedCustomCache
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Вытесняется запись, к которой дольше всего не обращались
+     */
+    LRU,
+
+    /**
+     * Вытесняется запись с наименьшим числом обращений, при равенстве - самая старая
+     */
+    LFU,
+
+    /**
+     * LRU с допуском в стиле W-TinyLFU: новая запись вытесняет LRU-жертву, только если по частотному
+     * скетчу к ее ключу обращались не реже, чем к ключу жертвы. Иначе вытесняется сама новая запись.
+     */
+    TINY_LFU
+
+}
@@ -0,0 +1,67 @@
+package ru.dankoy.otus.jetty.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Записи разложены по корзинам с одинаковым числом обращений. Внутри корзины порядок - по времени попадания
+ * в нее, поэтому при равной частоте вытесняется самая старая запись.
+ */
+final class LfuOrder<K, V> implements EvictionOrder<K, V> {
+
+    private final Map<Integer, Set<CacheNode<K, V>>> buckets = new HashMap<>();
+    private int minFrequency;
+
+    @Override
+    public void add(CacheNode<K, V> node) {
+        node.frequency = 1;
+        bucket(1).add(node);
+        minFrequency = 1;
+    }
+
+    @Override
+    public void access(CacheNode<K, V> node) {
+        int frequency = node.frequency;
+        removeFromBucket(node);
+        if (minFrequency == frequency && !buckets.containsKey(frequency)) {
+            minFrequency = frequency + 1;
+        }
+        node.frequency = frequency == Integer.MAX_VALUE ? frequency : frequency + 1;
+        bucket(node.frequency).add(node);
+    }
+
+    @Override
+    public void remove(CacheNode<K, V> node) {
+        removeFromBucket(node);
+    }
+
+    @Override
+    public CacheNode<K, V> victim() {
+        if (buckets.isEmpty()) {
+            return null;
+        }
+        Set<CacheNode<K, V>> bucket = buckets.get(minFrequency);
+        if (bucket == null) {
+            minFrequency = Collections.min(buckets.keySet());
+            bucket = buckets.get(minFrequency);
+        }
+        return bucket.iterator().next();
+    }
+
+    private Set<CacheNode<K, V>> bucket(int frequency) {
+        return buckets.computeIfAbsent(frequency, f -> new LinkedHashSet<>());
+    }
+
+    private void removeFromBucket(CacheNode<K, V> node) {
+        Set<CacheNode<K, V>> bucket = buckets.get(node.frequency);
+        if (bucket != null) {
+            bucket.remove(node);
+            if (bucket.isEmpty()) {
+                buckets.remove(node.frequency);
+            }
+        }
+    }
+}
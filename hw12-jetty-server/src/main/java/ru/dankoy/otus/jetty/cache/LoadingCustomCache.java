@@ -0,0 +1,35 @@
+package ru.dankoy.otus.jetty.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Кэш, который сам загружает отсутствующие значения.
+ */
+public interface LoadingCustomCache<K, V> extends CustomCache<K, V> {
+
+    /**
+     * Возвращает значение из кэша, а при промахе загружает его через loader. Одновременные промахи по одному
+     * ключу ждут одну и ту же загрузку, поэтому loader вызывается один раз. null от loader означает, что
+     * значения нет.
+     *
+     * @param key
+     * @param loader
+     * @return значение или null, если его нет
+     * @throws CacheLoaderException если loader бросил проверяемое исключение
+     */
+    V get(K key, Function<? super K, ? extends V> loader);
+
+    /**
+     * То же для нескольких ключей: все промахи загружаются одним вызовом loader. Ключи, которых нет
+     * в ответе loader, считаются отсутствующими.
+     *
+     * @param keys
+     * @param loader получает множество промахнувшихся ключей
+     * @return найденные значения в порядке ключей, отсутствующих ключей в результате нет
+     */
+    Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> loader);
+
+}
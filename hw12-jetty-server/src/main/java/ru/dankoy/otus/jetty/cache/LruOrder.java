@@ -0,0 +1,51 @@
+package ru.dankoy.otus.jetty.cache;
+
+/**
+ * Двусвязный список по времени обращения: голова - самая давняя запись, хвост - самая свежая
+ */
+final class LruOrder<K, V> implements EvictionOrder<K, V> {
+
+    private CacheNode<K, V> head;
+    private CacheNode<K, V> tail;
+
+    @Override
+    public void add(CacheNode<K, V> node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+    }
+
+    @Override
+    public void access(CacheNode<K, V> node) {
+        if (node != tail) {
+            remove(node);
+            add(node);
+        }
+    }
+
+    @Override
+    public void remove(CacheNode<K, V> node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    @Override
+    public CacheNode<K, V> victim() {
+        return head;
+    }
+}
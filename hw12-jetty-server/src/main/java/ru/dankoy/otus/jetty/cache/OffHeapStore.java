@@ -0,0 +1,238 @@
+package ru.dankoy.otus.jetty.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранилище сериализованных записей вне кучи.
+ * <p>
+ * Память разбита на блоки одного размера, запись занимает столько блоков, сколько нужно под ее байты, поэтому
+ * фрагментации нет, а занятый объем считается точно. Блоки лежат в direct ByteBuffer или в отображенных
+ * в память регионах файла. Буферы выделяются по мере надобности кусками до 1Гб. В куче остается только
+ * индекс: ключ, длина и номера блоков.
+ * <p>
+ * Когда свободных блоков не хватает, вытесняются записи, к которым дольше всего не обращались. Класс не
+ * потокобезопасный, доступ к нему синхронизирует кэш.
+ */
+final class OffHeapStore<K> implements AutoCloseable {
+
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int blocksPerChunk;
+    private final int blockCount;
+    private final LinkedHashMap<K, Slot> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int[] freeBlocks = new int[16];
+    private int freeCount;
+    private int nextUnusedBlock;
+    private long dataBytes;
+
+    private OffHeapStore(FileChannel channel, long maximumBytes, int blockSize) {
+        if (blockSize <= 0 || blockSize > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+        long blocks = maximumBytes / blockSize;
+        if (blocks <= 0 || blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal maximum bytes: " + maximumBytes);
+        }
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.blocksPerChunk = MAX_CHUNK_BYTES / blockSize;
+        this.blockCount = (int) blocks;
+    }
+
+    static <K> OffHeapStore<K> direct(long maximumBytes, int blockSize) {
+        return new OffHeapStore<>(null, maximumBytes, blockSize);
+    }
+
+    /**
+     * Блоки в файле. Индекс в файл не пишется, поэтому файл - это продолжение памяти, а не сохранение
+     * кэша между запусками.
+     */
+    static <K> OffHeapStore<K> mapped(Path file, long maximumBytes, int blockSize) {
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new OffHeapStore<>(channel, maximumBytes, blockSize);
+            } catch (RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Кладет запись, при нехватке места вытесняет старые записи в evicted
+     *
+     * @return false, если запись больше всего хранилища и не положена
+     */
+    boolean put(K key, byte[] bytes, List<Map.Entry<K, byte[]>> evicted) {
+        remove(key);
+        int required = blocksFor(bytes.length);
+        if (required > blockCount) {
+            return false;
+        }
+        Iterator<Map.Entry<K, Slot>> eldest = index.entrySet().iterator();
+        while (blockCount - usedBlocks() < required) {
+            Map.Entry<K, Slot> victim = eldest.next();
+            evicted.add(Map.entry(victim.getKey(), read(victim.getValue())));
+            eldest.remove();
+            release(victim.getValue());
+        }
+
+        int[] blocks = new int[required];
+        for (int idx = 0; idx < required; idx++) {
+            blocks[idx] = allocateBlock();
+            int offset = idx * blockSize;
+            chunk(blocks[idx]).put(blockOffset(blocks[idx]), bytes, offset, Math.min(blockSize, bytes.length - offset));
+        }
+        index.put(key, new Slot(bytes.length, blocks));
+        dataBytes += bytes.length;
+        return true;
+    }
+
+    byte[] get(K key) {
+        Slot slot = index.get(key);
+        return slot == null ? null : read(slot);
+    }
+
+    /**
+     * @return байты удаленной записи или null
+     */
+    byte[] remove(K key) {
+        Slot slot = index.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] bytes = read(slot);
+        release(slot);
+        return bytes;
+    }
+
+    boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * @return байты, занятые блоками записей
+     */
+    long usedBytes() {
+        return (long) usedBlocks() * blockSize;
+    }
+
+    /**
+     * @return байты самих записей, без хвостов последних блоков
+     */
+    long dataBytes() {
+        return dataBytes;
+    }
+
+    long maximumBytes() {
+        return (long) blockCount * blockSize;
+    }
+
+    @Override
+    public void close() {
+        index.clear();
+        chunks = new ByteBuffer[0];
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private byte[] read(Slot slot) {
+        byte[] bytes = new byte[slot.length];
+        for (int idx = 0; idx < slot.blocks.length; idx++) {
+            int offset = idx * blockSize;
+            chunk(slot.blocks[idx]).get(blockOffset(slot.blocks[idx]), bytes, offset,
+                    Math.min(blockSize, slot.length - offset));
+        }
+        return bytes;
+    }
+
+    private void release(Slot slot) {
+        for (int block : slot.blocks) {
+            if (freeCount == freeBlocks.length) {
+                freeBlocks = Arrays.copyOf(freeBlocks, freeCount * 2);
+            }
+            freeBlocks[freeCount++] = block;
+        }
+        dataBytes -= slot.length;
+    }
+
+    private int allocateBlock() {
+        if (freeCount > 0) {
+            return freeBlocks[--freeCount];
+        }
+        return nextUnusedBlock++;
+    }
+
+    private int usedBlocks() {
+        return nextUnusedBlock - freeCount;
+    }
+
+    private int blocksFor(int length) {
+        return Math.max(1, (int) (((long) length + blockSize - 1) / blockSize));
+    }
+
+    private int blockOffset(int block) {
+        return (block % blocksPerChunk) * blockSize;
+    }
+
+    private ByteBuffer chunk(int block) {
+        int chunkIdx = block / blocksPerChunk;
+        if (chunkIdx >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkIdx + 1);
+        }
+        if (chunks[chunkIdx] == null) {
+            chunks[chunkIdx] = allocateChunk(chunkIdx);
+        }
+        return chunks[chunkIdx];
+    }
+
+    private ByteBuffer allocateChunk(int chunkIdx) {
+        long firstBlock = (long) chunkIdx * blocksPerChunk;
+        int bytes = (int) (Math.min(blocksPerChunk, blockCount - firstBlock) * blockSize);
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(bytes);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, firstBlock * blockSize, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Slot {
+        private final int length;
+        private final int[] blocks;
+
+        private Slot(int length, int[] blocks) {
+            this.length = length;
+            this.blocks = blocks;
+        }
+    }
+}
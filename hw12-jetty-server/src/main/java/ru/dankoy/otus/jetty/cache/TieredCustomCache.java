@@ -0,0 +1,313 @@
+package ru.dankoy.otus.jetty.cache;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кэш из нескольких уровней.
+ * <p>
+ * Горячие записи лежат в куче как есть, их число ограничено heapMaximumSize. Вытесненная из кучи запись
+ * сериализуется и опускается в хранилище вне кучи, размер которого ограничен в байтах. Вытесненное оттуда
+ * опускается на диск, если он задан, а вытесненное с последнего уровня теряется. Найденная на нижнем
+ * уровне запись десериализуется и поднимается обратно в кучу.
+ * <p>
+ * Все операции идут под одной блокировкой: уровни должны меняться согласованно, иначе поднятая запись
+ * может затереть более новую. Кэш рассчитан на объем данных, а не на конкурентный доступ.
+ */
+public class TieredCustomCache<K, V> implements CustomCache<K, V>, AutoCloseable {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<CustomCacheListener<K, V>> listeners = new CopyOnWriteArrayList<>();
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+    private final CacheSerializer<V> serializer;
+    private final int heapMaximumSize;
+
+    // guarded by lock
+    private final LinkedHashMap<K, V> heap = new LinkedHashMap<>(16, 0.75f, true);
+    private final OffHeapStore<K> offHeap;
+    private final OffHeapStore<K> disk;
+
+    private TieredCustomCache(Builder<K, V> builder) {
+        this.serializer = builder.serializer;
+        this.heapMaximumSize = builder.heapMaximumSize;
+        this.offHeap = OffHeapStore.direct(builder.offHeapMaximumBytes, builder.blockSize);
+        this.disk = builder.diskFile == null ? null
+                : OffHeapStore.mapped(builder.diskFile, builder.diskMaximumBytes, builder.blockSize);
+    }
+
+    public static <K, V> Builder<K, V> newBuilder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public String toString() {
+        return "TieredCustomCache{" +
+                "heapSize=" + heapSize() +
+                ", offHeapSize=" + offHeapSize() +
+                ", offHeapUsedBytes=" + offHeapUsedBytes() +
+                ", diskSize=" + diskSize() +
+                ", diskUsedBytes=" + diskUsedBytes() +
+                '}';
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        List<K> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            putHeap(key, value, evicted);
+        } finally {
+            lock.unlock();
+        }
+        notify(key, value, "put");
+        evicted.forEach(victim -> notify(victim, null, "evict"));
+    }
+
+    @Override
+    public void remove(K key) {
+        Objects.requireNonNull(key);
+        V value;
+        lock.lock();
+        try {
+            value = heap.remove(key);
+            offHeap.remove(key);
+            if (disk != null) {
+                disk.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        notify(key, value, "remove");
+    }
+
+    @Override
+    public V get(K key) {
+        Objects.requireNonNull(key);
+        V value;
+        List<K> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            value = heap.get(key);
+            if (value == null) {
+                byte[] bytes = offHeap.remove(key);
+                if (bytes == null && disk != null) {
+                    bytes = disk.remove(key);
+                }
+                if (bytes != null) {
+                    value = serializer.deserialize(bytes);
+                    putHeap(key, value, evicted);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        notify(key, value, "get");
+        evicted.forEach(victim -> notify(victim, null, "evict"));
+        return value;
+    }
+
+    @Override
+    public void addListener(CustomCacheListener<K, V> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(CustomCacheListener<K, V> listener) {
+        listeners.remove(listener);
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public CacheStatsCounter getStatsCounter() {
+        return statsCounter;
+    }
+
+    public int heapSize() {
+        lock.lock();
+        try {
+            return heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int offHeapSize() {
+        lock.lock();
+        try {
+            return offHeap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long offHeapUsedBytes() {
+        lock.lock();
+        try {
+            return offHeap.usedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int diskSize() {
+        lock.lock();
+        try {
+            return disk == null ? 0 : disk.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long diskUsedBytes() {
+        lock.lock();
+        try {
+            return disk == null ? 0 : disk.usedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            heap.clear();
+            offHeap.close();
+            if (disk != null) {
+                disk.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Кладет запись в кучу, убирает ее старые копии с нижних уровней и опускает лишние записи из кучи
+     */
+    private void putHeap(K key, V value, List<K> evicted) {
+        heap.put(key, value);
+        offHeap.remove(key);
+        if (disk != null) {
+            disk.remove(key);
+        }
+        Iterator<Map.Entry<K, V>> eldest = heap.entrySet().iterator();
+        while (heap.size() > heapMaximumSize) {
+            Map.Entry<K, V> victim = eldest.next();
+            eldest.remove();
+            demote(victim.getKey(), serializer.serialize(victim.getValue()), evicted);
+        }
+    }
+
+    private void demote(K key, byte[] bytes, List<K> evicted) {
+        List<Map.Entry<K, byte[]>> offHeapEvicted = new ArrayList<>();
+        if (!offHeap.put(key, bytes, offHeapEvicted)) {
+            offHeapEvicted.add(Map.entry(key, bytes));
+        }
+        for (Map.Entry<K, byte[]> entry : offHeapEvicted) {
+            if (disk == null) {
+                dropped(entry.getKey(), evicted);
+                continue;
+            }
+            List<Map.Entry<K, byte[]>> diskEvicted = new ArrayList<>();
+            if (!disk.put(entry.getKey(), entry.getValue(), diskEvicted)) {
+                dropped(entry.getKey(), evicted);
+            }
+            diskEvicted.forEach(diskEntry -> dropped(diskEntry.getKey(), evicted));
+        }
+    }
+
+    private void dropped(K key, List<K> evicted) {
+        statsCounter.recordEviction();
+        evicted.add(key);
+    }
+
+    private void notify(K key, V value, String action) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        try {
+            listeners.forEach(l -> l.notify(key, value, action));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static class Builder<K, V> {
+
+        private int heapMaximumSize = 1000;
+        private long offHeapMaximumBytes = 64L * 1024 * 1024;
+        private int blockSize = 256;
+        private Path diskFile;
+        private long diskMaximumBytes;
+        private CacheSerializer<V> serializer = new JavaCacheSerializer<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Максимальное число записей в куче
+         */
+        public Builder<K, V> setHeapMaximumSize(int heapMaximumSize) {
+            if (heapMaximumSize < 0) {
+                throw new IllegalArgumentException("Illegal heap maximum size: " + heapMaximumSize);
+            }
+            this.heapMaximumSize = heapMaximumSize;
+            return this;
+        }
+
+        /**
+         * Объем памяти вне кучи под сериализованные записи
+         */
+        public Builder<K, V> setOffHeapMaximumBytes(long offHeapMaximumBytes) {
+            this.offHeapMaximumBytes = offHeapMaximumBytes;
+            return this;
+        }
+
+        /**
+         * Размер блока хранилищ вне кучи. Запись занимает целое число блоков, поэтому блок стоит брать
+         * порядка типичного размера записи.
+         */
+        public Builder<K, V> setBlockSize(int blockSize) {
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Третий уровень в файле. Файл не переживает перезапуск кэша, это только продолжение памяти.
+         */
+        public Builder<K, V> setDisk(Path diskFile, long diskMaximumBytes) {
+            this.diskFile = Objects.requireNonNull(diskFile);
+            this.diskMaximumBytes = diskMaximumBytes;
+            return this;
+        }
+
+        public Builder<K, V> setSerializer(CacheSerializer<V> serializer) {
+            this.serializer = Objects.requireNonNull(serializer);
+            return this;
+        }
+
+        public TieredCustomCache<K, V> build() {
+            return new TieredCustomCache<>(this);
+        }
+    }
+}
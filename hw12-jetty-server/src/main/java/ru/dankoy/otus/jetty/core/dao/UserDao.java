@@ -3,11 +3,28 @@ package ru.dankoy.otus.jetty.core.dao;
 import ru.dankoy.otus.jetty.core.model.User;
 import ru.dankoy.otus.jetty.core.sessionmanager.SessionManager;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserDao {
-    Optional<User> findById(long id);
+    default Optional<User> findById(long id) {
+        return findById(id, UserFetchPlan.USER_ONLY);
+    }
+
+    Optional<User> findById(long id, UserFetchPlan fetchPlan);
+
+    /**
+     * Поиск юзеров одним запросом. Юзеров, которых нет в бд, в результате нет.
+     *
+     * @param ids
+     * @return
+     */
+    default List<User> findByIds(Collection<Long> ids) {
+        return findByIds(ids, UserFetchPlan.USER_ONLY);
+    }
+
+    List<User> findByIds(Collection<Long> ids, UserFetchPlan fetchPlan);
 
     long insertUser(User user);
 
@@ -15,7 +32,17 @@ public interface UserDao {
 
     void insertOrUpdate(User user);
 
-    List<User> getAllUsers();
+    default List<User> getAllUsers() {
+        return getAllUsers(UserFetchPlan.USER_ONLY);
+    }
+
+    List<User> getAllUsers(UserFetchPlan fetchPlan);
+
+    /**
+     * Страница по ключу: limit юзеров с id больше afterId по возрастанию id. Запрос идет по индексу id,
+     * поэтому стоимость страницы не зависит от ее номера, в отличие от offset.
+     */
+    List<User> findPage(long afterId, int limit, UserFetchPlan fetchPlan);
 
     SessionManager getSessionManager();
 }
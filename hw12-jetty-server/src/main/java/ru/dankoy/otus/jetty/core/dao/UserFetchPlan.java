@@ -0,0 +1,15 @@
+package ru.dankoy.otus.jetty.core.dao;
+
+/**
+ * Что загружать вместе с юзером
+ */
+public enum UserFetchPlan {
+    /**
+     * Только юзер, телефоны догружаются при обращении пачками (@BatchSize)
+     */
+    USER_ONLY,
+    /**
+     * Юзер с адресом и телефонами одним запросом, для страниц и json, которые показывают все
+     */
+    WITH_DETAILS
+}
@@ -5,12 +5,15 @@ import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
+import java.io.Serializable;
+
 /**
  * @author ezelenin
  */
 @Entity
 @Table(name = "tPhones")
-public class PhoneDataSet {
+public class PhoneDataSet implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     @Expose
     @Id
@@ -1,9 +1,11 @@
 package ru.dankoy.otus.jetty.core.model;
 
 import com.google.gson.annotations.Expose;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,10 +14,20 @@ import java.util.List;
  * <p>
  * Памятка.
  * Запись JoinColumn указывает новый столбец
+ * <p>
+ * Адрес - обратная сторона OneToOne, без bytecode enhancement hibernate не может сделать его ленивым и читает
+ * отдельным запросом на каждого юзера. Поэтому списки юзеров читаются с графом {@link #GRAPH_WITH_DETAILS}.
  */
 @Entity
 @Table(name = "tUser")
-public class User {
+@NamedEntityGraph(name = User.GRAPH_WITH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("address"),
+        @NamedAttributeNode("phoneDataSets")
+})
+public class User implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String GRAPH_WITH_DETAILS = "User.withDetails";
 
     @Expose
     @Id
@@ -38,6 +50,7 @@ public class User {
 
     @Expose
     @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @BatchSize(size = 25)
     private List<PhoneDataSet> phoneDataSets = new ArrayList<>();
 
     public User() {
@@ -66,6 +79,10 @@ public class User {
         return id;
     }
 
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
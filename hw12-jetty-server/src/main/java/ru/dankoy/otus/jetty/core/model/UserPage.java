@@ -0,0 +1,39 @@
+package ru.dankoy.otus.jetty.core.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+
+/**
+ * Страница юзеров по возрастанию id. next - курсор следующей страницы (id последнего юзера),
+ * null если страница неполная и дальше юзеров нет.
+ */
+public class UserPage {
+
+    @Expose
+    private final List<User> users;
+
+    @Expose
+    private final Long next;
+
+    public UserPage(List<User> users, Long next) {
+        this.users = users;
+        this.next = next;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPage{" +
+                "users=" + users.size() +
+                ", next=" + next +
+                '}';
+    }
+}
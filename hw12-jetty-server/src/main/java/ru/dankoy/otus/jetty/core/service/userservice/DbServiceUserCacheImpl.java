@@ -2,20 +2,26 @@ package ru.dankoy.otus.jetty.core.service.userservice;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.dankoy.otus.jetty.cache.CustomCache;
+import ru.dankoy.otus.jetty.cache.LoadingCustomCache;
 import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
 import ru.dankoy.otus.jetty.core.service.DbServiceException;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class DbServiceUserCacheImpl implements DBServiceUser {
     private static final Logger logger = LoggerFactory.getLogger(DbServiceUserCacheImpl.class);
 
     private final DBServiceUser dbServiceUser;
-    private final CustomCache<Long, User> cache;
+    private final LoadingCustomCache<Long, User> cache;
 
-    public DbServiceUserCacheImpl(DBServiceUser dbServiceUser, CustomCache<Long, User> cache) {
+    public DbServiceUserCacheImpl(DBServiceUser dbServiceUser, LoadingCustomCache<Long, User> cache) {
         this.dbServiceUser = dbServiceUser;
         this.cache = cache;
     }
@@ -31,27 +37,62 @@ public class DbServiceUserCacheImpl implements DBServiceUser {
         }
     }
 
+    @Override
+    public List<Long> saveUsers(List<User> users) {
+
+        List<Long> ids = dbServiceUser.saveUsers(users);
+        users.forEach(user -> cache.put(user.getId(), user));
+
+        return ids;
+
+    }
+
+    @Override
+    public CompletableFuture<User> saveUserAsync(User user) {
+
+        return dbServiceUser.saveUserAsync(user).thenApply(savedUser -> {
+            cache.put(savedUser.getId(), savedUser);
+            return savedUser;
+        });
+
+    }
+
     @Override
     public Optional<User> getUser(long id) {
 
-        Optional<User> userFromCache = Optional.ofNullable(cache.get(id));
-        if (userFromCache.isEmpty()) {
-            Optional<User> foundUser = dbServiceUser.getUser(id);
-            cache.put(id, foundUser.orElse(null));
-            return foundUser;
-        } else {
-            return userFromCache;
-        }
+        return Optional.ofNullable(cache.get(id, key -> dbServiceUser.getUser(key).orElse(null)));
+
+    }
+
+    /**
+     * Юзеры из кэша, все промахи загружаются одним запросом
+     */
+    @Override
+    public List<User> getUsers(Collection<Long> ids) {
+
+        return new ArrayList<>(cache.getAll(ids, misses -> dbServiceUser.getUsers(misses).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()))).values());
+
     }
 
     @Override
     public List<User> getAllUsers() {
 
         List<User> users = dbServiceUser.getAllUsers();
-        users.forEach(user -> cache.put(user.getId(), user));
+        cache.putAll(users.stream().collect(Collectors.toMap(User::getId, Function.identity())));
 
         return users;
 
     }
 
+    /**
+     * Страницы идут мимо кэша: выгрузка всех юзеров вытеснила бы из него часто читаемых
+     */
+    @Override
+    public UserPage getUsersPage(long afterId, int limit) {
+
+        return dbServiceUser.getUsersPage(afterId, limit);
+
+    }
+
 }
@@ -3,13 +3,20 @@ package ru.dankoy.otus.jetty.core.service.userservice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.dankoy.otus.jetty.core.dao.UserDao;
+import ru.dankoy.otus.jetty.core.dao.UserFetchPlan;
 import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
 import ru.dankoy.otus.jetty.core.service.DbServiceException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Юзеры отдаются за пределы сессии целиком (страница, json), поэтому читаются с адресом и телефонами
+ * одним запросом, см. {@link UserFetchPlan#WITH_DETAILS}.
+ */
 public class DbServiceUserImpl implements DBServiceUser {
     private static final Logger logger = LoggerFactory.getLogger(DbServiceUserImpl.class);
 
@@ -31,17 +38,39 @@ public class DbServiceUserImpl implements DBServiceUser {
                 return userId;
             } catch (Exception e) {
                 sessionManager.rollbackSession();
+                resetIds(user);
                 throw new DbServiceException(e);
             }
         }
     }
 
     @Override
-    public Optional<User> getUser(long id) {
+    public List<Long> saveUsers(List<User> users) {
         try (var sessionManager = userDao.getSessionManager()) {
             sessionManager.beginSession();
             try {
-                Optional<User> userOptional = userDao.findById(id);
+                List<Long> ids = new ArrayList<>(users.size());
+                for (User user : users) {
+                    ids.add(userDao.insertUser(user));
+                }
+                sessionManager.commitSession();
+
+                logger.info("created users: {}", ids);
+                return ids;
+            } catch (Exception e) {
+                sessionManager.rollbackSession();
+                users.forEach(DbServiceUserImpl::resetIds);
+                throw new DbServiceException(e);
+            }
+        }
+    }
+
+    @Override
+    public Optional<User> getUser(long id) {
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
+            try {
+                Optional<User> userOptional = userDao.findById(id, UserFetchPlan.WITH_DETAILS);
 
                 logger.info("user: {}", userOptional.orElse(null));
                 return userOptional;
@@ -53,14 +82,33 @@ public class DbServiceUserImpl implements DBServiceUser {
         }
     }
 
+    @Override
+    public List<User> getUsers(Collection<Long> ids) {
+
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
+            try {
+
+                List<User> users = userDao.findByIds(ids, UserFetchPlan.WITH_DETAILS);
+
+                logger.info("users: {}", users);
+                return users;
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                sessionManager.rollbackSession();
+            }
+            return new ArrayList<>();
+        }
+    }
+
     @Override
     public List<User> getAllUsers() {
 
         try (var sessionManager = userDao.getSessionManager()) {
-            sessionManager.beginSession();
+            sessionManager.beginReadOnlySession();
             try {
 
-                List<User> users = userDao.getAllUsers();
+                List<User> users = userDao.getAllUsers(UserFetchPlan.WITH_DETAILS);
 
                 logger.info("users: {}", users);
                 return users;
@@ -72,4 +120,44 @@ public class DbServiceUserImpl implements DBServiceUser {
         }
     }
 
+    /**
+     * Полная страница считается не последней, поэтому после точно заполненной последней страницы
+     * клиент получит еще одну пустую
+     */
+    @Override
+    public UserPage getUsersPage(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Illegal page limit: " + limit);
+        }
+
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
+            try {
+
+                List<User> users = userDao.findPage(afterId, limit, UserFetchPlan.WITH_DETAILS);
+                Long next = users.size() == limit ? users.get(users.size() - 1).getId() : null;
+
+                logger.info("users page after {}: {}", afterId, users.size());
+                return new UserPage(users, next);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                sessionManager.rollbackSession();
+                throw new DbServiceException(e);
+            }
+        }
+    }
+
+    /**
+     * После отката у юзера остаются id, выданные в откаченной транзакции, с ними persist считает юзера
+     * отсоединенным. Id сбрасываются, чтобы юзера можно было сохранить еще раз
+     */
+    private static void resetIds(User user) {
+        user.setId(0);
+        if (user.getAddress() != null) {
+            user.getAddress().setId(0);
+        }
+        if (user.getPhoneDataSets() != null) {
+            user.getPhoneDataSets().forEach(phoneDataSet -> phoneDataSet.setId(0));
+        }
+    }
 }
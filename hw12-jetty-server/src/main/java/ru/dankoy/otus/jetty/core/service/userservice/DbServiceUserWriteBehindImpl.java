@@ -0,0 +1,208 @@
+package ru.dankoy.otus.jetty.core.service.userservice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
+import ru.dankoy.otus.jetty.core.service.DbServiceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись юзеров. Новые юзеры встают в очередь, фоновый поток собирает из нее пачку до batchSize
+ * юзеров или сколько придет за maxDelay после первого юзера пачки и сохраняет пачку одной транзакцией.
+ * Future юзера завершается после коммита его пачки. Если транзакция пачки упала, юзеры пачки сохраняются
+ * по одному, и ошибкой завершается future только того юзера, которого сохранить не удалось.
+ * <p>
+ * saveUser ждет коммита своей пачки, поэтому при всплеске регистраций потоки сервера ждут общий коммит
+ * вместо отдельного на каждый запрос, а подтвержденный юзер уже в базе. Очередь ограничена queueCapacity,
+ * при переполнении сохранение ждет места в ней. Чтение идет мимо очереди: юзера, чья future еще
+ * не завершилась, в базе может не быть.
+ * <p>
+ * close() дописывает очередь и останавливает поток записи.
+ */
+public class DbServiceUserWriteBehindImpl implements DBServiceUser, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DbServiceUserWriteBehindImpl.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final String CLOSED_MESSAGE = "Write-behind service is closed";
+
+    private final DBServiceUser dbServiceUser;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingUser> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public DbServiceUserWriteBehindImpl(DBServiceUser dbServiceUser, int batchSize, Duration maxDelay,
+                                        int queueCapacity) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Illegal max delay: " + maxDelay);
+        }
+        this.dbServiceUser = dbServiceUser;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "user-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public long saveUser(User user) {
+        try {
+            return saveUserAsync(user).join().getId();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DbServiceException) {
+                throw (DbServiceException) cause;
+            }
+            throw new DbServiceException(cause instanceof Exception ? (Exception) cause : e);
+        }
+    }
+
+    /**
+     * Список и так сохраняется одной транзакцией, поэтому идет мимо очереди
+     */
+    @Override
+    public List<Long> saveUsers(List<User> users) {
+        return dbServiceUser.saveUsers(users);
+    }
+
+    @Override
+    public CompletableFuture<User> saveUserAsync(User user) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new DbServiceException(CLOSED_MESSAGE));
+        }
+        PendingUser pending = new PendingUser(user);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new DbServiceException(e));
+        }
+        // поток записи мог завершиться между проверкой closed и put
+        if (closed && queue.remove(pending)) {
+            pending.future.completeExceptionally(new DbServiceException(CLOSED_MESSAGE));
+        }
+        return pending.future;
+    }
+
+    @Override
+    public Optional<User> getUser(long id) {
+        return dbServiceUser.getUser(id);
+    }
+
+    @Override
+    public List<User> getUsers(Collection<Long> ids) {
+        return dbServiceUser.getUsers(ids);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return dbServiceUser.getAllUsers();
+    }
+
+    @Override
+    public UserPage getUsersPage(long afterId, int limit) {
+        return dbServiceUser.getUsersPage(afterId, limit);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingUser first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    write(collectBatch(first));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            List<PendingUser> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            rest.forEach(pending -> pending.future.completeExceptionally(new DbServiceException(CLOSED_MESSAGE)));
+        }
+    }
+
+    /**
+     * Добирает к первому юзеру пачку: все, что уже в очереди, и то, что придет до истечения maxDelay
+     */
+    private List<PendingUser> collectBatch(PendingUser first) {
+        List<PendingUser> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        try {
+            while (batch.size() < batchSize) {
+                queue.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() == batchSize || remaining <= 0 || closed) {
+                    break;
+                }
+                PendingUser next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return batch;
+    }
+
+    private void write(List<PendingUser> batch) {
+        List<User> users = batch.stream().map(pending -> pending.user).collect(Collectors.toList());
+        try {
+            dbServiceUser.saveUsers(users);
+            batch.forEach(pending -> pending.future.complete(pending.user));
+            logger.info("write-behind batch saved: {}", batch.size());
+        } catch (Exception e) {
+            logger.warn("write-behind batch of {} failed, saving users one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(PendingUser pending) {
+        try {
+            dbServiceUser.saveUser(pending.user);
+            pending.future.complete(pending.user);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingUser {
+        private final User user;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+
+        private PendingUser(User user) {
+            this.user = user;
+        }
+    }
+}
@@ -1,35 +1,77 @@
 package ru.dankoy.otus.jetty.hibernate.cacheddao;
 
-import ru.dankoy.otus.jetty.cache.CustomCache;
+import ru.dankoy.otus.jetty.cache.LoadingCustomCache;
 import ru.dankoy.otus.jetty.core.dao.UserDao;
+import ru.dankoy.otus.jetty.core.dao.UserFetchPlan;
 import ru.dankoy.otus.jetty.core.model.User;
 import ru.dankoy.otus.jetty.core.sessionmanager.SessionManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dao с кэшем поверх UserDao. Промахи по одному id из разных потоков ждут один запрос в базу, отсутствие
+ * юзера кэш помнит сам (negativeTtl), поэтому повторный поиск несуществующего id в базу не ходит.
+ * <p>
+ * В кэше только юзеры, прочитанные с адресом и телефонами (WITH_DETAILS): такой юзер годится и для USER_ONLY,
+ * а юзер USER_ONLY вне своей сессии бросил бы LazyInitializationException на телефонах. Поэтому USER_ONLY
+ * берет из кэша только попадания, а промахи читает из базы мимо кэша. После изменения юзера запись
+ * удаляется: у переданного юзера могут быть не загружены телефоны.
+ */
 public class CachedUserDaoHibernate implements UserDao {
 
     private final UserDao userDaoHibernate;
-    private final CustomCache<Long, User> cache;
+    private final LoadingCustomCache<Long, User> cache;
 
-    public CachedUserDaoHibernate(UserDao userDaoHibernate, CustomCache<Long, User> cache) {
+    public CachedUserDaoHibernate(UserDao userDaoHibernate, LoadingCustomCache<Long, User> cache) {
         this.userDaoHibernate = userDaoHibernate;
         this.cache = cache;
     }
 
 
     @Override
-    public Optional<User> findById(long id) {
-
-        Optional<User> userFromCache = Optional.ofNullable(cache.get(id));
-        if (userFromCache.isEmpty()) {
-            Optional<User> foundUser = userDaoHibernate.findById(id);
-            cache.put(id, foundUser.orElse(null));
-            return foundUser;
-        } else {
-            return userFromCache;
+    public Optional<User> findById(long id, UserFetchPlan fetchPlan) {
+
+        if (fetchPlan == UserFetchPlan.WITH_DETAILS) {
+            return Optional.ofNullable(cache.get(id, key -> userDaoHibernate.findById(key, fetchPlan).orElse(null)));
+        }
+        User cached = cache.get(id);
+        return cached != null ? Optional.of(cached) : userDaoHibernate.findById(id, fetchPlan);
+
+    }
+
+    /**
+     * Юзеры из кэша, промахи догружаются одним запросом
+     */
+    @Override
+    public List<User> findByIds(Collection<Long> ids, UserFetchPlan fetchPlan) {
+
+        if (fetchPlan == UserFetchPlan.WITH_DETAILS) {
+            return new ArrayList<>(cache.getAll(ids, misses -> userDaoHibernate.findByIds(misses, fetchPlan).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()))).values());
+        }
+        Map<Long, User> found = new LinkedHashMap<>();
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : ids) {
+            User cached = cache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
         }
+        if (!misses.isEmpty()) {
+            userDaoHibernate.findByIds(misses, fetchPlan).forEach(user -> found.put(user.getId(), user));
+        }
+        return new ArrayList<>(found.values());
 
     }
 
@@ -46,7 +88,7 @@ public class CachedUserDaoHibernate implements UserDao {
     public void updateUser(User user) {
 
         userDaoHibernate.updateUser(user);
-        cache.put(user.getId(), user);
+        cache.remove(user.getId());
 
     }
 
@@ -54,20 +96,30 @@ public class CachedUserDaoHibernate implements UserDao {
     public void insertOrUpdate(User user) {
 
         userDaoHibernate.insertOrUpdate(user);
-        cache.put(user.getId(), user);
+        cache.remove(user.getId());
 
     }
 
     @Override
-    public List<User> getAllUsers() {
-        List<User> users = userDaoHibernate.getAllUsers();
+    public List<User> getAllUsers(UserFetchPlan fetchPlan) {
+        List<User> users = userDaoHibernate.getAllUsers(fetchPlan);
 
-        users.forEach(user -> cache.put(user.getId(), user));
+        if (fetchPlan == UserFetchPlan.WITH_DETAILS) {
+            cache.putAll(users.stream().collect(Collectors.toMap(User::getId, Function.identity())));
+        }
 
         return users;
     }
 
 
+    /**
+     * Страницы идут мимо кэша: выгрузка всех юзеров вытеснила бы из него часто читаемых
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit, UserFetchPlan fetchPlan) {
+        return userDaoHibernate.findPage(afterId, limit, fetchPlan);
+    }
+
     @Override
     public SessionManager getSessionManager() {
         return userDaoHibernate.getSessionManager();
@@ -1,10 +1,12 @@
 package ru.dankoy.otus.jetty.hibernate.dao;
 
 import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.dankoy.otus.jetty.core.dao.UserDao;
 import ru.dankoy.otus.jetty.core.dao.UserDaoException;
+import ru.dankoy.otus.jetty.core.dao.UserFetchPlan;
 import ru.dankoy.otus.jetty.core.model.User;
 import ru.dankoy.otus.jetty.core.sessionmanager.SessionManager;
 import ru.dankoy.otus.jetty.hibernate.sessionmanager.DatabaseSessionHibernate;
@@ -14,7 +16,11 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class UserDaoHibernate implements UserDao {
@@ -29,16 +35,37 @@ public class UserDaoHibernate implements UserDao {
 
 
     @Override
-    public Optional<User> findById(long id) {
+    public Optional<User> findById(long id, UserFetchPlan fetchPlan) {
         DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
         try {
-            return Optional.ofNullable(currentSession.getHibernateSession().find(User.class, id));
+            Session hibernateSession = currentSession.getHibernateSession();
+            if (fetchPlan == UserFetchPlan.WITH_DETAILS) {
+                return Optional.ofNullable(hibernateSession.find(User.class, id, Map.of(QueryHints.HINT_LOADGRAPH,
+                        hibernateSession.getEntityGraph(User.GRAPH_WITH_DETAILS))));
+            }
+            return Optional.ofNullable(hibernateSession.find(User.class, id));
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         }
         return Optional.empty();
     }
 
+    @Override
+    public List<User> findByIds(Collection<Long> ids, UserFetchPlan fetchPlan) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
+        CriteriaBuilder criteriaBuilder = currentSession.getCriteriaBuilder();
+
+        CriteriaQuery<User> criteriaQuery = criteriaBuilder.createQuery(User.class);
+        Root<User> rootEntry = criteriaQuery.from(User.class);
+        CriteriaQuery<User> byIds = criteriaQuery.select(rootEntry).where(rootEntry.get("id").in(ids));
+
+        return applyFetchPlan(currentSession, byIds, fetchPlan).getResultList();
+    }
+
     @Override
     public long insertUser(User user) {
         DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
@@ -79,7 +106,7 @@ public class UserDaoHibernate implements UserDao {
     }
 
     @Override
-    public List<User> getAllUsers() {
+    public List<User> getAllUsers(UserFetchPlan fetchPlan) {
 
         DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
         CriteriaBuilder criteriaBuilder = currentSession.getCriteriaBuilder();
@@ -88,10 +115,41 @@ public class UserDaoHibernate implements UserDao {
         Root<User> rootEntry = criteriaQuery.from(User.class);
         CriteriaQuery<User> all = criteriaQuery.select(rootEntry);
 
-        TypedQuery<User> allQuery = currentSession.getHibernateSession().createQuery(all);
+        return applyFetchPlan(currentSession, all, fetchPlan).getResultList();
 
-        return allQuery.getResultList();
+    }
 
+    /**
+     * Для WITH_DETAILS адрес и телефоны присоединяются к запросу графом. Join с телефонами повторяет юзера
+     * в строках, поэтому distinct, но только в памяти, в sql он не нужен.
+     */
+    private static TypedQuery<User> applyFetchPlan(DatabaseSessionHibernate currentSession,
+                                                   CriteriaQuery<User> criteriaQuery, UserFetchPlan fetchPlan) {
+        Session hibernateSession = currentSession.getHibernateSession();
+        if (fetchPlan != UserFetchPlan.WITH_DETAILS) {
+            return hibernateSession.createQuery(criteriaQuery);
+        }
+        return hibernateSession.createQuery(criteriaQuery.distinct(true))
+                .setHint(QueryHints.HINT_LOADGRAPH, hibernateSession.getEntityGraph(User.GRAPH_WITH_DETAILS))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+    }
+
+    /**
+     * Сначала id страницы, потом юзеры по ним. Постраничный запрос с join коллекции hibernate ограничил бы
+     * в памяти, прочитав всю таблицу, поэтому limit применяется к запросу только id.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit, UserFetchPlan fetchPlan) {
+        DatabaseSessionHibernate currentSession = sessionManager.getCurrentSession();
+        List<Long> ids = currentSession.getHibernateSession()
+                .createQuery("select u.id from User u where u.id > :afterId order by u.id", Long.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<User> users = new ArrayList<>(findByIds(ids, fetchPlan));
+        users.sort(Comparator.comparingLong(User::getId));
+        return users;
     }
 
     @Override
@@ -1,14 +1,23 @@
 package ru.dankoy.otus.jetty.hibernate.sessionmanager;
 
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import ru.dankoy.otus.jetty.core.sessionmanager.SessionManager;
 import ru.dankoy.otus.jetty.core.sessionmanager.SessionManagerException;
 
+/**
+ * Сессия привязана к потоку, который ее открыл, поэтому один менеджер используют все потоки веб сервера,
+ * не мешая друг другу: begin/getCurrentSession/commit в потоке работают с его сессией.
+ * <p>
+ * Чтобы продолжить работу с сессией в другом потоке (асинхронный сервлет, executor), задачу нужно обернуть
+ * в {@link #propagate(Runnable)}. Сессия hibernate не потокобезопасна, поэтому это передача, а не совместное
+ * использование: пока задача работает, исходный поток сессию не трогает.
+ */
 public class SessionManagerHibernate implements SessionManager {
 
-    private DatabaseSessionHibernate databaseSession;
+    private final ThreadLocal<DatabaseSessionHibernate> databaseSession = new ThreadLocal<>();
     private final SessionFactory sessionFactory;
 
     public SessionManagerHibernate(SessionFactory sessionFactory) {
@@ -21,7 +30,25 @@ public class SessionManagerHibernate implements SessionManager {
     @Override
     public void beginSession() {
         try {
-            databaseSession = new DatabaseSessionHibernate(sessionFactory.openSession());
+            databaseSession.set(new DatabaseSessionHibernate(sessionFactory.openSession()));
+        } catch (Exception e) {
+            throw new SessionManagerException(e);
+        }
+    }
+
+    /**
+     * Объекты загружаются read only: hibernate не хранит их снимки и не проверяет на изменения, flush только ручной,
+     * поэтому commit ничего не сбрасывает. Соединение помечается read only до начала транзакции, пул возвращает
+     * ему исходное состояние при возврате (HikariCP так делает).
+     */
+    @Override
+    public void beginReadOnlySession() {
+        try {
+            Session session = sessionFactory.openSession();
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.doWork(connection -> connection.setReadOnly(true));
+            databaseSession.set(new DatabaseSessionHibernate(session));
         } catch (Exception e) {
             throw new SessionManagerException(e);
         }
@@ -29,7 +56,7 @@ public class SessionManagerHibernate implements SessionManager {
 
     @Override
     public void commitSession() {
-        checkSessionAndTransaction();
+        DatabaseSessionHibernate databaseSession = getCurrentSession();
         try {
             databaseSession.getTransaction().commit();
             databaseSession.getHibernateSession().close();
@@ -40,7 +67,7 @@ public class SessionManagerHibernate implements SessionManager {
 
     @Override
     public void rollbackSession() {
-        checkSessionAndTransaction();
+        DatabaseSessionHibernate databaseSession = getCurrentSession();
         try {
             databaseSession.getTransaction().rollback();
             databaseSession.getHibernateSession().close();
@@ -49,11 +76,16 @@ public class SessionManagerHibernate implements SessionManager {
         }
     }
 
+    /**
+     * Закрывает сессию потока, если она еще открыта, и отвязывает ее от потока
+     */
     @Override
     public void close() {
+        DatabaseSessionHibernate databaseSession = this.databaseSession.get();
         if (databaseSession == null) {
             return;
         }
+        this.databaseSession.remove();
         Session session = databaseSession.getHibernateSession();
         if (session == null || !session.isConnected()) {
             return;
@@ -66,7 +98,6 @@ public class SessionManagerHibernate implements SessionManager {
 
         try {
             databaseSession.close();
-            databaseSession = null;
         } catch (Exception e) {
             throw new SessionManagerException(e);
         }
@@ -74,11 +105,33 @@ public class SessionManagerHibernate implements SessionManager {
 
     @Override
     public DatabaseSessionHibernate getCurrentSession() {
-        checkSessionAndTransaction();
+        DatabaseSessionHibernate databaseSession = this.databaseSession.get();
+        checkSessionAndTransaction(databaseSession);
         return databaseSession;
     }
 
-    private void checkSessionAndTransaction() {
+    /**
+     * Задача, которая в своем потоке работает с текущей сессией этого потока. После задачи поток возвращается
+     * к своей прежней сессии.
+     */
+    public Runnable propagate(Runnable task) {
+        DatabaseSessionHibernate session = getCurrentSession();
+        return () -> {
+            DatabaseSessionHibernate previous = databaseSession.get();
+            databaseSession.set(session);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    databaseSession.remove();
+                } else {
+                    databaseSession.set(previous);
+                }
+            }
+        };
+    }
+
+    private static void checkSessionAndTransaction(DatabaseSessionHibernate databaseSession) {
         if (databaseSession == null) {
             throw new SessionManagerException("DatabaseSession not opened ");
         }
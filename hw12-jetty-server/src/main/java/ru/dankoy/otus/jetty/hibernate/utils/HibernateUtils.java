@@ -5,18 +5,29 @@ import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 
 import java.util.Arrays;
+import java.util.Properties;
 
+/**
+ * Если в конфиге не задано иное, включает пакетную отправку insert/update (jdbc batch) с сортировкой
+ * по сущностям, чтобы пачки не разрывались, и пакетную догрузку ленивых связей.
+ * Insert сущностей с identity ключом hibernate пакетами не отправляет, им нужен ключ сразу.
+ */
 public final class HibernateUtils {
 
+    private static final String JDBC_BATCH_SIZE = "50";
+    private static final String DEFAULT_BATCH_FETCH_SIZE = "25";
+
     private HibernateUtils() {
     }
 
     public static SessionFactory buildSessionFactory(String configResourceFileName,
                                                      Class<?>... annotatedClasses) {
         Configuration configuration = new Configuration().configure(configResourceFileName);
+        applyBatchDefaults(configuration.getProperties());
         MetadataSources metadataSources = new MetadataSources(createServiceRegistry(configuration));
         Arrays.stream(annotatedClasses).forEach(metadataSources::addAnnotatedClass);
 
@@ -24,6 +35,14 @@ public final class HibernateUtils {
         return metadata.getSessionFactoryBuilder().build();
     }
 
+    private static void applyBatchDefaults(Properties properties) {
+        properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, JDBC_BATCH_SIZE);
+        properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, "true");
+        properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, "true");
+        properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, "true");
+        properties.putIfAbsent(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, DEFAULT_BATCH_FETCH_SIZE);
+    }
+
     private static StandardServiceRegistry createServiceRegistry(Configuration configuration) {
         return new StandardServiceRegistryBuilder()
                 .applySettings(configuration.getProperties()).build();
@@ -1,10 +1,12 @@
 package ru.dankoy.otus.jetty.web.servlet;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import ru.dankoy.otus.jetty.WebServerBasicAuth;
 import ru.dankoy.otus.jetty.core.model.AddressDataSet;
 import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
 import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
 import ru.dankoy.otus.jetty.core.service.userservice.DBServiceUser;
 
 import javax.servlet.ServletOutputStream;
@@ -14,14 +16,20 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class UsersApiServlet extends HttpServlet {
 
     private static final int ID_PATH_PARAM_POSITION = 1;
     private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final String ID_REQUEST_PARAM = "id";
+    private static final String AFTER_REQUEST_PARAM = "after";
+    private static final String LIMIT_REQUEST_PARAM = "limit";
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int EXPORT_PAGE_SIZE = 500;
 
     private final DBServiceUser dbServiceUser;
     private final Gson gson;
@@ -39,14 +47,18 @@ public class UsersApiServlet extends HttpServlet {
 
         String requestURI = request.getRequestURI();
 
-        if (requestURI.endsWith("user")) {
+        try {
+            if (requestURI.endsWith("user")) {
 
-            doGetAllUsers(response);
+                doGetAllUsers(request, response);
 
-        } else {
+            } else {
 
-            doGetUserById(request, response);
+                doGetUserById(request, response);
 
+            }
+        } catch (IllegalRequestParameterException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         }
 
     }
@@ -58,9 +70,9 @@ public class UsersApiServlet extends HttpServlet {
         session.setMaxInactiveInterval(WebServerBasicAuth.MAX_INACTIVE_INTERVAL);
 
         var userFromJson = getUserJsonFromRequestBody(request);
-        var id = saveUser(userFromJson);
+        saveUser(userFromJson);
 
-        returnSavedUser(id, response);
+        returnSavedUser(userFromJson, response);
 
     }
 
@@ -69,26 +81,125 @@ public class UsersApiServlet extends HttpServlet {
      *
      * @param request
      * @return
+     * @throws IllegalRequestParameterException если id нет или это не число
      */
     private long extractIdFromRequest(HttpServletRequest request) {
-        String[] path = request.getPathInfo().split("/");
-        String id = (path.length > 1) ? path[ID_PATH_PARAM_POSITION] : String.valueOf(-1);
-        return Long.parseLong(id);
+        String pathInfo = request.getPathInfo();
+        String[] path = pathInfo == null ? new String[0] : pathInfo.split("/");
+        if (path.length <= ID_PATH_PARAM_POSITION) {
+            throw new IllegalRequestParameterException("User id is missing");
+        }
+        return parseLong(ID_REQUEST_PARAM, path[ID_PATH_PARAM_POSITION], 0);
     }
 
     /**
-     * Получает всех юзеров из бд и возвращает в ответе как JSON строку
+     * Id юзеров из параметров запроса вида ?id=1&amp;id=2, не больше MAX_PAGE_LIMIT
      *
+     * @param request
+     * @return пустой список, если параметров нет
+     * @throws IllegalRequestParameterException если id не число или их слишком много
+     */
+    private List<Long> extractIdsFromRequest(HttpServletRequest request) {
+        String[] ids = request.getParameterValues(ID_REQUEST_PARAM);
+        if (ids == null) {
+            return List.of();
+        }
+        if (ids.length > MAX_PAGE_LIMIT) {
+            throw new IllegalRequestParameterException("Too many ids, at most " + MAX_PAGE_LIMIT + " are allowed");
+        }
+        return Arrays.stream(ids).map(id -> parseLong(ID_REQUEST_PARAM, id, 0)).collect(Collectors.toList());
+    }
+
+    /**
+     * @throws IllegalRequestParameterException если value не число или меньше min
+     */
+    private static long parseLong(String name, String value, long min) {
+        long parsed;
+        try {
+            parsed = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalRequestParameterException("Parameter " + name + " is not a number: " + value);
+        }
+        if (parsed < min) {
+            throw new IllegalRequestParameterException("Parameter " + name + " must be at least " + min);
+        }
+        return parsed;
+    }
+
+    /**
+     * Возвращает юзеров как JSON. Если в запросе есть параметры id, то только этих юзеров. Если есть after
+     * или limit, то страницу ?after=курсор&amp;limit=n с курсором следующей страницы в next, иначе выгружает всех.
+     *
+     * @param request
      * @param response
      * @throws IOException
      */
-    private void doGetAllUsers(HttpServletResponse response) throws IOException {
+    private void doGetAllUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        List<Long> ids = extractIdsFromRequest(request);
+        if (!ids.isEmpty()) {
+            response.setContentType(CONTENT_TYPE);
+            ServletOutputStream out = response.getOutputStream();
+            out.print(gson.toJson(dbServiceUser.getUsers(ids)));
+        } else if (request.getParameter(AFTER_REQUEST_PARAM) != null
+                || request.getParameter(LIMIT_REQUEST_PARAM) != null) {
+            doGetUsersPage(request, response);
+        } else {
+            exportAllUsers(response);
+        }
 
-        List<User> user = dbServiceUser.getAllUsers();
+    }
 
+    /**
+     * Страница юзеров, limit от 1, больший MAX_PAGE_LIMIT урезается до него, без limit - DEFAULT_PAGE_LIMIT
+     *
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    private void doGetUsersPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        String after = request.getParameter(AFTER_REQUEST_PARAM);
+        long afterId = after == null ? 0 : parseLong(AFTER_REQUEST_PARAM, after, 0);
+        String limitParam = request.getParameter(LIMIT_REQUEST_PARAM);
+        int limit = limitParam == null
+                ? DEFAULT_PAGE_LIMIT
+                : (int) Math.min(parseLong(LIMIT_REQUEST_PARAM, limitParam, 1), MAX_PAGE_LIMIT);
+
+        UserPage page = dbServiceUser.getUsersPage(afterId, limit);
         response.setContentType(CONTENT_TYPE);
         ServletOutputStream out = response.getOutputStream();
-        out.print(gson.toJson(user));
+        out.print(gson.toJson(page));
+
+    }
+
+    /**
+     * Выгружает всех юзеров JSON массивом, читая их страницами по EXPORT_PAGE_SIZE и записывая в ответ
+     * по мере чтения. В памяти только одна страница, сколько бы юзеров ни было.
+     *
+     * @param response
+     * @throws IOException
+     */
+    private void exportAllUsers(HttpServletResponse response) throws IOException {
+
+        response.setContentType(CONTENT_TYPE);
+        JsonWriter jsonWriter = gson.newJsonWriter(response.getWriter());
+        jsonWriter.beginArray();
+
+        UserPage page = dbServiceUser.getUsersPage(0, EXPORT_PAGE_SIZE);
+        while (true) {
+            for (User user : page.getUsers()) {
+                gson.toJson(user, User.class, jsonWriter);
+            }
+            jsonWriter.flush();
+            if (page.getNext() == null) {
+                break;
+            }
+            page = dbServiceUser.getUsersPage(page.getNext(), EXPORT_PAGE_SIZE);
+        }
+
+        jsonWriter.endArray();
+        jsonWriter.flush();
 
     }
 
@@ -141,20 +252,33 @@ public class UsersApiServlet extends HttpServlet {
     }
 
     /**
-     * Формирует ответ в виде json строки созданного юзера в бд.
+     * Формирует ответ в виде json строки созданного юзера. После сохранения у юзера, адреса и телефонов уже
+     * есть id, поэтому юзер повторно из бд не читается.
      *
-     * @param id
+     * @param savedUser
      * @param response
      * @throws IOException
      */
-    private void returnSavedUser(long id, HttpServletResponse response) throws IOException {
+    private void returnSavedUser(User savedUser, HttpServletResponse response) throws IOException {
 
         response.setStatus(HttpServletResponse.SC_OK);
 
-        Optional<User> foundUser = dbServiceUser.getUser(id);
         response.setContentType(CONTENT_TYPE);
         ServletOutputStream out = response.getOutputStream();
-        out.print(gson.toJson(foundUser.orElse(null)));
+        out.print(gson.toJson(savedUser));
+
+    }
+
+    /**
+     * Неверный параметр запроса, на него отвечаем 400
+     */
+    private static class IllegalRequestParameterException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        IllegalRequestParameterException(String message) {
+            super(message);
+        }
 
     }
 
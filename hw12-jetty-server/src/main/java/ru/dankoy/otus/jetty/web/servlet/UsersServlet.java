@@ -10,15 +10,18 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class UsersServlet extends HttpServlet {
 
     private static final String USERS_PAGE_TEMPLATE = "users.html";
     private static final String TEMPLATE_USER_DATA_NAME = "users";
     private static final String CONTENT_TYPE = "text/html";
+    private static final String ID_REQUEST_PARAM = "id";
 
     private final DBServiceUser dbServiceUser;
     private final TemplateProcessor templateProcessor;
@@ -35,7 +38,8 @@ public class UsersServlet extends HttpServlet {
         session.setMaxInactiveInterval(WebServerBasicAuth.MAX_INACTIVE_INTERVAL);
 
         Map<String, Object> userMap = new HashMap<>();
-        List<User> users = dbServiceUser.getAllUsers();
+        List<Long> ids = extractIdsFromRequest(req);
+        List<User> users = ids.isEmpty() ? dbServiceUser.getAllUsers() : dbServiceUser.getUsers(ids);
 
         userMap.put(TEMPLATE_USER_DATA_NAME, users);
 
@@ -44,4 +48,18 @@ public class UsersServlet extends HttpServlet {
 
     }
 
+    /**
+     * Id юзеров из параметров запроса вида ?id=1&amp;id=2
+     *
+     * @param request
+     * @return пустой список, если параметров нет
+     */
+    private List<Long> extractIdsFromRequest(HttpServletRequest request) {
+        String[] ids = request.getParameterValues(ID_REQUEST_PARAM);
+        if (ids == null) {
+            return List.of();
+        }
+        return Arrays.stream(ids).map(Long::parseLong).collect(Collectors.toList());
+    }
+
 }
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import ru.dankoy.otus.jetty.core.model.AddressDataSet;
 import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
 import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
 import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserImpl;
 import ru.dankoy.otus.jetty.h2.DataSourceH2;
 import ru.dankoy.otus.jetty.service.FileSystemHelper;
@@ -36,6 +37,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 
@@ -102,6 +105,9 @@ class JettyTest {
 
         given(dbServiceUser.getUser(DEFAULT_USER_ID)).willReturn(Optional.of(DEFAULT_USER));
         given(dbServiceUser.getAllUsers()).willReturn(List.of(DEFAULT_USER));
+        given(dbServiceUser.getUsers(List.of(DEFAULT_USER_ID))).willReturn(List.of(DEFAULT_USER));
+        given(dbServiceUser.getUsersPage(eq(0L), anyInt())).willReturn(new UserPage(List.of(DEFAULT_USER), null));
+        given(dbServiceUser.getUsersPage(0L, 1)).willReturn(new UserPage(List.of(DEFAULT_USER), DEFAULT_USER_ID));
 
         String hashLoginServiceConfigPath = FileSystemHelper
                 .localFileNameOrResourceNameToFullPath(HASH_LOGIN_SERVICE_CONFIG_NAME);
@@ -185,4 +191,80 @@ class JettyTest {
 
     }
 
+    @Test
+    @DisplayName("Проверка того, что запрос к /api/user?id=1 возвращает список из запрошенных пользователей")
+    void testGetUsersByIds() throws IOException, InterruptedException {
+
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(WEB_SERVER_URL);
+        stringBuilder.append(API_USER_URL);
+        stringBuilder.append("?id=" + DEFAULT_USER_ID);
+
+        HttpRequest request = HttpRequest.newBuilder().GET()
+                .uri(URI.create(stringBuilder.toString()))
+                .setHeader(HttpHeader.ACCEPT.asString(), "application/json;charset=UTF-8")
+                .setHeader(HttpHeader.CONTENT_TYPE.asString(), "application/json;charset=UTF-8")
+                .setHeader(HttpHeader.AUTHORIZATION.asString(), "Basic " + ENCODED_STRING)
+                .build();
+
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(HttpURLConnection.HTTP_OK);
+        assertThat(response.body()).isEqualTo(gson.toJson(List.of(DEFAULT_USER)));
+
+    }
+
+    @Test
+    @DisplayName("Проверка того, что запрос к /api/user?limit=1 возвращает страницу с курсором следующей")
+    void testGetUsersPage() throws IOException, InterruptedException {
+
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(WEB_SERVER_URL);
+        stringBuilder.append(API_USER_URL);
+        stringBuilder.append("?limit=1");
+
+        HttpRequest request = HttpRequest.newBuilder().GET()
+                .uri(URI.create(stringBuilder.toString()))
+                .setHeader(HttpHeader.ACCEPT.asString(), "application/json;charset=UTF-8")
+                .setHeader(HttpHeader.CONTENT_TYPE.asString(), "application/json;charset=UTF-8")
+                .setHeader(HttpHeader.AUTHORIZATION.asString(), "Basic " + ENCODED_STRING)
+                .build();
+
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(HttpURLConnection.HTTP_OK);
+        assertThat(response.body()).isEqualTo(gson.toJson(new UserPage(List.of(DEFAULT_USER), DEFAULT_USER_ID)));
+
+    }
+
+    @Test
+    @DisplayName("Проверка 400 ответа на нечисловые и недопустимые id, after и limit, большой limit урезается")
+    void testBadRequestParameters() throws IOException, InterruptedException {
+
+        List<String> badQueries = List.of("/abc", "/", "?id=abc", "?limit=abc", "?limit=0", "?limit=1&after=-1",
+                "?limit=99999999999999999999", "?after=abc", "?after=-1");
+
+        for (String badQuery : badQueries) {
+            HttpRequest request = HttpRequest.newBuilder().GET()
+                    .uri(URI.create(WEB_SERVER_URL + API_USER_URL + badQuery))
+                    .setHeader(HttpHeader.ACCEPT.asString(), "application/json;charset=UTF-8")
+                    .setHeader(HttpHeader.AUTHORIZATION.asString(), "Basic " + ENCODED_STRING)
+                    .build();
+
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode()).as(badQuery).isEqualTo(HttpURLConnection.HTTP_BAD_REQUEST);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder().GET()
+                .uri(URI.create(WEB_SERVER_URL + API_USER_URL + "?limit=99999999999"))
+                .setHeader(HttpHeader.ACCEPT.asString(), "application/json;charset=UTF-8")
+                .setHeader(HttpHeader.AUTHORIZATION.asString(), "Basic " + ENCODED_STRING)
+                .build();
+
+        assertThat(http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode())
+                .isEqualTo(HttpURLConnection.HTTP_OK);
+
+    }
+
 }
@@ -0,0 +1,75 @@
+package ru.dankoy.otus.jetty.core.service.userservice;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.dankoy.otus.jetty.core.model.AddressDataSet;
+import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.hibernate.dao.UserDaoHibernate;
+import ru.dankoy.otus.jetty.hibernate.sessionmanager.SessionManagerHibernate;
+import ru.dankoy.otus.jetty.hibernate.utils.HibernateUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DbServiceUserWriteBehindHibernateTest {
+
+    private static final String HIBERNATE_CFG_FILE = "hibernate-test.cfg.xml";
+    private static final int BATCH_SIZE = 10;
+    private static final Duration MAX_DELAY = Duration.ofMillis(200);
+    private static final int QUEUE_CAPACITY = 100;
+    // длиннее колонки имени, такой юзер не сохраняется
+    private static final String TOO_LONG_NAME = "x".repeat(300);
+
+    private SessionFactory sessionFactory;
+    private DBServiceUser dbServiceUser;
+    private DbServiceUserWriteBehindImpl writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
+                AddressDataSet.class, PhoneDataSet.class);
+        dbServiceUser = new DbServiceUserImpl(new UserDaoHibernate(new SessionManagerHibernate(sessionFactory)));
+        writeBehind = new DbServiceUserWriteBehindImpl(dbServiceUser, BATCH_SIZE, MAX_DELAY, QUEUE_CAPACITY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.close();
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("Юзер, которого нельзя сохранить, не мешает сохранить остальных юзеров его пачки")
+    void badUserDoesNotFailBatch() {
+        CompletableFuture<User> first = writeBehind.saveUserAsync(newUser("first"));
+        CompletableFuture<User> bad = writeBehind.saveUserAsync(newUser(TOO_LONG_NAME));
+        CompletableFuture<User> last = writeBehind.saveUserAsync(newUser("last"));
+
+        // юзеры пачки пишутся по одному по порядку, поэтому последний сохраняется уже после отказа плохому
+        List<User> saved = List.of(first.join(), last.join());
+        assertThatThrownBy(bad::join).hasCauseInstanceOf(Exception.class);
+        assertThat(dbServiceUser.getAllUsers()).extracting(User::getName).containsExactlyInAnyOrder("first", "last");
+        assertThat(saved).allSatisfy(user -> {
+            assertThat(dbServiceUser.getUser(user.getId())).isPresent();
+            assertThat(user.getPhoneDataSets()).allSatisfy(phone -> assertThat(phone.getId()).isPositive());
+        });
+    }
+
+    private User newUser(String name) {
+        AddressDataSet address = new AddressDataSet("street" + name);
+        List<PhoneDataSet> phones = new ArrayList<>(List.of(new PhoneDataSet(name + "-1"), new PhoneDataSet(name + "-2")));
+        User user = new User(name, 12, address, phones);
+        address.setUser(user);
+        phones.forEach(phoneDataSet -> phoneDataSet.setUser(user));
+        return user;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.dankoy.otus.jetty.core.service.userservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.service.DbServiceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class DbServiceUserWriteBehindImplTest {
+
+    private static final int BATCH_SIZE = 50;
+    private static final Duration MAX_DELAY = Duration.ofMillis(20);
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private final List<List<User>> batches = new CopyOnWriteArrayList<>();
+    private DBServiceUser dbServiceUser;
+    private DbServiceUserWriteBehindImpl writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        dbServiceUser = mock(DBServiceUser.class);
+        given(dbServiceUser.saveUsers(anyList())).willAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            batches.add(new ArrayList<>(users));
+            List<Long> ids = new ArrayList<>();
+            users.forEach(user -> ids.add(user.getId()));
+            return ids;
+        });
+        writeBehind = new DbServiceUserWriteBehindImpl(dbServiceUser, BATCH_SIZE, MAX_DELAY, QUEUE_CAPACITY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Одновременные сохранения коммитятся пачками не больше batchSize")
+    void concurrentSavesAreBatched() throws Exception {
+        int threadsCount = 8;
+        int usersPerThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threadsCount; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int idx = 0; idx < usersPerThread; idx++) {
+                    writeBehind.saveUser(new User());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(BATCH_SIZE));
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(threadsCount * usersPerThread);
+        assertThat(batches).hasSizeLessThan(threadsCount * usersPerThread);
+    }
+
+    @Test
+    @DisplayName("Future завершается тем же юзером после записи его пачки")
+    void futureCompletesWithSavedUser() {
+        User user = new User();
+
+        CompletableFuture<User> future = writeBehind.saveUserAsync(user);
+
+        assertThat(future.join()).isSameAs(user);
+        assertThat(batches).anySatisfy(batch -> assertThat(batch).contains(user));
+    }
+
+    @Test
+    @DisplayName("После ошибки пачки юзеры сохраняются по одному, ошибкой завершается future только плохого юзера")
+    void failedBatchIsRetriedPerUser() {
+        User bad = new User();
+        given(dbServiceUser.saveUsers(anyList())).willThrow(new DbServiceException(new IllegalStateException()));
+        given(dbServiceUser.saveUser(any(User.class))).willAnswer(invocation -> {
+            if (invocation.getArgument(0) == bad) {
+                throw new DbServiceException(new IllegalStateException());
+            }
+            return 1L;
+        });
+
+        List<CompletableFuture<User>> good = List.of(writeBehind.saveUserAsync(new User()),
+                writeBehind.saveUserAsync(new User()));
+        CompletableFuture<User> failed = writeBehind.saveUserAsync(bad);
+
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(DbServiceException.class);
+        assertThat(good).allSatisfy(future -> assertThat(future.join()).isNotNull());
+        assertThatThrownBy(() -> writeBehind.saveUser(bad)).isInstanceOf(DbServiceException.class);
+    }
+
+    @Test
+    @DisplayName("close дописывает очередь, после него сохранение не принимается")
+    void closeFlushesQueue() {
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int idx = 0; idx < 10; idx++) {
+            futures.add(writeBehind.saveUserAsync(new User()));
+        }
+
+        writeBehind.close();
+
+        assertThat(futures).allSatisfy(future -> assertThat(future).isCompleted().isNotCompletedExceptionally());
+        assertThat(writeBehind.saveUserAsync(new User())).isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.dankoy.otus.jetty.hibernate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Считает sql запросы, которые hibernate подготовил за время действия, по его статистике
+ */
+public class StatementCounter {
+
+    private final Statistics statistics;
+
+    public StatementCounter(SessionFactory sessionFactory) {
+        this.statistics = sessionFactory.getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public long count(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.dankoy.otus.jetty.hibernate.cacheddao;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.dankoy.otus.jetty.cache.BoundedCustomCache;
+import ru.dankoy.otus.jetty.core.dao.UserDao;
+import ru.dankoy.otus.jetty.core.dao.UserFetchPlan;
+import ru.dankoy.otus.jetty.core.model.AddressDataSet;
+import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.hibernate.StatementCounter;
+import ru.dankoy.otus.jetty.hibernate.dao.UserDaoHibernate;
+import ru.dankoy.otus.jetty.hibernate.sessionmanager.SessionManagerHibernate;
+import ru.dankoy.otus.jetty.hibernate.utils.HibernateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedUserDaoHibernateTest {
+
+    private static final String HIBERNATE_CFG_FILE = "hibernate-test.cfg.xml";
+    private static final int PHONES_PER_USER = 3;
+
+    private SessionFactory sessionFactory;
+    private SessionManagerHibernate sessionManager;
+    private UserDao cachedUserDao;
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
+                AddressDataSet.class, PhoneDataSet.class);
+        sessionManager = new SessionManagerHibernate(sessionFactory);
+        cachedUserDao = new CachedUserDaoHibernate(new UserDaoHibernate(sessionManager),
+                BoundedCustomCache.<Long, User>newBuilder().setMaximumSize(100).build());
+        statementCounter = new StatementCounter(sessionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("Юзер, прочитанный без деталей, не попадает в кэш и не отдается читающему с деталями")
+    void userOnlyReadIsNotCachedForDetails() {
+        long id = saveUser("name");
+
+        Optional<User> userOnly = read(() -> cachedUserDao.findById(id, UserFetchPlan.USER_ONLY));
+        Optional<User> withDetails = read(() -> cachedUserDao.findById(id, UserFetchPlan.WITH_DETAILS));
+
+        assertThat(userOnly).isPresent();
+        assertThat(withDetails).hasValueSatisfying(user ->
+                assertThat(user.getPhoneDataSets()).hasSize(PHONES_PER_USER));
+    }
+
+    @Test
+    @DisplayName("Юзер с деталями из кэша отдается и читающему без деталей")
+    void detailedUserServesUserOnlyRead() {
+        long id = saveUser("name");
+        read(() -> cachedUserDao.findById(id, UserFetchPlan.WITH_DETAILS));
+
+        List<User> users = new ArrayList<>();
+        long statements = statementCounter.count(() -> {
+            users.addAll(read(() -> cachedUserDao.findByIds(List.of(id), UserFetchPlan.USER_ONLY)));
+            read(() -> cachedUserDao.findById(id, UserFetchPlan.USER_ONLY));
+        });
+
+        assertThat(statements).isZero();
+        assertThat(users).hasSize(1);
+        assertThat(users.get(0).getPhoneDataSets()).hasSize(PHONES_PER_USER);
+    }
+
+    @Test
+    @DisplayName("Список без деталей не попадает в кэш")
+    void userOnlyListIsNotCached() {
+        long id = saveUser("name");
+
+        read(() -> cachedUserDao.findByIds(List.of(id), UserFetchPlan.USER_ONLY));
+        List<User> users = read(() -> cachedUserDao.findByIds(List.of(id), UserFetchPlan.WITH_DETAILS));
+
+        assertThat(users).hasSize(1);
+        assertThat(users.get(0).getPhoneDataSets()).hasSize(PHONES_PER_USER);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        sessionManager.beginReadOnlySession();
+        try {
+            return reader.get();
+        } finally {
+            sessionManager.close();
+        }
+    }
+
+    private long saveUser(String name) {
+        AddressDataSet address = new AddressDataSet("street" + name);
+        List<PhoneDataSet> phones = new ArrayList<>();
+        for (int phone = 0; phone < PHONES_PER_USER; phone++) {
+            phones.add(new PhoneDataSet(name + "-" + phone));
+        }
+        User user = new User(name, 12, address, phones);
+        address.setUser(user);
+        phones.forEach(phoneDataSet -> phoneDataSet.setUser(user));
+
+        sessionManager.beginSession();
+        long id = new UserDaoHibernate(sessionManager).insertUser(user);
+        sessionManager.commitSession();
+        return id;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.dankoy.otus.jetty.hibernate.dao;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.dankoy.otus.jetty.core.model.AddressDataSet;
+import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.model.UserPage;
+import ru.dankoy.otus.jetty.core.service.userservice.DBServiceUser;
+import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserImpl;
+import ru.dankoy.otus.jetty.hibernate.StatementCounter;
+import ru.dankoy.otus.jetty.hibernate.sessionmanager.SessionManagerHibernate;
+import ru.dankoy.otus.jetty.hibernate.utils.HibernateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDaoHibernateFetchPlanTest {
+
+    private static final String HIBERNATE_CFG_FILE = "hibernate-test.cfg.xml";
+    private static final int PHONES_PER_USER = 3;
+
+    private SessionFactory sessionFactory;
+    private DBServiceUser dbServiceUser;
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
+                AddressDataSet.class, PhoneDataSet.class);
+        dbServiceUser = new DbServiceUserImpl(new UserDaoHibernate(new SessionManagerHibernate(sessionFactory)));
+        statementCounter = new StatementCounter(sessionFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    @DisplayName("Все юзеры с адресами и телефонами читаются одним запросом при любом их числе")
+    void getAllUsersIsOneStatement(int usersCount) {
+        saveUsers(usersCount);
+
+        List<User> users = new ArrayList<>();
+        long statements = statementCounter.count(() -> users.addAll(dbServiceUser.getAllUsers()));
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(users).hasSize(usersCount);
+        assertThat(users).allSatisfy(user -> {
+            assertThat(user.getAddress().getStreet()).isEqualTo("street" + user.getName());
+            assertThat(user.getPhoneDataSets()).hasSize(PHONES_PER_USER);
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    @DisplayName("Юзеры по списку id с адресами и телефонами читаются одним запросом")
+    void getUsersIsOneStatement(int usersCount) {
+        List<Long> ids = saveUsers(usersCount);
+
+        List<User> users = new ArrayList<>();
+        long statements = statementCounter.count(() -> users.addAll(dbServiceUser.getUsers(ids)));
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(users).extracting(User::getId).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    @DisplayName("Юзер по id с адресом и телефонами читается одним запросом")
+    void getUserIsOneStatement(int usersCount) {
+        List<Long> ids = saveUsers(usersCount);
+
+        long statements = statementCounter.count(() -> assertThat(dbServiceUser.getUser(ids.get(0)))
+                .hasValueSatisfying(user -> assertThat(user.getPhoneDataSets()).hasSize(PHONES_PER_USER)));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 50})
+    @DisplayName("Страницы по ключу обходят всех юзеров по порядку, каждая за два запроса")
+    void usersPagesAreTwoStatementsEach(int usersCount) {
+        List<Long> ids = saveUsers(usersCount);
+        int limit = 7;
+
+        List<Long> pagedIds = new ArrayList<>();
+        long afterId = 0;
+        Long next;
+        do {
+            long cursor = afterId;
+            UserPage[] page = new UserPage[1];
+            long statements = statementCounter.count(() -> page[0] = dbServiceUser.getUsersPage(cursor, limit));
+
+            assertThat(statements).isEqualTo(page[0].getUsers().isEmpty() ? 1 : 2);
+            assertThat(page[0].getUsers()).hasSizeLessThanOrEqualTo(limit);
+            page[0].getUsers().forEach(user -> pagedIds.add(user.getId()));
+            next = page[0].getNext();
+            afterId = next == null ? afterId : next;
+        } while (next != null);
+
+        assertThat(pagedIds).isEqualTo(ids);
+    }
+
+    private List<Long> saveUsers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int idx = 0; idx < count; idx++) {
+            String name = "user" + idx;
+            AddressDataSet address = new AddressDataSet("street" + name);
+            List<PhoneDataSet> phones = new ArrayList<>();
+            for (int phone = 0; phone < PHONES_PER_USER; phone++) {
+                phones.add(new PhoneDataSet(name + "-" + phone));
+            }
+            User user = new User(name, idx, address, phones);
+            address.setUser(user);
+            phones.forEach(phoneDataSet -> phoneDataSet.setUser(user));
+            ids.add(dbServiceUser.saveUser(user));
+        }
+        return ids;
+    }
+}
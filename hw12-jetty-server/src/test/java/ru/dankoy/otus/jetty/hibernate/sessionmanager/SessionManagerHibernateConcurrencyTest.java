@@ -0,0 +1,126 @@
+package ru.dankoy.otus.jetty.hibernate.sessionmanager;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.dankoy.otus.jetty.core.model.AddressDataSet;
+import ru.dankoy.otus.jetty.core.model.PhoneDataSet;
+import ru.dankoy.otus.jetty.core.model.User;
+import ru.dankoy.otus.jetty.core.service.userservice.DBServiceUser;
+import ru.dankoy.otus.jetty.core.service.userservice.DbServiceUserImpl;
+import ru.dankoy.otus.jetty.hibernate.dao.UserDaoHibernate;
+import ru.dankoy.otus.jetty.hibernate.utils.HibernateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Один менеджер сессий на все потоки, как в веб сервере. Пропускная способность пишется в лог для сравнения
+ * по числу потоков, но не проверяется: она зависит от машины.
+ */
+class SessionManagerHibernateConcurrencyTest {
+    private static final Logger logger = LoggerFactory.getLogger(SessionManagerHibernateConcurrencyTest.class);
+
+    private static final String HIBERNATE_CFG_FILE = "hibernate-test.cfg.xml";
+    private static final int USERS_PER_THREAD = 50;
+
+    private SessionFactory sessionFactory;
+    private SessionManagerHibernate sessionManager;
+    private DBServiceUser dbServiceUser;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = HibernateUtils.buildSessionFactory(HIBERNATE_CFG_FILE, User.class,
+                AddressDataSet.class, PhoneDataSet.class);
+        sessionManager = new SessionManagerHibernate(sessionFactory);
+        dbServiceUser = new DbServiceUserImpl(new UserDaoHibernate(sessionManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 8})
+    @DisplayName("Потоки с общим менеджером сессий сохраняют и читают своих юзеров, не мешая друг другу")
+    void threadsUseOwnSessions(int threadsCount) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int thread = 0; thread < threadsCount; thread++) {
+            String prefix = "thread" + thread + "-";
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int idx = 0; idx < USERS_PER_THREAD; idx++) {
+                        String name = prefix + idx;
+                        long id = dbServiceUser.saveUser(newUser(name));
+                        assertThat(dbServiceUser.getUser(id)).hasValueSatisfying(user ->
+                                assertThat(user.getName()).isEqualTo(name));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        int operations = threadsCount * USERS_PER_THREAD * 2;
+        logger.info("threads: {}, operations: {}, time: {} ms, throughput: {} ops/s", threadsCount, operations,
+                elapsedMillis, operations * 1000L / elapsedMillis);
+
+        assertThat(failures).isEmpty();
+        assertThat(dbServiceUser.getAllUsers()).hasSize(threadsCount * USERS_PER_THREAD);
+    }
+
+    @Test
+    @DisplayName("Сессия, переданная в другой поток через propagate, коммитится в исходном потоке")
+    void sessionIsPropagatedToAnotherThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        long[] id = new long[1];
+        try {
+            sessionManager.beginSession();
+            executor.submit(sessionManager.propagate(() ->
+                    id[0] = new UserDaoHibernate(sessionManager).insertUser(newUser("async"))))
+                    .get(1, TimeUnit.MINUTES);
+            sessionManager.commitSession();
+        } finally {
+            sessionManager.close();
+            executor.shutdown();
+        }
+
+        assertThat(dbServiceUser.getUser(id[0])).hasValueSatisfying(user ->
+                assertThat(user.getName()).isEqualTo("async"));
+    }
+
+    private static User newUser(String name) {
+        AddressDataSet address = new AddressDataSet("street" + name);
+        List<PhoneDataSet> phones = new ArrayList<>();
+        phones.add(new PhoneDataSet(name + "-0"));
+        User user = new User(name, 1, address, phones);
+        address.setUser(user);
+        phones.forEach(phone -> phone.setUser(user));
+        return user;
+    }
+}
@@ -4,18 +4,28 @@ import org.hibernate.SessionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import ru.dankoy.otus.warmvc.core.model.AddressDataSet;
 import ru.dankoy.otus.warmvc.core.model.PhoneDataSet;
 import ru.dankoy.otus.warmvc.core.model.User;
+import ru.dankoy.otus.warmvc.core.service.userservice.DbServiceUserImpl;
+import ru.dankoy.otus.warmvc.core.service.userservice.DbServiceUserWriteBehindImpl;
 import ru.dankoy.otus.warmvc.flyway.MigrationsExecutor;
 import ru.dankoy.otus.warmvc.flyway.MigrationsExecutorFlyway;
 import ru.dankoy.otus.warmvc.hibernate.utils.HibernateUtils;
 
+import java.time.Duration;
+
 @Configuration
 public class HibernateConfig implements WebMvcConfigurer {
 
     public static final String HIBERNATE_CFG_FILE = "hibernate.cfg.xml";
+    public static final String WRITE_BEHIND_PROFILE = "write-behind";
+    private static final int WRITE_BEHIND_BATCH_SIZE = 100;
+    private static final Duration WRITE_BEHIND_MAX_DELAY = Duration.ofMillis(10);
+    private static final int WRITE_BEHIND_QUEUE_CAPACITY = 10_000;
 
     @Bean(initMethod = "executeMigrations")
     public MigrationsExecutor migrationsExecutor() {
@@ -29,4 +39,17 @@ public class HibernateConfig implements WebMvcConfigurer {
                 .buildSessionFactory(HIBERNATE_CFG_FILE, User.class, AddressDataSet.class, PhoneDataSet.class);
     }
 
+    /**
+     * Если регистрации приходят всплесками, контроллеры могут сохранять новых юзеров через этот сервис пачками,
+     * а он пишет их через DbServiceUserImpl. Включается профилем: -Dspring.profiles.active=write-behind,
+     * без него контроллеры работают с DbServiceUserImpl напрямую
+     */
+    @Bean(destroyMethod = "close")
+    @Primary
+    @Profile(WRITE_BEHIND_PROFILE)
+    public DbServiceUserWriteBehindImpl writeBehindDbServiceUser(DbServiceUserImpl dbServiceUser) {
+        return new DbServiceUserWriteBehindImpl(dbServiceUser, WRITE_BEHIND_BATCH_SIZE, WRITE_BEHIND_MAX_DELAY,
+                WRITE_BEHIND_QUEUE_CAPACITY);
+    }
+
 }
@@ -17,5 +17,11 @@ public interface UserDao {
 
     List<User> getAllUsers();
 
+    /**
+     * Страница по ключу: limit юзеров с адресом и телефонами, id больше afterId, по возрастанию id.
+     * Запрос идет по индексу id, поэтому стоимость страницы не зависит от ее номера, в отличие от offset.
+     */
+    List<User> findPage(long afterId, int limit);
+
     SessionManager getSessionManager();
 }
@@ -0,0 +1,34 @@
+package ru.dankoy.otus.warmvc.core.model;
+
+import java.util.List;
+
+/**
+ * Страница юзеров по возрастанию id. next - курсор следующей страницы (id последнего юзера),
+ * null если страница неполная и дальше юзеров нет.
+ */
+public class UserPage {
+
+    private final List<User> users;
+    private final Long next;
+
+    public UserPage(List<User> users, Long next) {
+        this.users = users;
+        this.next = next;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPage{" +
+                "users=" + users.size() +
+                ", next=" + next +
+                '}';
+    }
+}
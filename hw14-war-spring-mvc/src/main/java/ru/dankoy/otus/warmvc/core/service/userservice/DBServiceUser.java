@@ -1,16 +1,43 @@
 package ru.dankoy.otus.warmvc.core.service.userservice;
 
 import ru.dankoy.otus.warmvc.core.model.User;
+import ru.dankoy.otus.warmvc.core.model.UserPage;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface DBServiceUser {
 
     long saveUser(User user);
 
+    /**
+     * Сохраняет юзеров одной транзакцией: либо всех, либо никого
+     *
+     * @return id юзеров в порядке списка
+     */
+    List<Long> saveUsers(List<User> users);
+
+    /**
+     * Future завершается тем же юзером с присвоенными id, когда он закоммичен. По умолчанию юзер сохраняется
+     * сразу в вызывающем потоке, см. {@link DbServiceUserWriteBehindImpl}.
+     */
+    default CompletableFuture<User> saveUserAsync(User user) {
+        try {
+            saveUser(user);
+            return CompletableFuture.completedFuture(user);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     Optional<User> getUser(long id);
 
     List<User> getAllUsers();
 
+    /**
+     * Страница юзеров с id больше afterId, первая страница - afterId = 0
+     */
+    UserPage getUsersPage(long afterId, int limit);
+
 }
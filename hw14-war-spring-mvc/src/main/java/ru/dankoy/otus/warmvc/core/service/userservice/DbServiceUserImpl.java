@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import ru.dankoy.otus.warmvc.core.dao.UserDao;
 import ru.dankoy.otus.warmvc.core.model.User;
+import ru.dankoy.otus.warmvc.core.model.UserPage;
 import ru.dankoy.otus.warmvc.core.service.DbServiceException;
 
 import java.util.ArrayList;
@@ -33,15 +34,37 @@ public class DbServiceUserImpl implements DBServiceUser {
                 return userId;
             } catch (Exception e) {
                 sessionManager.rollbackSession();
+                resetIds(user);
                 throw new DbServiceException(e);
             }
         }
     }
 
     @Override
-    public Optional<User> getUser(long id) {
+    public List<Long> saveUsers(List<User> users) {
         try (var sessionManager = userDao.getSessionManager()) {
             sessionManager.beginSession();
+            try {
+                List<Long> ids = new ArrayList<>(users.size());
+                for (User user : users) {
+                    ids.add(userDao.insertUser(user));
+                }
+                sessionManager.commitSession();
+
+                logger.info("created users: {}", ids);
+                return ids;
+            } catch (Exception e) {
+                sessionManager.rollbackSession();
+                users.forEach(DbServiceUserImpl::resetIds);
+                throw new DbServiceException(e);
+            }
+        }
+    }
+
+    @Override
+    public Optional<User> getUser(long id) {
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
             try {
                 Optional<User> userOptional = userDao.findById(id);
 
@@ -59,7 +82,7 @@ public class DbServiceUserImpl implements DBServiceUser {
     public List<User> getAllUsers() {
 
         try (var sessionManager = userDao.getSessionManager()) {
-            sessionManager.beginSession();
+            sessionManager.beginReadOnlySession();
             try {
 
                 List<User> users = userDao.getAllUsers();
@@ -74,4 +97,44 @@ public class DbServiceUserImpl implements DBServiceUser {
         }
     }
 
+    /**
+     * Полная страница считается не последней, поэтому после точно заполненной последней страницы
+     * клиент получит еще одну пустую
+     */
+    @Override
+    public UserPage getUsersPage(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Illegal page limit: " + limit);
+        }
+
+        try (var sessionManager = userDao.getSessionManager()) {
+            sessionManager.beginReadOnlySession();
+            try {
+
+                List<User> users = userDao.findPage(afterId, limit);
+                Long next = users.size() == limit ? users.get(users.size() - 1).getId() : null;
+
+                logger.info("users page after {}: {}", afterId, users.size());
+                return new UserPage(users, next);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                sessionManager.rollbackSession();
+                throw new DbServiceException(e);
+            }
+        }
+    }
+
+    /**
+     * После отката у юзера остаются id, выданные в откаченной транзакции, с ними persist считает юзера
+     * отсоединенным. Id сбрасываются, чтобы юзера можно было сохранить еще раз
+     */
+    private static void resetIds(User user) {
+        user.setId(0);
+        if (user.getAddress() != null) {
+            user.getAddress().setId(0);
+        }
+        if (user.getPhoneDataSets() != null) {
+            user.getPhoneDataSets().forEach(phoneDataSet -> phoneDataSet.setId(0));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package ru.dankoy.otus.warmvc.hibernate.dao;
 
 import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -15,6 +16,7 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -96,6 +98,29 @@ public class UserDaoHibernate implements UserDao {
 
     }
 
+    /**
+     * Сначала id страницы, потом юзеры по ним с join адреса и телефонов. Постраничный запрос с join коллекции
+     * hibernate ограничил бы в памяти, прочитав всю таблицу, поэтому limit применяется к запросу только id.
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        Session hibernateSession = sessionManager.getCurrentSession().getHibernateSession();
+        List<Long> ids = hibernateSession
+                .createQuery("select u.id from User u where u.id > :afterId order by u.id", Long.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return hibernateSession.createQuery("select distinct u from User u left join fetch u.address "
+                + "left join fetch u.phoneDataSets where u.id in (:ids) order by u.id", User.class)
+                .setParameter("ids", ids)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+    }
+
     @Override
     public SessionManager getSessionManager() {
         return sessionManager;
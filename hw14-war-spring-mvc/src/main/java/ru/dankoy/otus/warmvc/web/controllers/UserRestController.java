@@ -1,11 +1,18 @@
 package ru.dankoy.otus.warmvc.web.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.dankoy.otus.warmvc.core.model.AddressDataSet;
 import ru.dankoy.otus.warmvc.core.model.PhoneDataSet;
 import ru.dankoy.otus.warmvc.core.model.User;
+import ru.dankoy.otus.warmvc.core.model.UserPage;
 import ru.dankoy.otus.warmvc.core.service.userservice.DBServiceUser;
 
 import java.util.List;
@@ -15,17 +22,61 @@ import java.util.Optional;
 public class UserRestController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserRestController.class);
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final String DEFAULT_PAGE_LIMIT = "100";
+    private static final int EXPORT_PAGE_SIZE = 500;
 
     private final DBServiceUser dbServiceUser;
+    // те же настройки, что у конвертера json spring mvc
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 
     public UserRestController(DBServiceUser dbServiceUser) {
         this.dbServiceUser = dbServiceUser;
     }
 
+    /**
+     * Выгружает всех юзеров JSON массивом, читая их страницами по EXPORT_PAGE_SIZE и записывая в ответ
+     * по мере чтения. В памяти только одна страница, сколько бы юзеров ни было.
+     * Запрос с after или limit обрабатывает getClientsPage.
+     *
+     * @return
+     */
+    @GetMapping(value = {"/api/user"}, params = {"!after", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getClients() {
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                UserPage page = dbServiceUser.getUsersPage(0, EXPORT_PAGE_SIZE);
+                while (true) {
+                    for (User user : page.getUsers()) {
+                        objectMapper.writeValue(generator, user);
+                    }
+                    generator.flush();
+                    if (page.getNext() == null) {
+                        break;
+                    }
+                    page = dbServiceUser.getUsersPage(page.getNext(), EXPORT_PAGE_SIZE);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Страница юзеров /api/user?after=курсор&amp;limit=n, курсор следующей страницы в next.
+     * limit ограничен MAX_PAGE_LIMIT, без limit страница из DEFAULT_PAGE_LIMIT юзеров.
+     *
+     * @param afterId
+     * @param limit
+     * @return
+     */
     @GetMapping(value = {"/api/user"})
-    public List<User> getClients() {
+    public UserPage getClientsPage(@RequestParam(name = "after", defaultValue = "0") long afterId,
+                                   @RequestParam(name = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit) {
 
-        return dbServiceUser.getAllUsers();
+        return dbServiceUser.getUsersPage(afterId, Math.max(1, Math.min(limit, MAX_PAGE_LIMIT)));
     }
 
     @GetMapping(value = {"/api/user/{id}"})
@@ -39,22 +90,9 @@ public class UserRestController {
     @ResponseBody
     public User saveNewUser(@RequestBody User user) {
 
-        long newUserId = saveUser(user);
-        return getNewUserFromDataBase(newUserId);
-    }
-
-    /**
-     * Получает json описание нового созданного юзера
-     *
-     * @param id
-     * @return
-     */
-    private User getNewUserFromDataBase(long id) {
-
-        Optional<User> foundUser = dbServiceUser.getUser(id);
-
-        return foundUser.orElseThrow(() -> new RuntimeException("User not found"));
-
+        // после сохранения у юзера, адреса и телефонов уже есть id, повторно из бд юзер не читается
+        saveUser(user);
+        return user;
     }
 
     /**
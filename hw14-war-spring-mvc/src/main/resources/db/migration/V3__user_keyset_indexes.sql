@@ -0,0 +1,3 @@
+create unique index if not exists tuser_id_idx on tuser(id);
+create index if not exists tphones_user_id_idx on tphones(user_id);
+create index if not exists taddress_user_id_idx on taddress(user_id);